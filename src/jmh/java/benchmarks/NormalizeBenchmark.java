@@ -0,0 +1,43 @@
+package benchmarks;
+
+import cora.interfaces.terms.Term;
+import cora.parsers.TrsInputReader;
+import cora.rewriting.TermRewritingSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the evaluation of fib(s^n(0)) in test.trs, both by repeated leftmost innermost steps and by normalize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizeBenchmark {
+  @Param({ "5", "10", "15" })
+  int n;
+
+  private TermRewritingSystem _trs;
+  private Term _term;
+
+  @Setup
+  public void setup() throws Exception {
+    _trs = (TermRewritingSystem)TrsInputReader.readTrsFromFile("test.trs");
+    _term = TrsInputReader.readTermFromString("fib(" + "s(".repeat(n) + "0" + ")".repeat(n) + ")", _trs);
+  }
+
+  @Benchmark
+  public Term stepwise() {
+    Term s = _term;
+    for (Term t = _trs.leftmostInnermostReduce(s); t != null; t = _trs.leftmostInnermostReduce(s)) s = t;
+    return s;
+  }
+
+  @Benchmark
+  public Term normalize() {
+    return _trs.normalize(_term);
+  }
+}
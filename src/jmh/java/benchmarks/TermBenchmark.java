@@ -0,0 +1,167 @@
+package benchmarks;
+
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.general.semiunification.SemiUnificationResult;
+import cora.analysers.general.unification.UnionFindUnification;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Substitution;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.interfaces.types.Type;
+import cora.terms.FunctionalTerm;
+import cora.terms.Subst;
+import cora.terms.UserDefinedSymbol;
+import cora.terms.Var;
+import cora.terms.flat.FlatTerm;
+import cora.terms.flat.SymbolTable;
+import cora.types.ArrowType;
+import cora.types.Sort;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the basic operations on terms: substitution, unification and semi-unification.
+ * The terms are full trees of the given depth, where every function symbol has the given arity; their leaves are
+ * distinct variables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TermBenchmark {
+  @Param({ "3", "6" })
+  int depth;
+
+  @Param({ "1", "2", "3" })
+  int arity;
+
+  private Type _o = new Sort("o");
+  private FunctionSymbol _a = new UserDefinedSymbol("a", _o);
+  private FunctionSymbol _s = new UserDefinedSymbol("s", new ArrowType(_o, _o));
+
+  private Term _tree;            // the full tree with variables at the leaves
+  private Term _instance;        // the tree with every leaf x replaced by s(x)
+  private Term _ground;          // the tree with every leaf replaced by a
+  private Substitution _toGround;
+  private Term _chainLeft;       // the terms of the chain problem, see createChain
+  private Term _chainRight;
+  private FlatTerm _flatTree;    // flat versions of _tree, _instance and _ground
+  private FlatTerm _flatInstance;
+  private FlatTerm _flatGround;
+  private int[] _flatBinding;
+
+  @Setup
+  public void setup() {
+    List<Variable> leaves = new ArrayList<>();
+    FunctionSymbol f = symbol("f", arity);
+    _tree = tree(f, depth, leaves);
+    Subst toInstance = new Subst();
+    Subst toGround = new Subst();
+    for (Variable x : leaves) {
+      toInstance.extend(x, new FunctionalTerm(_s, x));
+      toGround.extend(x, _a);
+    }
+    _instance = _tree.substitute(toInstance);
+    _ground = _tree.substitute(toGround);
+    _toGround = toGround;
+    createChain(2 * depth);
+    SymbolTable table = new SymbolTable();
+    _flatTree = new FlatTerm(_tree, table);
+    _flatInstance = new FlatTerm(_instance, table);
+    _flatGround = new FlatTerm(_ground, table);
+    _flatBinding = new int[_flatTree.queryVariableCount()];
+  }
+
+  /** Returns a function symbol of type o -> ... -> o with the given arity. */
+  private FunctionSymbol symbol(String name, int n) {
+    Type type = _o;
+    for (int i = 0; i < n; i++) type = new ArrowType(_o, type);
+    return new UserDefinedSymbol(name, type);
+  }
+
+  private Term tree(FunctionSymbol f, int d, List<Variable> leaves) {
+    if (d == 0) {
+      Variable x = new Var("x" + leaves.size(), _o);
+      leaves.add(x);
+      return x;
+    }
+    ArrayList<Term> args = new ArrayList<>();
+    for (int i = 0; i < arity; i++) args.add(tree(f, d - 1, leaves));
+    return new FunctionalTerm(f, args);
+  }
+
+  /**
+   * Creates the unification problem g(x1, g(x2, ..., g(xn, a))) = g(h(x0, x0), g(h(x1, x1), ..., a)), whose unifier
+   * maps xi to a term of size 2^i; a naive unification algorithm takes exponential time on it.
+   */
+  private void createChain(int n) {
+    FunctionSymbol g = symbol("g", 2);
+    FunctionSymbol h = symbol("h", 2);
+    List<Variable> x = new ArrayList<>();
+    for (int i = 0; i <= n; i++) x.add(new Var("x" + i, _o));
+    Term s = _a, t = _a;
+    for (int i = n; i >= 1; i--) {
+      s = new FunctionalTerm(g, x.get(i), s);
+      t = new FunctionalTerm(g, new FunctionalTerm(h, x.get(i - 1), x.get(i - 1)), t);
+    }
+    _chainLeft = s;
+    _chainRight = t;
+  }
+
+  @Benchmark
+  public Term substitute() {
+    return _tree.substitute(_toGround);
+  }
+
+  @Benchmark
+  public Substitution unify() {
+    return _tree.unify(_ground);
+  }
+
+  @Benchmark
+  public Substitution unionFindUnify() {
+    return UnionFindUnification.unify(_tree, _ground);
+  }
+
+  @Benchmark
+  public Substitution flatUnify() {
+    return _flatTree.unify(_flatGround);
+  }
+
+  @Benchmark
+  public boolean flatUnifiableApart() {
+    return FlatTerm.unifiableApart(_flatTree, 0, _flatInstance, 0);
+  }
+
+  @Benchmark
+  public Substitution match() {
+    return _tree.match(_instance);
+  }
+
+  @Benchmark
+  public boolean flatMatches() {
+    Arrays.fill(_flatBinding, -1);
+    return _flatTree.matches(_flatInstance, 0, _flatBinding);
+  }
+
+  @Benchmark
+  public Substitution unifyChain() {
+    return _chainLeft.unify(_chainRight);
+  }
+
+  @Benchmark
+  public Substitution unionFindUnifyChain() {
+    return UnionFindUnification.unify(_chainLeft, _chainRight);
+  }
+
+  @Benchmark
+  public SemiUnificationResult semiUnify() {
+    return new SemiUnification().semiUnify(_tree, _instance);
+  }
+}
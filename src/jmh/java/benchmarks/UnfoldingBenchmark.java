@@ -0,0 +1,66 @@
+package benchmarks;
+
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.nontermination.unfolding.AbstractUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.UnfoldingAnalyser;
+import cora.exceptions.AnalyzerInterruptedException;
+import cora.interfaces.analyzers.Result;
+import cora.interfaces.rewriting.TRS;
+import cora.parsers.TrsInputReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full run of the unfolding analysers, on the bundled example files (which are read from the project
+ * directory) and on generated systems with a given number of rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnfoldingBenchmark {
+  private static final String GENERATED = "generated-";
+
+  /** Either the name of a .trs or .mstrs file, or generated-n for the generated system with n rules. */
+  @Param({ "test.trs", "test.mstrs", "generated-4", "generated-8" })
+  String input;
+
+  @Param({ "2", "4" })
+  int unfoldings;
+
+  @Param({ "abstract", "concrete" })
+  String technique;
+
+  private TRS _trs;
+
+  @Setup
+  public void setup() throws Exception {
+    if (input.startsWith(GENERATED)) {
+      _trs = TrsInputReader.readTrsFromString(generate(Integer.parseInt(input.substring(GENERATED.length()))));
+    }
+    else _trs = TrsInputReader.readTrsFromFile(input);
+  }
+
+  /**
+   * Generates the system with rules fi(s(x), y) -> f{i+1}(x, s(y)) for i < n - 1, and f{n-1}(x, y) -> f0(s(x), y),
+   * which does not terminate and needs more unfoldings as n increases.
+   */
+  private String generate(int n) {
+    StringBuilder rules = new StringBuilder("(VAR x y)\n(RULES\n");
+    for (int i = 0; i < n - 1; i++) rules.append("  f").append(i).append("(s(x),y) -> f").append(i + 1).append("(x,s(y))\n");
+    rules.append("  f").append(n - 1).append("(x,y) -> f0(s(x),y)\n)\n");
+    return rules.toString();
+  }
+
+  @Benchmark
+  public Result analyze() throws AnalyzerInterruptedException {
+    UnfoldingAnalyser analyser;
+    if (technique.equals("abstract")) analyser = new AbstractUnfoldingAnalyser(_trs, unfoldings, new SemiUnification(), true);
+    else analyser = new ConcreteUnfoldingAnalyser(_trs, unfoldings, new SemiUnification(), true);
+    return analyser.analyze(600);
+  }
+}
@@ -15,17 +15,46 @@
 
 package cora;
 
+import cora.analysers.AnalysisServer;
+import cora.analysers.BatchAnalyser;
+import cora.analysers.CachingAnalyzer;
 import cora.analysers.InterruptableAnalyzer;
+import cora.analysers.PortfolioAnalyser;
+import cora.analysers.ResultCache;
+import cora.analysers.general.semiunification.CachingSemiUnifier;
+import cora.analysers.general.semiunification.DifferentialSemiUnifier;
+import cora.analysers.general.semiunification.GraphSemiUnification;
 import cora.analysers.general.semiunification.SemiUnification;
 import cora.analysers.general.unification.Unification;
-import cora.analysers.nontermination.unfolding.AbstractUnfoldingAnalyser;
-import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.analysers.general.unification.UnionFindUnification;
+import cora.analysers.nontermination.DirectLoopAnalyser;
+import cora.analysers.nontermination.MatchingAnalyser;
+import cora.analysers.nontermination.unfolding.AnalysisSession;
+import cora.analysers.nontermination.unfolding.UnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.UnfoldingFrontier;
+import cora.analysers.nontermination.unfolding.UnfoldingHeuristic;
+import cora.analysers.results.CachedResult;
 import cora.interfaces.analyzers.SemiUnifier;
+import cora.interfaces.rewriting.Rule;
 import cora.interfaces.rewriting.TRS;
+import cora.interfaces.terms.Term;
 import cora.parsers.CoraInputReader;
 import cora.parsers.TrsInputReader;
+import cora.rewriting.FirstOrderRule;
+import cora.rewriting.MemoisingEvaluator;
+import cora.rewriting.SimpleRule;
+import cora.rewriting.TermRewritingSystem;
+import cora.terms.TermFactory;
+import cora.terms.VarSupply;
 import com.beust.jcommander.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,12 +62,12 @@ class CliArgs {
   @Parameter
   private List<String> parameters = new ArrayList<>();
 
-  @Parameter(names = { "-i", "--input", "--trs" }, description = "Input file", required = true)
+  @Parameter(names = { "-i", "--input", "--trs" }, description = "Input file")
   String inputfilePath;
 
   @Parameter(
     names = { "-t", "--technique", "--tech" },
-    description = "Technique, default is 'abstractUnfolding', other options are 'concreteUnfolding'")
+    description = "Technique, default is 'abstractUnfolding', other options are 'concreteUnfolding', 'directLoop', 'matching' and 'portfolio'")
   String technique = "abstractUnfolding";
 
   @Parameter(
@@ -52,19 +81,154 @@ class CliArgs {
     arity = 1)
   boolean augmentTrs = true;
 
+  @Parameter(
+    names = { "--augmentDepth" },
+    description = "The maximum number of variables substituted in a rule of the augmented TRS, default is '-1' (no limit)")
+  int augmentDepth = -1;
+
+  @Parameter(
+    names = { "--augmentLimit" },
+    description = "The maximum number of rules in the augmented TRS, default is '-1' (no limit)")
+  int augmentLimit = -1;
+
   @Parameter(
     names = { "--su", "--semiUnifier" },
     description = "Select the semi-unifier check in the unfolding techniques, default is 'semiUnifier'")
   String semiUnifier = "semiUnifier";
 
+  @Parameter(
+    names = { "--hashCons" },
+    description = "Share structurally equal terms through a hash-consing term factory, default is 'false'",
+    arity = 1)
+  boolean hashCons = false;
+
+  @Parameter(
+    names = { "--pruneSubsumed" },
+    description = "Prune unfolded rules that are instances of an already explored rule, default is 'false'",
+    arity = 1)
+  boolean pruneSubsumed = false;
+
+  @Parameter(
+    names = { "--threads" },
+    description = "The number of threads used to unfold the rules in the unfolding techniques, default is '1'")
+  int threads = 1;
+
+  @Parameter(
+    names = { "--suCache" },
+    description = "The number of semi-unification results to cache (modulo renaming), 0 disables the cache, default is '10000'")
+  int semiUnifierCacheSize = 10000;
+
+  @Parameter(
+    names = { "--batch" },
+    description = "Analyse all problems in the given directory, or in the given file with one problem per line")
+  String batch = null;
+
+  @Parameter(
+    names = { "--workers" },
+    description = "The number of problems analysed at the same time in batch mode, default is the number of processors")
+  int workers = Runtime.getRuntime().availableProcessors();
+
+  @Parameter(
+    names = { "--evaluate" },
+    description = "Print the innermost normal form of the given term instead of analysing the input file")
+  String evaluate = null;
+
+  @Parameter(
+    names = { "--evalCache" },
+    description = "The number of normal forms of ground terms cached when evaluating, 0 disables the cache, default is '100000'")
+  int evaluationCacheSize = 100000;
+
+  @Parameter(
+    names = { "--evalSteps" },
+    description = "The maximum number of rewrite steps when evaluating, default is '-1' (no limit)")
+  long evaluationSteps = -1;
+
+  @Parameter(
+    names = { "--serve" },
+    description = "Analyse requests as they arrive, read from 'stdio' or from connections to the given local port")
+  String serve = null;
+
+  @Parameter(
+    names = { "--program" },
+    description = "The text of the input problem, instead of an input file")
+  String program = null;
+
+  @Parameter(
+    names = { "--format" },
+    description = "The format of the --program text: 'trs' (default), 'mstrs' or 'cora'")
+  String format = "trs";
+
+  @Parameter(
+    names = { "--cache" },
+    description = "Look up and store the result in the on-disk result cache")
+  boolean useCache = false;
+
+  @Parameter(
+    names = { "--noCache" },
+    description = "Do not use the on-disk result cache, even if --cache is given (for instance by a server)")
+  boolean noCache = false;
+
+  @Parameter(
+    names = { "--cacheDir" },
+    description = "The directory of the on-disk result cache (used with --cache), default is '.cora/results' in the home directory")
+  String cacheDirectory = Paths.get(System.getProperty("user.home"), ".cora", "results").toString();
+
+  @Parameter(
+    names = { "--cacheSize" },
+    description = "The number of results kept in the on-disk result cache, default is '10000'")
+  int cacheSize = 10000;
+
+  /** Returns a description of the settings that influence the result of a (completed) analysis. */
+  String querySettings() {
+    return "technique=" + technique + ";maxUnfoldings=" + maxUnfoldings + ";augmentTrs=" + augmentTrs +
+      ";augmentDepth=" + augmentDepth + ";augmentLimit=" + augmentLimit + ";semiUnifier=" + semiUnifier +
+      ";pruneSubsumed=" + pruneSubsumed +
+      (search.equals("breadthFirst") ? "" : ";search=" + search + ";searchBudget=" + searchBudget);
+  }
+
+  @Parameter(
+    names = { "--search" },
+    description = "The search order of the unfolding techniques, default is 'breadthFirst', other options are the best-first heuristics 'termSize', 'sizeDifference', 'sharedRoots' and 'depth'")
+  String search = "breadthFirst";
+
+  @Parameter(
+    names = { "--searchBudget" },
+    description = "The number of rules a best-first search may generate, default is '100000' (-1 is no limit)")
+  long searchBudget = 100000;
+
+  @Parameter(
+    names = { "--checkpoint" },
+    description = "Continue an unfolding analysis from the frontier saved in this file (if it exists), and save the new frontier to it")
+  String checkpoint = null;
+
   @Parameter(names = { "--timeout" }, description = "Set the timeout for the analysis in seconds, default is '60'")
   int timeout = 60;
 
+  @Parameter(names = { "--timeoutMs" }, description = "Set the timeout for the analysis in milliseconds, overrides --timeout")
+  long timeoutMillis = -1;
+
+  @Parameter(
+    names = { "--ruleLimit" },
+    description = "Stop the analysis after generating this many rules, default is '-1' (no limit)")
+  long ruleLimit = -1;
+
+  @Parameter(
+    names = { "--memoryLimit" },
+    description = "Stop the analysis when more than this many megabytes of memory are in use, default is '-1' (no limit)")
+  long memoryLimit = -1;
+
+  /** Returns the timeout in milliseconds. */
+  long queryTimeoutMillis() {
+    return timeoutMillis >= 0 ? timeoutMillis : timeout * 1000L;
+  }
+
   @Parameter(names = { "-h", "--help" }, description = "Show help", help = true)
   boolean help = false;
 }
 
 public class Main {
+  private static final long EVALUATION_STACK_SIZE = 1L << 30;
+
   private static String getExtension(String filename) {
     int i = filename.lastIndexOf('.');
     if (i >= 0) return filename.substring(i+1);
@@ -82,39 +246,275 @@ public class Main {
     throw new Exception("Unknown file extension: " + extension + ".");
   }
 
+  /** Reads the --program text if it is given, and otherwise the input file. */
+  private static TRS readInput(CliArgs args) throws Exception {
+    if (args.program == null) {
+      if (args.inputfilePath == null) throw new Exception("No input file given.");
+      return readInput(args.inputfilePath);
+    }
+    if (args.format.equals("trs") || args.format.equals("mstrs")) {
+      return TrsInputReader.readTrsFromString(args.program);
+    }
+    if (args.format.equals("cora")) {
+      return CoraInputReader.readProgramFromString(args.program);
+    }
+    throw new Exception("Unknown format: " + args.format + ".");
+  }
+
+  /** Returns a copy of the given TRS where all terms in the rules are shared through a new term factory. */
+  private static TRS shareTerms(TRS trs) {
+    TermFactory factory = new TermFactory();
+    ArrayList<Rule> rules = new ArrayList<>();
+    for (int i = 0; i < trs.queryRuleCount(); i++) {
+      Rule rule = trs.queryRule(i);
+      Term left = factory.intern(rule.queryLeftSide());
+      Term right = factory.intern(rule.queryRightSide());
+      if (rule instanceof FirstOrderRule) rules.add(new FirstOrderRule(left, right));
+      else rules.add(new SimpleRule(left, right));
+    }
+    return new TermRewritingSystem(trs.getAlphabet(), rules);
+  }
+
   private static SemiUnifier convertSemiUnifier(String semiUnifier) throws Exception {
     switch (semiUnifier) {
       case "semiUnifier":
         return new SemiUnification();
       case "unification":
         return new Unification();
+      case "unionFind":
+        return new UnionFindUnification();
+      case "graph":
+        return new GraphSemiUnification();
+      case "differential":
+        return new DifferentialSemiUnifier(new SemiUnification(), new GraphSemiUnification(new VarSupply(), null));
     }
     throw new Exception("Unknown semi-unifier: " + semiUnifier);
   }
 
-  private static InterruptableAnalyzer getAnalyzer(CliArgs args) throws Exception {
-    TRS trs = readInput(args.inputfilePath);
+  private static SemiUnifier createSemiUnifier(CliArgs args) throws Exception {
+    return cached(convertSemiUnifier(args.semiUnifier), args);
+  }
+
+  /** Wraps the given semi-unifier in a cache, unless the cache is disabled. */
+  private static SemiUnifier cached(SemiUnifier semiUnifier, CliArgs args) {
+    if (args.semiUnifierCacheSize > 0) return new CachingSemiUnifier(semiUnifier, args.semiUnifierCacheSize);
+    return semiUnifier;
+  }
+
+  private static InterruptableAnalyzer getAnalyzer(CliArgs args, TRS trs) throws Exception {
+    if (args.hashCons) trs = shareTerms(trs);
+    InterruptableAnalyzer analyzer;
     switch (args.technique) {
+      case "directLoop":
+        analyzer = new DirectLoopAnalyser(trs);
+        break;
+      case "matching":
+        analyzer = new MatchingAnalyser(trs);
+        break;
+      case "portfolio":
+        analyzer = createPortfolio(new AnalysisSession(trs), args);
+        break;
+      default:
+        analyzer = createUnfolder(new AnalysisSession(trs), args.technique, createSemiUnifier(args), args);
+    }
+    analyzer.setRuleLimit(args.ruleLimit);
+    analyzer.setMemoryLimit(args.memoryLimit < 0 ? -1 : args.memoryLimit * 1024 * 1024);
+    return analyzer;
+  }
+
+  /**
+   * Returns the analyzer for the given system, which first looks in the result cache if one is given.  An analysis
+   * that resumes from a checkpoint is not cached, as its result depends on the checkpoint as well.
+   */
+  private static InterruptableAnalyzer getAnalyzer(CliArgs args, TRS trs, ResultCache cache) throws Exception {
+    InterruptableAnalyzer analyzer = getAnalyzer(args, trs);
+    if (cache == null || args.checkpoint != null) return analyzer;
+    return new CachingAnalyzer(analyzer, cache, ResultCache.computeKey(trs, args.querySettings()));
+  }
+
+  /** Opens the result cache, or returns null if it is disabled. */
+  private static ResultCache openCache(CliArgs args) throws Exception {
+    if (!args.useCache || args.noCache) return null;
+    return new ResultCache(Paths.get(args.cacheDirectory), args.cacheSize);
+  }
+
+  private static UnfoldingAnalyser createUnfolder(AnalysisSession session, String technique, SemiUnifier semiUnifier,
+                                                  CliArgs args) throws Exception {
+    UnfoldingAnalyser analyzer;
+    switch (technique) {
       case "abstractUnfolding":
-        return new AbstractUnfoldingAnalyser(trs, args.maxUnfoldings, convertSemiUnifier(args.semiUnifier), args.augmentTrs);
+        analyzer = session.createAbstractUnfolder(args.maxUnfoldings, semiUnifier, args.augmentTrs);
+        break;
       case "concreteUnfolding":
-        return new ConcreteUnfoldingAnalyser(trs, args.maxUnfoldings, convertSemiUnifier(args.semiUnifier), args.augmentTrs);
+        analyzer = session.createConcreteUnfolder(args.maxUnfoldings, semiUnifier, args.augmentTrs);
+        break;
+      default:
+        throw new Exception("Unknown technique: " + technique);
+    }
+    analyzer.setAugmentationLimits(args.augmentDepth, args.augmentLimit);
+    analyzer.setPruneSubsumed(args.pruneSubsumed);
+    if (!args.search.equals("breadthFirst")) {
+      UnfoldingHeuristic heuristic = UnfoldingHeuristic.fromName(args.search);
+      if (heuristic == null) throw new Exception("Unknown search: " + args.search);
+      analyzer.setSearch(heuristic, args.searchBudget);
+    }
+    analyzer.setThreads(args.threads);
+    return analyzer;
+  }
+
+  /**
+   * Creates a portfolio of the direct loop and matching analysers, and both unfolding techniques with both the
+   * semiUnifier and the graph semi-unifier.  The unfolding strategies share the structures of the given session.
+   */
+  private static PortfolioAnalyser createPortfolio(AnalysisSession session, CliArgs args) throws Exception {
+    TRS trs = session.queryTRS();
+    PortfolioAnalyser portfolio = new PortfolioAnalyser();
+    portfolio.addStrategy("directLoop", new DirectLoopAnalyser(trs));
+    portfolio.addStrategy("matching", new MatchingAnalyser(trs));
+    for (String technique : List.of("concreteUnfolding", "abstractUnfolding")) {
+      for (String semiUnifier : List.of("semiUnifier", "graph")) {
+        SemiUnifier su = cached(convertSemiUnifier(semiUnifier), args);
+        portfolio.addStrategy(technique + "/" + semiUnifier, createUnfolder(session, technique, su, args));
+      }
+    }
+    return portfolio;
+  }
+
+  /**
+   * Prints the normal form of the --evaluate term in the input system, with the cache statistics.  Returns false
+   * (after reporting the error) if the evaluation failed.
+   */
+  private static boolean evaluate(CliArgs args) throws Exception {
+    TRS trs = readInput(args);
+    if (!(trs instanceof TermRewritingSystem)) throw new Exception("Evaluation is not supported for this input.");
+    boolean cora = args.program == null ? getExtension(args.inputfilePath).equals("cora") : args.format.equals("cora");
+    Term term = cora
+      ? CoraInputReader.readTermFromString(args.evaluate, trs)
+      : TrsInputReader.readTermFromString(args.evaluate, trs);
+    MemoisingEvaluator evaluator = new MemoisingEvaluator((TermRewritingSystem)trs, args.evaluationCacheSize);
+    // normal forms such as large unary numbers are deep terms, and terms are traversed recursively
+    Thread thread = new Thread(null, () -> {
+      long start = System.currentTimeMillis();
+      Term normalForm = evaluator.normalize(term, args.evaluationSteps);
+      long time = System.currentTimeMillis() - start;
+      if (normalForm == null) System.out.println("No normal form within " + args.evaluationSteps + " steps.");
+      else System.out.println("Normal form: " + normalForm);
+      System.out.println("Time taken: " + time + "ms");
+      System.out.println("Rewrite steps: " + evaluator.querySteps());
+      System.out.println("Evaluation cache: " + evaluator.queryHits() + " hits, " + evaluator.queryMisses() + " misses");
+    }, "evaluator", EVALUATION_STACK_SIZE);
+    Throwable[] failure = new Throwable[1];
+    thread.setUncaughtExceptionHandler((t, e) -> failure[0] = e);
+    thread.start();
+    thread.join();
+    if (failure[0] == null) return true;
+    System.out.println("Evaluation failed: " + failure[0]);
+    failure[0].printStackTrace();
+    return false;
+  }
+
+  /**
+   * Analyses requests as they arrive on stdin or on the given local port; the arguments of a request are added to
+   * the command-line arguments of the server, so a request can override any of them.
+   */
+  private static void serve(String[] baseArgs, CliArgs args) throws Exception {
+    ResultCache cache = openCache(args);
+    AnalysisServer server = new AnalysisServer(arguments -> {
+      CliArgs requestArgs = new CliArgs();
+      List<String> all = new ArrayList<>(List.of(baseArgs));
+      all.addAll(arguments);
+      JCommander.newBuilder().addObject(requestArgs).allowParameterOverwriting(true).build()
+                .parse(all.toArray(new String[0]));
+      return getAnalyzer(requestArgs, readInput(requestArgs), requestArgs.noCache ? null : cache)
+               .analyzeMillis(requestArgs.queryTimeoutMillis());
+    }, args.workers);
+    if (args.serve.equals("stdio")) {
+      server.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), System.out);
     }
-    throw new Exception("Unknown technique: " + args.technique);
+    else server.serve(Integer.parseInt(args.serve));
+    server.shutdown();
   }
 
   private static void showHelp() {
     System.out.println("Usage: java -jar cora-nta.jar -i <file> [options]");
+    System.out.println("   or: java -jar cora-nta.jar --batch <directory or list file> [options]");
+    System.out.println("   or: java -jar cora-nta.jar --serve <stdio or port> [options]");
     System.out.println("\n<file> should be a .mstrs, .trs or .cora file");
     System.out.println("\n Additional [options] are:");
-    System.out.println("\t-t|--tech|--technqiue: choose a technique to use: either abstractUnfolding (default) or concreteUnfolding");
+    System.out.println("\t-t|--tech|--technqiue: choose a technique to use: abstractUnfolding (default), concreteUnfolding, directLoop, matching,");
+    System.out.println("\t                      or portfolio (runs directLoop, matching and both unfolding techniques with both semiUnifier and graph in parallel)");
     System.out.println("\t-u|--maxUnfoldings|--unfoldings: the number of maximum unfoldings to use (default 10)");
     System.out.println("\t-a|--augmentTrs|--augment: true or false, whether or not to augment the trs as pre-processing (default true)");
-    System.out.println("\t--su|--semiUnifier: which semi-unifier to use: either semiUnifier (default) or unification");
+    System.out.println("\t--augmentDepth: the maximum number of variables substituted in an augmented rule, or -1 for no limit (default -1)");
+    System.out.println("\t--augmentLimit: the maximum number of rules in the augmented TRS, or -1 for no limit (default -1)");
+    System.out.println("\t--su|--semiUnifier: which semi-unifier to use: semiUnifier (default), unification, unionFind, graph, or differential (runs both semiUnifier and graph, and reports where they disagree)");
+    System.out.println("\t--suCache: the number of semi-unification results to cache, or 0 to disable the cache (default 10000)");
+    System.out.println("\t--hashCons: true or false, whether or not to share equal terms through a hash-consing factory (default false)");
+    System.out.println("\t--pruneSubsumed: true or false, whether or not to prune unfolded rules that are instances of explored rules (default false)");
+    System.out.println("\t--threads: the number of threads used for unfolding (default 1)");
     System.out.println("\t--timeout: timeout for the analysis in seconds (default 60)");
+    System.out.println("\t--timeoutMs: timeout for the analysis in milliseconds (overrides --timeout)");
+    System.out.println("\t--ruleLimit: stop the analysis with a LIMIT result after generating this many rules (default -1, no limit)");
+    System.out.println("\t--memoryLimit: stop the analysis with a LIMIT result when more than this many MB are in use (default -1, no limit)");
+    System.out.println("\t--cache: look up and store the result in the on-disk result cache; results are cached by the rules (modulo");
+    System.out.println("\t         variable renaming and rule order) and the settings that influence a completed analysis; analyses that");
+    System.out.println("\t         resume from a --checkpoint are not cached");
+    System.out.println("\t--noCache: do not use the result cache, even if --cache is given (in server mode: by the server)");
+    System.out.println("\t--cacheDir: the directory of the result cache (default ~/.cora/results)");
+    System.out.println("\t--cacheSize: the number of results kept in the result cache; the least recently used are removed (default 10000)");
+    System.out.println("\t--search: the order in which the unfolding techniques unfold rules: breadthFirst (default, one iteration at a time up to");
+    System.out.println("\t          --maxUnfoldings), or best-first, always unfolding the rule that scores best on a heuristic: termSize (smallest");
+    System.out.println("\t          rules), sizeDifference (sides of about equal size), sharedRoots (most occurrences of the left root on the right),");
+    System.out.println("\t          or depth (most unfolded rules, that is, depth-first)");
+    System.out.println("\t--searchBudget: the number of rules a best-first search may generate before giving up, or -1 for no limit (default 100000)");
+    System.out.println("\t--checkpoint: continue an unfolding analysis from the frontier saved in the given file (if it exists and was made");
+    System.out.println("\t              with the same technique and augmentation and pruning settings), and save the new frontier to it");
+    System.out.println("\t--batch: analyse every .trs, .mstrs and .cora file in the given directory, or every file listed in the given file;");
+    System.out.println("\t         one line is printed per problem: file, result type, time (ms) and deduction, separated by tabs");
+    System.out.println("\t--workers: the number of problems analysed at the same time in batch mode (default: the number of processors)");
+    System.out.println("\t--evaluate: print the innermost normal form of the given term in the input system, instead of analysing it");
+    System.out.println("\t--evalCache: the number of normal forms of ground terms to cache when evaluating, or 0 to disable the cache (default 100000)");
+    System.out.println("\t--evalSteps: the maximum number of rewrite steps when evaluating (default -1, no limit)");
+    System.out.println("\t--program: the text of the problem to analyse, instead of an input file");
+    System.out.println("\t--format: the format of the --program text: trs (default), mstrs or cora");
+    System.out.println("\t--serve: keep running and analyse requests read from stdin (stdio) or from connections to the given local port;");
+    System.out.println("\t         a request is a line with an id and options (for instance --program), separated by tabs, where \\n and \\t");
+    System.out.println("\t         stand for a newline and a tab; the options override the [options] of the server, and one line is printed");
+    System.out.println("\t         per request as it completes, in the format of --batch with the id instead of the file; quit ends the input");
     System.out.println("\t-h|--help: show this help");
   }
 
+  /** Makes the given unfolding analyser continue from the frontier in the given checkpoint file, if there is one. */
+  private static void resumeFromCheckpoint(InterruptableAnalyzer analyzer, TRS trs, Path checkpoint) {
+    if (analyzer instanceof CachingAnalyzer) analyzer = ((CachingAnalyzer)analyzer).queryWrapped();
+    if (!(analyzer instanceof UnfoldingAnalyser) || !Files.exists(checkpoint)) return;
+    try {
+      UnfoldingFrontier frontier = UnfoldingFrontier.read(checkpoint, trs);
+      ((UnfoldingAnalyser)analyzer).resumeFrom(frontier);
+      System.out.println("Resuming after " + frontier.queryIterations() + " unfoldings from " + checkpoint);
+    } catch (IOException | IllegalArgumentException ex) {
+      System.out.println("Checkpoint not used: " + ex.getMessage());
+    }
+  }
+
+  /** Saves the frontier of the given unfolding analyser (if it has one) to the given checkpoint file. */
+  private static void saveCheckpoint(InterruptableAnalyzer analyzer, TRS trs, Path checkpoint) throws IOException {
+    if (!(analyzer instanceof UnfoldingAnalyser)) return;
+    UnfoldingFrontier frontier = ((UnfoldingAnalyser)analyzer).queryFrontier();
+    if (frontier == null) return;
+    frontier.write(checkpoint, trs);
+    System.out.println("Checkpoint: the frontier after " + frontier.queryIterations() + " unfoldings (" +
+      frontier.queryRules().size() + " rules) was saved to " + checkpoint);
+  }
+
+  private static void printDisagreements(DifferentialSemiUnifier semiUnifier) {
+    List<DifferentialSemiUnifier.Disagreement> disagreements = semiUnifier.queryDisagreements();
+    System.out.println("Semi-unifier disagreements: " + disagreements.size() + " out of " +
+      semiUnifier.queryQueryCount() + " queries (the graph semi-unifier gave up on " + semiUnifier.queryUnknownCount() +
+      ")");
+    for (DifferentialSemiUnifier.Disagreement d : disagreements) System.out.println("\t" + d);
+  }
+
   public static void main(String[] args) {
     try {
       if (args.length == 0) args = new String[] { "-i", "test.cora"};
@@ -127,11 +527,51 @@ public class Main {
         return;
       }
 
-      InterruptableAnalyzer analyzer = getAnalyzer(cliArgs);
-      var result = analyzer.analyze(cliArgs.timeout);
+      if (cliArgs.batch != null) {
+        ResultCache cache = openCache(cliArgs);
+        BatchAnalyser batch =
+          new BatchAnalyser(file -> getAnalyzer(cliArgs, readInput(file), cache), cliArgs.queryTimeoutMillis(), cliArgs.workers);
+        int errors = batch.run(BatchAnalyser.collectProblems(cliArgs.batch), System.out);
+        System.exit(errors == 0 ? 0 : 1);
+      }
+      if (cliArgs.serve != null) {
+        serve(args, cliArgs);
+        System.exit(0);
+      }
+      if (cliArgs.inputfilePath == null && cliArgs.program == null) {
+        System.out.println("No input file given.");
+        showHelp();
+        return;
+      }
+
+      if (cliArgs.evaluate != null) {
+        System.exit(evaluate(cliArgs) ? 0 : 1);
+      }
+
+      TRS trs = readInput(cliArgs);
+      InterruptableAnalyzer analyzer = getAnalyzer(cliArgs, trs, openCache(cliArgs));
+      if (cliArgs.checkpoint != null && cliArgs.search.equals("breadthFirst")) resumeFromCheckpoint(analyzer, trs, Paths.get(cliArgs.checkpoint));
+      var result = analyzer.analyzeMillis(cliArgs.queryTimeoutMillis());
       System.out.println("Result type: " + result.getResultType());
       System.out.println("Deduction:\n" + result.getDeduction());
       System.out.println("Time taken: " + result.getAnalyzerTime() + "ms");
+      if (result instanceof CachedResult) {
+        System.out.println("Result cache: hit (the original analysis took " +
+          ((CachedResult)result).queryOriginalTime() + "ms)");
+      }
+      if (analyzer instanceof CachingAnalyzer) analyzer = ((CachingAnalyzer)analyzer).queryWrapped();
+      if (cliArgs.checkpoint != null) saveCheckpoint(analyzer, trs, Paths.get(cliArgs.checkpoint));
+      if (analyzer instanceof UnfoldingAnalyser && !(result instanceof CachedResult)) {
+        UnfoldingAnalyser unfolder = (UnfoldingAnalyser)analyzer;
+        System.out.println("Pruned rules per iteration: " + unfolder.queryPrunedCounts());
+        SemiUnifier semiUnifier = unfolder.querySemiUnifier();
+        if (semiUnifier instanceof CachingSemiUnifier) {
+          CachingSemiUnifier cache = (CachingSemiUnifier)semiUnifier;
+          System.out.println("Semi-unification cache: " + cache.queryHits() + " hits, " + cache.queryMisses() + " misses");
+          semiUnifier = cache.queryWrapped();
+        }
+        if (semiUnifier instanceof DifferentialSemiUnifier) printDisagreements((DifferentialSemiUnifier)semiUnifier);
+      }
       System.exit(0);
     }
     catch (Exception e) {
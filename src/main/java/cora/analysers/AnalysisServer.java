@@ -0,0 +1,135 @@
+package cora.analysers;
+
+import cora.interfaces.analyzers.Result;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+
+/**
+ * The AnalysisServer keeps a single JVM running and analyses problems as they are requested, so that a request does
+ * not pay for starting the JVM, loading the parsers and warming up the JIT.  Requests are read one per line, either
+ * from an input stream (such as stdin) or from connections to a local socket:
+ *   id, argument, argument, ...
+ * separated by tabs, where the arguments are command-line arguments for this request (for instance -i, a file, -t
+ * and a technique), in which \n, \t and \\ are unescaped (so a whole program can be given inline).  Requests are
+ * analysed concurrently on a pool of worker threads, and as soon as a request is done a single line is written back
+ * in the format of the BatchAnalyser, with the id instead of the file name:
+ *   id, result type, time taken (ms), deduction
+ * A request that cannot be analysed gets the result type ERROR.  The line "quit" ends the input (or connection).
+ */
+public class AnalysisServer {
+  /** Analyses a single request, given by its command-line arguments. */
+  public interface RequestHandler {
+    Result handle(List<String> arguments) throws Exception;
+  }
+
+  private RequestHandler _handler;
+  private ExecutorService _workers;
+
+  /** Creates a server which analyses at most the given number of requests at the same time. */
+  public AnalysisServer(RequestHandler handler, int workers) {
+    _handler = handler;
+    _workers = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Reads requests from in until the end of the input (or a "quit" line), and writes their results to out as they
+   * complete; returns when all requests have been answered.
+   */
+  public void serve(BufferedReader in, PrintStream out) throws IOException {
+    Phaser pending = new Phaser(1);
+    for (String line = in.readLine(); line != null && !line.strip().equals("quit"); line = in.readLine()) {
+      if (line.isBlank()) continue;
+      String request = line;
+      pending.register();
+      _workers.submit(() -> {
+        try {
+          String response = answer(request);
+          synchronized (out) {
+            out.println(response);
+            out.flush();
+          }
+        } finally {
+          pending.arriveAndDeregister();
+        }
+      });
+    }
+    pending.arriveAndAwaitAdvance();
+  }
+
+  /**
+   * Accepts connections on the given port of the loopback address, and serves the requests of each connection (on
+   * its own thread) until the server socket is closed.
+   */
+  public void serve(int port) throws IOException {
+    try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+      while (true) {
+        Socket socket = server.accept();
+        Thread thread = new Thread(() -> serve(socket));
+        thread.setDaemon(true);
+        thread.start();
+      }
+    }
+  }
+
+  /** Serves the requests of a single connection, and closes it. */
+  private void serve(Socket socket) {
+    try (socket) {
+      BufferedReader in =
+        new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+      serve(in, out);
+    } catch (IOException ex) {
+      // the client went away; its remaining results are dropped
+    }
+  }
+
+  /** Analyses a single request line, and returns the response line. */
+  String answer(String request) {
+    String[] fields = request.split("\t");
+    String id = fields[0];
+    List<String> arguments = new ArrayList<>();
+    for (String field : Arrays.asList(fields).subList(1, fields.length)) arguments.add(unescape(field));
+    try {
+      Result result = _handler.handle(arguments);
+      return BatchAnalyser.formatLine(id, result.getResultType().toString(), result.getAnalyzerTime(),
+                                      result.getDeduction());
+    } catch (Exception | StackOverflowError | OutOfMemoryError ex) {
+      return BatchAnalyser.formatLine(id, "ERROR", 0, ex.getMessage() == null ? ex.toString() : ex.getMessage());
+    }
+  }
+
+  /** Replaces the escape sequences \n, \t and \\ in s by the characters they stand for. */
+  static String unescape(String s) {
+    StringBuilder result = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '\\' && i + 1 < s.length()) {
+        char next = s.charAt(++i);
+        if (next == 'n') result.append('\n');
+        else if (next == 't') result.append('\t');
+        else result.append(next);
+      }
+      else result.append(c);
+    }
+    return result.toString();
+  }
+
+  /** Stops the worker threads; requests that are still running are interrupted. */
+  public void shutdown() {
+    _workers.shutdownNow();
+  }
+}
@@ -0,0 +1,114 @@
+package cora.analysers;
+
+import cora.interfaces.analyzers.Result;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The BatchAnalyser analyses many problems in a single JVM, on a pool of worker threads.  Each problem is analysed by
+ * its own analyzer with the usual timeout, and as soon as a problem is done a single tab-separated line is printed:
+ *   file, result type, time taken (ms), deduction
+ * where the newlines and tabs in the deduction are escaped.  If a problem cannot be analysed (for instance because it
+ * cannot be parsed), its result type is ERROR and the deduction is the error message.
+ */
+public class BatchAnalyser {
+  /** The extensions of the files that are analysed when a directory is given. */
+  public static final List<String> EXTENSIONS = List.of("trs", "mstrs", "cora");
+
+  /** Creates the analyzer for the problem in the given file. */
+  public interface AnalyzerFactory {
+    InterruptableAnalyzer create(String file) throws Exception;
+  }
+
+  private AnalyzerFactory _factory;
+  private long _timeout;
+  private int _workers;
+
+  /**
+   * Creates a batch analyser which uses the given factory to analyse every problem, with the given timeout (in
+   * milliseconds) per problem and the given number of worker threads.
+   */
+  public BatchAnalyser(AnalyzerFactory factory, long timeout, int workers) {
+    _factory = factory;
+    _timeout = timeout;
+    _workers = Math.max(1, workers);
+  }
+
+  /**
+   * Returns the problems described by the given path: if it is a directory, all files in it (and its subdirectories)
+   * with one of the EXTENSIONS, in alphabetical order; otherwise the file is read as a list of problem files, one per
+   * line (empty lines and lines starting with # are skipped).
+   */
+  public static List<String> collectProblems(String path) throws IOException {
+    Path p = Paths.get(path);
+    if (Files.isDirectory(p)) {
+      try (Stream<Path> files = Files.walk(p)) {
+        return files.filter(Files::isRegularFile)
+                    .map(Path::toString)
+                    .filter(f -> EXTENSIONS.contains(f.substring(f.lastIndexOf('.') + 1)))
+                    .sorted()
+                    .collect(Collectors.toList());
+      }
+    }
+    return Files.readAllLines(p).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .collect(Collectors.toList());
+  }
+
+  /**
+   * Analyses all the given problems, and prints a line to out for each problem as soon as it is done (so the lines
+   * are not necessarily in the order of the problems).
+   * @return the number of problems that could not be analysed
+   */
+  public int run(List<String> problems, PrintStream out) throws InterruptedException {
+    ExecutorService pool = Executors.newFixedThreadPool(_workers);
+    CompletionService<String> completed = new ExecutorCompletionService<>(pool);
+    Map<Future<String>, String> problemOf = new HashMap<>();
+    for (String problem : problems) problemOf.put(completed.submit(() -> analyse(problem)), problem);
+
+    int errors = 0;
+    try {
+      for (int i = 0; i < problems.size(); i++) {
+        Future<String> future = completed.take();
+        String line;
+        try {
+          line = future.get();
+        } catch (ExecutionException ex) {
+          line = formatLine(problemOf.get(future), "ERROR", 0, String.valueOf(ex.getCause()));
+        }
+        if (line.split("\t")[1].equals("ERROR")) errors++;
+        out.println(line);
+        out.flush();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return errors;
+  }
+
+  /** Analyses a single problem, and returns its result line. */
+  private String analyse(String problem) {
+    Result result;
+    try {
+      result = _factory.create(problem).analyzeMillis(_timeout);
+    } catch (Exception ex) {
+      return formatLine(problem, "ERROR", 0, ex.getMessage() == null ? ex.toString() : ex.getMessage());
+    }
+    return formatLine(problem, result.getResultType().toString(), result.getAnalyzerTime(), result.getDeduction());
+  }
+
+  /** Returns the tab-separated result line for a problem. */
+  static String formatLine(String problem, String type, long time, String deduction) {
+    String escaped = deduction.strip().replace("\\", "\\\\").replace("\n", "\\n").replace("\t", "\\t");
+    return problem.replace('\t', ' ') + "\t" + type + "\t" + time + "\t" + escaped;
+  }
+}
@@ -0,0 +1,55 @@
+package cora.analysers;
+
+import cora.exceptions.AnalysisCancelledError;
+import cora.exceptions.AnalyzerInterruptedException;
+import cora.interfaces.analyzers.Result;
+
+import java.io.IOException;
+
+/**
+ * A CachingAnalyzer wraps another analyzer, and first looks up the problem in a ResultCache; only if the cache has
+ * no result for it, the wrapped analyzer is run (until the timeout of this analyzer interrupts it), and its result is
+ * stored.
+ */
+public class CachingAnalyzer extends InterruptableAnalyzer {
+  private InterruptableAnalyzer _analyzer;
+  private ResultCache _cache;
+  private String _key;
+  private boolean _hit;
+
+  /** Creates an analyzer for the problem with the given key, which runs the given analyzer on a cache miss. */
+  public CachingAnalyzer(InterruptableAnalyzer analyzer, ResultCache cache, String key) {
+    _analyzer = analyzer;
+    _cache = cache;
+    _key = key;
+  }
+
+  @Override
+  protected Result analyze() {
+    Result result = _cache.lookup(_key);
+    _hit = result != null;
+    if (_hit) return result;
+    try {
+      // the timeout of this analyzer interrupts the wrapped analysis
+      result = _analyzer.analyzeMillis(Long.MAX_VALUE);
+    } catch (AnalyzerInterruptedException ex) {
+      throw new AnalysisCancelledError(ex.getMessage());
+    }
+    try {
+      _cache.store(_key, result);
+    } catch (IOException ex) {
+      // the result is still valid if it cannot be stored
+    }
+    return result;
+  }
+
+  /** Returns whether the last analysis was answered from the cache. */
+  public boolean queryHit() {
+    return _hit;
+  }
+
+  /** Returns the wrapped analyzer. */
+  public InterruptableAnalyzer queryWrapped() {
+    return _analyzer;
+  }
+}
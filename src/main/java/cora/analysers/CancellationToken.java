@@ -0,0 +1,103 @@
+package cora.analysers;
+
+import cora.exceptions.AnalysisCancelledError;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A CancellationToken is shared between an InterruptableAnalyzer and the code doing its analysis.  The analysis calls
+ * check() in its inner loops, which throws an AnalysisCancelledError as soon as the token has been cancelled (for
+ * instance because the analysis timed out) or the current thread was interrupted.
+ *
+ * The token also enforces the optional resource limits of the analysis: a maximum number of generated rules (which
+ * the analysis reports through countRules) and a maximum amount of heap memory in use.  When a limit is reached the
+ * token cancels itself, so that the analysis stops cleanly instead of running out of memory.
+ */
+public class CancellationToken {
+  private static final int MEMORY_CHECK_INTERVAL = 1024;
+
+  private volatile String _reason;       // null as long as the token is not cancelled
+  private volatile boolean _limitReached;
+  private long _ruleLimit;
+  private long _memoryLimit;
+  private AtomicLong _rules;
+  private int _checks;                   // only used to space out the memory checks, so races do not matter
+
+  /** Creates a token which is not cancelled, and has no limits. */
+  public CancellationToken() {
+    _ruleLimit = -1;
+    _memoryLimit = -1;
+    _rules = new AtomicLong(0);
+    reset();
+  }
+
+  /** Sets the maximum number of rules the analysis may generate; -1 means no limit. */
+  public void setRuleLimit(long limit) {
+    _ruleLimit = limit;
+  }
+
+  /** Sets the maximum number of bytes of heap memory that may be in use during the analysis; -1 means no limit. */
+  public void setMemoryLimit(long bytes) {
+    _memoryLimit = bytes;
+  }
+
+  /** Makes the token uncancelled again, and resets the rule count, for a new analysis. */
+  public void reset() {
+    _reason = null;
+    _limitReached = false;
+    _rules.set(0);
+  }
+
+  /** Cancels the token for the given reason (unless it was already cancelled). */
+  public synchronized void cancel(String reason) {
+    if (_reason == null) _reason = reason;
+  }
+
+  /** Returns whether the token has been cancelled. */
+  public boolean isCancelled() {
+    return _reason != null;
+  }
+
+  /** Returns the reason the token was cancelled for, or null if it was not cancelled. */
+  public String queryReason() {
+    return _reason;
+  }
+
+  /** Returns whether the token was cancelled because one of the resource limits was reached. */
+  public boolean isLimitReached() {
+    return _limitReached;
+  }
+
+  /** Returns the number of rules generated so far, as reported through countRules. */
+  public long queryRuleCount() {
+    return _rules.get();
+  }
+
+  /**
+   * Throws an AnalysisCancelledError if the token has been cancelled, if the current thread was interrupted, or if
+   * more memory is in use than allowed.
+   */
+  public void check() {
+    if (_reason == null && _memoryLimit >= 0 && ++_checks % MEMORY_CHECK_INTERVAL == 0) {
+      Runtime runtime = Runtime.getRuntime();
+      long used = runtime.totalMemory() - runtime.freeMemory();
+      if (used > _memoryLimit) reachLimit("the memory limit of " + _memoryLimit / (1024 * 1024) + "MB was reached");
+    }
+    if (_reason != null) throw new AnalysisCancelledError(_reason);
+    if (Thread.currentThread().isInterrupted()) throw new AnalysisCancelledError("the analysis was interrupted");
+  }
+
+  /** Records that the analysis generated the given number of rules, and then does check(). */
+  public void countRules(long count) {
+    long total = _rules.addAndGet(count);
+    if (_ruleLimit >= 0 && total > _ruleLimit) reachLimit("the limit of " + _ruleLimit + " generated rules was reached");
+    check();
+  }
+
+  /** Cancels the token because of a resource limit. */
+  private synchronized void reachLimit(String reason) {
+    if (_reason != null) return;
+    _limitReached = true;
+    _reason = reason;
+  }
+}
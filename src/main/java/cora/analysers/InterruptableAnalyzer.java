@@ -1,6 +1,8 @@
 package cora.analysers;
 
+import cora.analysers.results.LimitResult;
 import cora.analysers.results.TimeoutResult;
+import cora.exceptions.AnalysisCancelledError;
 import cora.exceptions.AnalyzerInterruptedException;
 import cora.interfaces.analyzers.Result;
 import cora.interfaces.analyzers.Analyzer;
@@ -12,33 +14,80 @@ import java.util.concurrent.*;
  * timeframe.
  */
 public abstract class InterruptableAnalyzer implements Analyzer {
+  private final CancellationToken _cancellation = new CancellationToken();
+
   /**
    * The function to implement the actual analysis on.
+   * Long-running analyses should regularly call checkCancelled(), so they stop when the analysis times out.
    * @return an implementation of the Result interface.
    */
   protected abstract Result analyze();
 
+  /**
+   * Returns the token that is cancelled when the current analysis has to stop; it can be passed on to helper
+   * objects that do part of the analysis.
+   */
+  public CancellationToken queryCancellationToken() {
+    return _cancellation;
+  }
+
+  /** Throws an AnalysisCancelledError if the current analysis has to stop. */
+  protected void checkCancelled() {
+    _cancellation.check();
+  }
+
+  /** Sets the maximum number of rules the analysis may generate before it stops with a LimitResult; -1 means none. */
+  public void setRuleLimit(long limit) {
+    _cancellation.setRuleLimit(limit);
+  }
+
+  /** Sets the maximum heap memory (in bytes) the analysis may use before it stops with a LimitResult; -1 means none. */
+  public void setMemoryLimit(long bytes) {
+    _cancellation.setMemoryLimit(bytes);
+  }
+
   /**
    * Implements the analyze(int timeout) function from the Analyzer interface.
-   * Uses an executorservice to ensure the given timeframe. If the given time was not enough, a TimeoutResult will
-   * be returned.
    * @param timeout the timeout (in seconds) for how long the analysis method may run
    * @return an implementation of the Result interface.
    * @throws AnalyzerInterruptedException if the analyzer was interrupted.
    */
   public final Result analyze(int timeout) throws AnalyzerInterruptedException {
+    return analyzeMillis(timeout * 1000L);
+  }
+
+  /**
+   * Runs the analysis with a timeout in milliseconds.
+   * Uses an executorservice to ensure the given timeframe. If the given time was not enough, the analysis is cancelled
+   * and a TimeoutResult is returned.  If the analysis reached one of its resource limits, a LimitResult is returned.
+   * @param timeout the timeout (in milliseconds) for how long the analysis method may run
+   * @return an implementation of the Result interface.
+   * @throws AnalyzerInterruptedException if the analyzer was interrupted.
+   */
+  public final Result analyzeMillis(long timeout) throws AnalyzerInterruptedException {
+    _cancellation.reset();
     ExecutorService exec = Executors.newSingleThreadExecutor();
     Future<Result> future = exec.submit((Callable<Result>)this::analyze);
 
+    long startTime = System.currentTimeMillis();
     try {
-      long startTime = System.currentTimeMillis();
-      Result res = future.get(timeout, TimeUnit.SECONDS);
+      Result res = future.get(timeout, TimeUnit.MILLISECONDS);
       res.setAnalyzerTime(System.currentTimeMillis() - startTime);
       return res;
     } catch (TimeoutException ex) {
+      _cancellation.cancel("the analysis timed out");
       future.cancel(true);
-      return new TimeoutResult(timeout);
-    } catch (InterruptedException | ExecutionException ex) {
+      return TimeoutResult.fromMillis(timeout);
+    } catch (InterruptedException ex) {
+      _cancellation.cancel("the analysis was interrupted");
+      future.cancel(true);
+      throw new AnalyzerInterruptedException(ex.getMessage());
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof AnalysisCancelledError && _cancellation.isLimitReached()) {
+        Result res = new LimitResult(_cancellation.queryReason(), _cancellation.queryRuleCount());
+        res.setAnalyzerTime(System.currentTimeMillis() - startTime);
+        return res;
+      }
       throw new AnalyzerInterruptedException(ex.getMessage());
     } finally {
       exec.shutdown();
@@ -0,0 +1,119 @@
+package cora.analysers;
+
+import cora.analysers.results.MaybeResult;
+import cora.analysers.results.PortfolioResult;
+import cora.exceptions.AnalysisCancelledError;
+import cora.interfaces.analyzers.Result;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * A PortfolioAnalyser runs a number of strategies (other analysers) on the same problem at the same time, each on its
+ * own thread.  As soon as one of them proves non-termination, the others are cancelled and its result is returned;
+ * if none of them does, the result is MAYBE.  In either case the result reports the time each strategy took.
+ */
+public class PortfolioAnalyser extends InterruptableAnalyzer {
+  private List<String> _names;
+  private List<InterruptableAnalyzer> _strategies;
+
+  /** Creates a portfolio without any strategies; they are added with addStrategy. */
+  public PortfolioAnalyser() {
+    _names = new ArrayList<>();
+    _strategies = new ArrayList<>();
+  }
+
+  /** Adds a strategy to the portfolio, which is reported under the given name. */
+  public void addStrategy(String name, InterruptableAnalyzer strategy) {
+    _names.add(name);
+    _strategies.add(strategy);
+  }
+
+  /** Sets the rule limit of every strategy (each strategy counts its own rules). */
+  @Override
+  public void setRuleLimit(long limit) {
+    super.setRuleLimit(limit);
+    for (InterruptableAnalyzer strategy : _strategies) strategy.setRuleLimit(limit);
+  }
+
+  /** Sets the memory limit of every strategy. */
+  @Override
+  public void setMemoryLimit(long bytes) {
+    super.setMemoryLimit(bytes);
+    for (InterruptableAnalyzer strategy : _strategies) strategy.setMemoryLimit(bytes);
+  }
+
+  /** Returns the names of the strategies in the portfolio. */
+  public List<String> queryStrategies() {
+    return new ArrayList<>(_names);
+  }
+
+  /**
+   * Runs all strategies in parallel, and returns the first NONTERMINATES result (or MAYBE if there is none) with the
+   * outcome of every strategy.  If the portfolio itself is interrupted, all strategies are cancelled.
+   */
+  @Override
+  protected Result analyze() {
+    int n = _strategies.size();
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, n), runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setDaemon(true); // a cancelled strategy which ignores the interrupt should not keep the JVM alive
+      return thread;
+    });
+    CompletionService<Integer> completed = new ExecutorCompletionService<>(pool);
+    Result[] results = new Result[n];
+    long[] times = new long[n];
+    String[] outcomes = new String[n];
+    Map<Future<Integer>, Integer> indexOf = new HashMap<>();
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < n; i++) {
+      int index = i;
+      _strategies.get(i).queryCancellationToken().reset();
+      indexOf.put(completed.submit(() -> {
+        results[index] = _strategies.get(index).analyze();
+        times[index] = System.currentTimeMillis() - start;
+        return index;
+      }), i);
+    }
+
+    int winner = -1;
+    try {
+      for (int i = 0; i < n && winner < 0; i++) {
+        Future<Integer> future = completed.take();
+        int index = indexOf.get(future);
+        try {
+          future.get();
+          outcomes[index] = results[index].getResultType().toString();
+          if (results[index].getResultType() == Result.ResultType.NONTERMINATES) winner = index;
+        } catch (ExecutionException ex) {
+          times[index] = System.currentTimeMillis() - start;
+          CancellationToken token = _strategies.get(index).queryCancellationToken();
+          if (ex.getCause() instanceof AnalysisCancelledError && token.isLimitReached()) {
+            outcomes[index] = "LIMIT (" + token.queryReason() + ")";
+          }
+          else outcomes[index] = "ERROR (" + ex.getCause() + ")";
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } finally {
+      for (InterruptableAnalyzer strategy : _strategies) {
+        strategy.queryCancellationToken().cancel("another strategy finished first");
+      }
+      pool.shutdownNow();
+    }
+
+    long end = System.currentTimeMillis() - start;
+    for (int i = 0; i < n; i++) {
+      if (outcomes[i] == null) {
+        outcomes[i] = "cancelled";
+        times[i] = end;
+      }
+    }
+    Result result = winner < 0 ? new MaybeResult() : results[winner];
+    return new PortfolioResult(result, winner < 0 ? null : _names.get(winner), _names, List.of(outcomes), times);
+  }
+}
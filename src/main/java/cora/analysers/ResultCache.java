@@ -0,0 +1,171 @@
+package cora.analysers;
+
+import cora.analysers.results.CachedResult;
+import cora.interfaces.analyzers.Result;
+import cora.interfaces.rewriting.Rule;
+import cora.interfaces.rewriting.TRS;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A ResultCache stores the results of analyses in a directory, one file per problem, so that an analysis of a problem
+ * that was analysed before (possibly by another process) is answered without running it again.
+ *
+ * Problems are identified by a key: a SHA-256 hash of the rules of the TRS, written with their variables renamed in
+ * the order in which they occur and sorted (so the key does not depend on variable names, rule order or layout of the
+ * input file), together with a description of the settings of the analysis.  Only MAYBE and NONTERMINATES results are
+ * stored, since timeouts and resource limits depend on the machine rather than on the problem.
+ *
+ * The cache holds at most a given number of results; when it is full, the least recently used results are deleted.
+ * The number of results is counted as they are stored, so the directory is only listed when the cache overflows; it
+ * is recounted then, so results that other processes stored are taken into account.
+ * It may be used by several threads at the same time.
+ */
+public class ResultCache {
+  private static final String EXTENSION = ".result";
+
+  private Path _directory;
+  private int _capacity;
+  private AtomicLong _hits;
+  private AtomicLong _misses;
+  private int _count; // an estimate of the number of stored results, exact after every eviction
+
+  /** Creates a cache in the given directory (which is created if necessary) that holds at most capacity results. */
+  public ResultCache(Path directory, int capacity) throws IOException {
+    _directory = Files.createDirectories(directory);
+    _capacity = capacity;
+    _hits = new AtomicLong(0);
+    _misses = new AtomicLong(0);
+    _count = querySize();
+  }
+
+  /** Returns the key of the given TRS, analysed with the given settings. */
+  public static String computeKey(TRS trs, String settings) {
+    List<String> rules = new ArrayList<>();
+    for (int i = 0; i < trs.queryRuleCount(); i++) {
+      Rule rule = trs.queryRule(i);
+      StringBuilder builder = new StringBuilder();
+      Map<Variable, Integer> variables = new HashMap<>();
+      writeCanonical(rule.queryLeftSide(), variables, builder);
+      builder.append(" -> ");
+      writeCanonical(rule.queryRightSide(), variables, builder);
+      rules.add(builder.toString());
+    }
+    Collections.sort(rules);
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(settings.getBytes(StandardCharsets.UTF_8));
+      for (String rule : rules) digest.update(("\n" + rule).getBytes(StandardCharsets.UTF_8));
+      StringBuilder key = new StringBuilder();
+      for (byte b : digest.digest()) key.append(String.format("%02x", b));
+      return key.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /** Writes t to builder with its variables numbered in the order of their first occurrence, and all types given. */
+  private static void writeCanonical(Term t, Map<Variable, Integer> variables, StringBuilder builder) {
+    if (t.queryTermKind() == Term.TermKind.VARTERM) {
+      Integer index = variables.computeIfAbsent(t.queryVariable(), x -> variables.size());
+      builder.append('#').append(index).append(':').append(t.queryType());
+      return;
+    }
+    builder.append(t.queryRoot().queryName()).append(':').append(t.queryRoot().queryType());
+    if (t.numberImmediateSubterms() == 0) return;
+    builder.append('(');
+    for (int i = 1; i <= t.numberImmediateSubterms(); i++) {
+      if (i > 1) builder.append(',');
+      writeCanonical(t.queryImmediateSubterm(i), variables, builder);
+    }
+    builder.append(')');
+  }
+
+  /** Returns the result stored for the given key, or null if there is none. */
+  public Result lookup(String key) {
+    Path file = _directory.resolve(key + EXTENSION);
+    try {
+      String[] parts = Files.readString(file, StandardCharsets.UTF_8).split("\n", 3);
+      Result result = new CachedResult(Result.ResultType.valueOf(parts[0]), parts[2], Long.parseLong(parts[1]));
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      _hits.incrementAndGet();
+      return result;
+    } catch (IOException | RuntimeException ex) {
+      // a missing, unreadable or concurrently evicted entry is simply a miss
+      _misses.incrementAndGet();
+      return null;
+    }
+  }
+
+  /** Stores the given result for the given key, if it does not depend on time or resource limits. */
+  public void store(String key, Result result) throws IOException {
+    if (!isCacheable(result) || _capacity <= 0) return;
+    String content = result.getResultType() + "\n" + result.getAnalyzerTime() + "\n" + result.getDeduction();
+    Path file = _directory.resolve(key + EXTENSION);
+    boolean replaces = Files.exists(file);
+    Path temporary = Files.createTempFile(_directory, key, ".tmp");
+    Files.writeString(temporary, content, StandardCharsets.UTF_8);
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    if (!replaces) added();
+  }
+
+  /** Counts a newly stored result, and evicts results if that makes the cache overflow. */
+  private synchronized void added() throws IOException {
+    _count++;
+    if (_count > _capacity) evict();
+  }
+
+  /** Returns whether results of the given kind are stored. */
+  public static boolean isCacheable(Result result) {
+    return result.getResultType() == Result.ResultType.MAYBE ||
+           result.getResultType() == Result.ResultType.NONTERMINATES;
+  }
+
+  /** Deletes the least recently used results until at most capacity remain. */
+  private synchronized void evict() throws IOException {
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(_directory)) {
+      files = stream.filter(p -> p.getFileName().toString().endsWith(EXTENSION)).collect(Collectors.toList());
+    }
+    _count = Math.min(files.size(), _capacity);
+    if (files.size() <= _capacity) return;
+    Map<Path, Long> used = new HashMap<>();
+    for (Path file : files) {
+      try {
+        used.put(file, Files.getLastModifiedTime(file).toMillis());
+      } catch (IOException ex) {
+        used.put(file, Long.MIN_VALUE);
+      }
+    }
+    files.sort(Comparator.comparing(used::get));
+    for (Path file : files.subList(0, files.size() - _capacity)) Files.deleteIfExists(file);
+  }
+
+  /** Returns the number of lookups that found a result. */
+  public long queryHits() {
+    return _hits.get();
+  }
+
+  /** Returns the number of lookups that found no result. */
+  public long queryMisses() {
+    return _misses.get();
+  }
+
+  /** Returns the number of results currently stored. */
+  public int querySize() throws IOException {
+    try (Stream<Path> stream = Files.list(_directory)) {
+      return (int)stream.filter(p -> p.getFileName().toString().endsWith(EXTENSION)).count();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package cora.analysers.general.semiunification;
+
+import cora.analysers.CancellationToken;
+import cora.interfaces.analyzers.SemiUnifier;
+import cora.interfaces.terms.*;
+import cora.interfaces.types.Type;
+import cora.terms.Subst;
+import cora.terms.VarSupply;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A CachingSemiUnifier wraps another semi-unifier, and remembers the results of the most recent queries.  Queries are
+ * identified modulo renaming of variables: before a pair (s, t) is looked up, its variables are renamed to canonical
+ * variables in the order in which they occur, so a renamed variant of an earlier pair is answered from the cache.
+ * The substitutions in a cached result are then renamed back to the variables of the query.
+ *
+ * The cache holds at most a given number of results; when it is full, the least recently used result is evicted.
+ * It may be used by several threads at the same time.
+ */
+public class CachingSemiUnifier implements SemiUnifier {
+  private static final SemiUnificationResult FAILURE = new SemiUnificationResult();
+
+  private SemiUnifier _semiUnifier;
+  private int _capacity;
+  private LinkedHashMap<List<Term>, SemiUnificationResult> _cache;
+  private Map<Type, List<Variable>> _canonicalVariables;
+  private FreshVariableSupply _freshVariables;
+  private AtomicLong _hits;
+  private AtomicLong _misses;
+
+  /** Creates a cache holding at most capacity results of the given semi-unifier. */
+  public CachingSemiUnifier(SemiUnifier semiUnifier, int capacity) {
+    _semiUnifier = semiUnifier;
+    _capacity = capacity;
+    _cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<List<Term>, SemiUnificationResult> eldest) {
+        return size() > _capacity;
+      }
+    };
+    _canonicalVariables = new HashMap<>();
+    _freshVariables = new VarSupply();
+    _hits = new AtomicLong(0);
+    _misses = new AtomicLong(0);
+  }
+
+  /**
+   * Returns the result of the wrapped semi-unifier on s and t, taking it from the cache if a variant of (s, t) was
+   * queried recently.
+   */
+  @Override
+  public SemiUnificationResult semiUnify(Term s, Term t) {
+    return semiUnify(s, t, new CancellationToken());
+  }
+
+  /** As semiUnify(s, t), but passes the token on to the wrapped semi-unifier when the cache has no answer. */
+  @Override
+  public SemiUnificationResult semiUnify(Term s, Term t, CancellationToken token) {
+    LinkedHashSet<Variable> vars = new LinkedHashSet<>();
+    collectVariables(s, vars);
+    collectVariables(t, vars);
+    Subst toCanonical = new Subst();
+    Subst fromCanonical = new Subst();
+    Map<Type, Integer> used = new HashMap<>();
+    for (Variable x : vars) {
+      int index = used.merge(x.queryType(), 1, Integer::sum) - 1;
+      Variable canonical = canonicalVariable(x.queryType(), index);
+      toCanonical.extend(x, canonical);
+      fromCanonical.extend(canonical, x);
+    }
+    List<Term> key = List.of(s.substitute(toCanonical), t.substitute(toCanonical));
+
+    SemiUnificationResult result;
+    synchronized (_cache) {
+      result = _cache.get(key);
+    }
+    if (result != null) _hits.incrementAndGet();
+    else {
+      _misses.incrementAndGet();
+      result = _semiUnifier.semiUnify(key.get(0), key.get(1), token);
+      if (result.isUnknown()) return result; // a later query may have more resources to decide it
+      if (!result.isSuccess()) result = FAILURE;
+      synchronized (_cache) {
+        _cache.put(key, result);
+      }
+    }
+    if (!result.isSuccess()) return result;
+    return new SemiUnificationResult(rename(result.getRho(), fromCanonical), rename(result.getSigma(), fromCanonical));
+  }
+
+  /** Returns the number of queries that were answered from the cache. */
+  public long queryHits() {
+    return _hits.get();
+  }
+
+  /** Returns the number of queries that were passed on to the wrapped semi-unifier. */
+  public long queryMisses() {
+    return _misses.get();
+  }
+
+  /** Returns the number of results currently in the cache. */
+  public int querySize() {
+    synchronized (_cache) {
+      return _cache.size();
+    }
+  }
+
+  /** Returns the wrapped semi-unifier. */
+  public SemiUnifier queryWrapped() {
+    return _semiUnifier;
+  }
+
+  /** Adds the variables of t to the given set in the order in which they occur (left to right). */
+  private void collectVariables(Term t, LinkedHashSet<Variable> vars) {
+    if (t.queryTermKind() == Term.TermKind.VARTERM) vars.add(t.queryVariable());
+    else {
+      for (int i = 1; i <= t.numberImmediateSubterms(); i++) collectVariables(t.queryImmediateSubterm(i), vars);
+    }
+  }
+
+  /** Returns the canonical variable with the given type and number, creating it if it does not exist yet. */
+  private Variable canonicalVariable(Type type, int index) {
+    synchronized (_canonicalVariables) {
+      List<Variable> vars = _canonicalVariables.computeIfAbsent(type, k -> new ArrayList<>());
+      while (vars.size() <= index) vars.add(_freshVariables.createVariable("c" + vars.size(), type));
+      return vars.get(index);
+    }
+  }
+
+  /**
+   * Applies the given renaming to both the domain and the range of gamma.  Variables that are not renamed (those the
+   * wrapped semi-unifier introduced itself) are kept.
+   */
+  private Substitution rename(Substitution gamma, Substitution renaming) {
+    Subst result = new Subst();
+    for (Variable x : gamma.domain()) {
+      result.extend(renaming.getReplacement(x).queryVariable(), gamma.get(x).substitute(renaming));
+    }
+    return result;
+  }
+}
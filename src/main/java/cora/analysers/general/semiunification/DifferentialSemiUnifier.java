@@ -0,0 +1,95 @@
+package cora.analysers.general.semiunification;
+
+import cora.analysers.CancellationToken;
+import cora.interfaces.analyzers.SemiUnifier;
+import cora.interfaces.terms.Term;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A DifferentialSemiUnifier runs two semi-unifiers on every query, and records the queries on which their verdicts
+ * differ.  The result of the reference semi-unifier is returned, so an analysis behaves exactly as it would with the
+ * reference alone.  This is used to compare new semi-unification backends with the existing SemiUnification.
+ * Queries on which the candidate gives up (an unknown result) are counted separately, not as disagreements.
+ */
+public class DifferentialSemiUnifier implements SemiUnifier {
+  /** A query on which the two semi-unifiers gave a different verdict. */
+  public static class Disagreement {
+    private Term _s;
+    private Term _t;
+    private boolean _referenceSuccess;
+
+    Disagreement(Term s, Term t, boolean referenceSuccess) {
+      _s = s;
+      _t = t;
+      _referenceSuccess = referenceSuccess;
+    }
+
+    public Term queryLeft() { return _s; }
+
+    public Term queryRight() { return _t; }
+
+    /** Returns whether the reference semi-unifier found a solution (so the candidate did not). */
+    public boolean queryReferenceSuccess() { return _referenceSuccess; }
+
+    @Override
+    public String toString() {
+      return _s + " and " + _t + ": " + (_referenceSuccess ? "only the reference" : "only the candidate") +
+        " semi-unifies them";
+    }
+  }
+
+  private SemiUnifier _reference;
+  private SemiUnifier _candidate;
+  private AtomicInteger _queries;
+  private AtomicInteger _unknown;
+  private List<Disagreement> _disagreements;
+
+  public DifferentialSemiUnifier(SemiUnifier reference, SemiUnifier candidate) {
+    _reference = reference;
+    _candidate = candidate;
+    _queries = new AtomicInteger(0);
+    _unknown = new AtomicInteger(0);
+    _disagreements = new ArrayList<>();
+  }
+
+  /** Runs both semi-unifiers, and returns the result of the reference. */
+  @Override
+  public SemiUnificationResult semiUnify(Term s, Term t) {
+    return semiUnify(s, t, new CancellationToken());
+  }
+
+  /** Runs both semi-unifiers with the given token, and returns the result of the reference. */
+  @Override
+  public SemiUnificationResult semiUnify(Term s, Term t, CancellationToken token) {
+    SemiUnificationResult result = _reference.semiUnify(s, t, token);
+    SemiUnificationResult candidate = _candidate.semiUnify(s, t, token);
+    _queries.incrementAndGet();
+    if (candidate.isUnknown()) _unknown.incrementAndGet();
+    else if (result.isSuccess() != candidate.isSuccess()) {
+      synchronized (_disagreements) {
+        _disagreements.add(new Disagreement(s, t, result.isSuccess()));
+      }
+    }
+    return result;
+  }
+
+  /** Returns the number of queries so far. */
+  public int queryQueryCount() {
+    return _queries.get();
+  }
+
+  /** Returns the number of queries so far on which the candidate gave up. */
+  public int queryUnknownCount() {
+    return _unknown.get();
+  }
+
+  /** Returns the queries so far on which the two semi-unifiers disagreed. */
+  public List<Disagreement> queryDisagreements() {
+    synchronized (_disagreements) {
+      return new ArrayList<>(_disagreements);
+    }
+  }
+}
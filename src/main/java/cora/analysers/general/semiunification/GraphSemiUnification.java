@@ -0,0 +1,393 @@
+package cora.analysers.general.semiunification;
+
+import cora.analysers.CancellationToken;
+import cora.interfaces.analyzers.SemiUnifier;
+import cora.interfaces.terms.*;
+import cora.interfaces.types.Type;
+import cora.terms.FunctionalTerm;
+import cora.terms.Subst;
+import cora.terms.VarSupply;
+
+import java.util.*;
+
+/**
+ * A semi-unification algorithm for a single inequation, based on the graph formulation of Kapur, Musser, Narendran
+ * and Stillman: we look for substitutions rho and sigma with rho(sigma(s)) = sigma(t).
+ *
+ * The subterms of s and t become nodes of a graph, where equal subterms share a node.  Nodes are grouped into
+ * equivalence classes (nodes which sigma must map to the same term) using union-find, and every class may have a
+ * successor class (the class of its image under rho).  Starting with s having successor t, the following rules are
+ * applied until nothing changes:
+ *  - if a class gets two successors, they are merged (rho is a function);
+ *  - if two classes with a function symbol are merged, the symbols must be equal and the arguments are merged;
+ *  - if a class f(a1,...,an) has successor B, then B must be of the form f(b1,...,bn) with each bi the successor of
+ *    ai (rho distributes over function symbols); if B does not have a function symbol yet, it is expanded with fresh
+ *    argument nodes.
+ * The problem has no solution if two function symbols clash, or if the heights of the classes are inconsistent: an
+ * argument is strictly lower than its parent, while the successor of a class is at least as high as the class.  The
+ * latter also catches the occurs check.  If the rules reach a fixpoint, rho and sigma are read off the graph.
+ *
+ * As a safeguard against the expansion running away, the number of nodes is bounded (quadratically in the size of the
+ * input).  If the bound is exceeded, the algorithm has not decided the problem, so it is passed on to a fallback
+ * semi-unifier (by default SemiUnification); without a fallback, an unknown result is returned.  Every solution is
+ * checked before it is returned, and a solution that fails the check is treated the same way.
+ */
+public class GraphSemiUnification implements SemiUnifier {
+  /**
+   * A node of the graph: a function symbol applied to argument nodes, or a variable.  Variable nodes which are created
+   * during the expansion have no variable yet; one is created if it is needed for the solution.
+   * The fields after _rank are only meaningful for the representative of a class.
+   */
+  private static class Node {
+    private FunctionSymbol _symbol;
+    private List<Node> _children;
+    private Term _term;
+    private Type _type;
+    private Node _parent;
+    private int _rank;
+    private Node _schema;
+    private Node _successor;
+    private List<Node> _predecessors;
+    private Variable _variable;
+    private int _index;
+    private int _lowlink;
+    private boolean _onStack;
+    private Term _value;
+
+    Node(Term term, FunctionSymbol symbol, Variable variable, Type type) {
+      _term = term;
+      _symbol = symbol;
+      _variable = variable;
+      _type = type;
+      _children = new ArrayList<>();
+      _parent = this;
+      _rank = 0;
+      _schema = symbol == null ? null : this;
+      _successor = null;
+      _predecessors = new ArrayList<>();
+      _index = -1;
+    }
+  }
+
+  private FreshVariableSupply _freshVariables;
+  private SemiUnifier _fallback;
+
+  /** Creates a semi-unifier with its own supply of fresh variables, which falls back to SemiUnification. */
+  public GraphSemiUnification() {
+    this(new VarSupply());
+  }
+
+  /**
+   * Creates a semi-unifier which takes the variables it introduces from the given supply, and falls back to
+   * SemiUnification.
+   */
+  public GraphSemiUnification(FreshVariableSupply freshVariables) {
+    this(freshVariables, new SemiUnification(freshVariables));
+  }
+
+  /**
+   * Creates a semi-unifier which takes the variables it introduces from the given supply, and passes the problems it
+   * cannot decide to fallback; if fallback is null, it returns an unknown result for them instead.
+   */
+  public GraphSemiUnification(FreshVariableSupply freshVariables, SemiUnifier fallback) {
+    _freshVariables = freshVariables;
+    _fallback = fallback;
+  }
+
+  /**
+   * Checks if s and t semi-unify, that is, if there are rho and sigma with rho(sigma(s)) = sigma(t).
+   */
+  @Override
+  public SemiUnificationResult semiUnify(Term s, Term t) {
+    return semiUnify(s, t, new CancellationToken());
+  }
+
+  /** As semiUnify(s, t), but passes the token on to the fallback for the problems the graph does not decide. */
+  @Override
+  public SemiUnificationResult semiUnify(Term s, Term t, CancellationToken token) {
+    token.check();
+    Graph graph = new Graph(_freshVariables);
+    Node sNode = graph.createNode(s);
+    Node tNode = graph.createNode(t);
+    int size = graph._allNodes.size();
+    graph._nodeLimit = size * size + 64;
+    if (!graph.solve(sNode, tNode)) return graph._gaveUp ? undecided(s, t, token) : new SemiUnificationResult();
+
+    Substitution sigma = graph.sigma();
+    Substitution rho = graph.rho();
+    if (!s.substitute(sigma).substitute(rho).equals(t.substitute(sigma))) return undecided(s, t, token);
+    return new SemiUnificationResult(rho, sigma);
+  }
+
+  /** Returns the result for a problem the graph algorithm did not decide. */
+  private SemiUnificationResult undecided(Term s, Term t, CancellationToken token) {
+    if (_fallback == null) return SemiUnificationResult.unknown();
+    return _fallback.semiUnify(s, t, token);
+  }
+
+  /** The graph for a single semi-unification problem. */
+  private static class Graph {
+    private FreshVariableSupply _freshVariables;
+    private Map<Term, Node> _nodes = new HashMap<>();
+    private List<Node> _allNodes = new ArrayList<>();
+    private List<Node> _variables = new ArrayList<>();
+    private ArrayDeque<Node> _merges = new ArrayDeque<>();
+    private ArrayDeque<Node> _successors = new ArrayDeque<>();
+    private ArrayDeque<Node> _distributions = new ArrayDeque<>();
+    private int _nodeLimit;
+    private boolean _gaveUp;
+    private int _nextHeightCheck;
+
+    Graph(FreshVariableSupply freshVariables) {
+      _freshVariables = freshVariables;
+    }
+
+    /** Returns the node for t, creating it (and the nodes for its subterms) if it does not exist yet. */
+    private Node createNode(Term t) {
+      Node node = _nodes.get(t);
+      if (node != null) return node;
+      if (t.queryTermKind() == Term.TermKind.VARTERM) {
+        node = new Node(t, null, t.queryVariable(), t.queryType());
+        _variables.add(node);
+      }
+      else {
+        node = new Node(t, t.queryRoot(), null, t.queryType());
+        for (int i = 1; i <= t.numberImmediateSubterms(); i++) node._children.add(createNode(t.queryImmediateSubterm(i)));
+      }
+      _nodes.put(t, node);
+      _allNodes.add(node);
+      return node;
+    }
+
+    /** Creates a node which is not part of the input: a fresh variable, or a symbol applied to fresh variables. */
+    private Node createFreshNode(FunctionSymbol symbol, List<Type> argumentTypes, Type type) {
+      Node node = new Node(null, symbol, null, type);
+      for (Type argType : argumentTypes) {
+        Node child = new Node(null, null, null, argType);
+        _allNodes.add(child);
+        node._children.add(child);
+      }
+      _allNodes.add(node);
+      return node;
+    }
+
+    /** Returns the representative of the class of the given node, compressing the path to it. */
+    private Node find(Node node) {
+      Node root = node;
+      while (root._parent != root) root = root._parent;
+      while (node._parent != root) {
+        Node next = node._parent;
+        node._parent = root;
+        node = next;
+      }
+      return root;
+    }
+
+    /**
+     * Applies the rules, starting from the requirement that t is the successor of s, until a fixpoint is reached.
+     * Returns false if the problem has no solution, or if the node bound is exceeded (then _gaveUp is set).
+     */
+    private boolean solve(Node s, Node t) {
+      _nextHeightCheck = 2 * _allNodes.size();
+      _successors.add(s);
+      _successors.add(t);
+      while (!_merges.isEmpty() || !_successors.isEmpty() || !_distributions.isEmpty()) {
+        boolean ok;
+        if (!_merges.isEmpty()) ok = merge(_merges.poll(), _merges.poll());
+        else if (!_successors.isEmpty()) ok = addSuccessor(_successors.poll(), _successors.poll());
+        else ok = distribute(_distributions.poll());
+        if (!ok) return false;
+        if (_allNodes.size() > _nodeLimit) {
+          _gaveUp = true;
+          return false;
+        }
+        if (_allNodes.size() >= _nextHeightCheck) { // an expansion which keeps going often has inconsistent heights
+          if (!heightsConsistent()) return false;
+          _nextHeightCheck *= 2;
+        }
+      }
+      return heightsConsistent();
+    }
+
+    /**
+     * Requires b to be (in the class of) the successor of the class of a; returns false if their types differ, as rho
+     * preserves types.
+     */
+    private boolean addSuccessor(Node a, Node b) {
+      Node rep = find(a);
+      if (!rep._type.equals(b._type)) return false;
+      if (rep._successor != null) {
+        _merges.add(rep._successor);
+        _merges.add(b);
+      }
+      else {
+        rep._successor = b;
+        find(b)._predecessors.add(rep);
+        _distributions.add(rep);
+      }
+      return true;
+    }
+
+    /** Merges the classes of a and b; returns false if their function symbols or types clash. */
+    private boolean merge(Node a, Node b) {
+      Node x = find(a), y = find(b);
+      if (x == y) return true;
+      if (!x._type.equals(y._type)) return false;
+      Node xschema = x._schema, yschema = y._schema;
+      if (xschema != null && yschema != null) {
+        if (!xschema._symbol.equals(yschema._symbol) || xschema._children.size() != yschema._children.size()) {
+          return false;
+        }
+        for (int i = 0; i < xschema._children.size(); i++) {
+          _merges.add(xschema._children.get(i));
+          _merges.add(yschema._children.get(i));
+        }
+      }
+      if (x._successor != null && y._successor != null) {
+        _merges.add(x._successor);
+        _merges.add(y._successor);
+      }
+
+      Node root = x, child = y;
+      if (x._rank < y._rank) { root = y; child = x; }
+      else if (x._rank == y._rank) x._rank++;
+      child._parent = root;
+      root._schema = xschema != null ? xschema : yschema;
+      if (root._successor == null) root._successor = child._successor;
+      if (root._variable == null) root._variable = child._variable; // only variables from the input are set here
+      root._predecessors.addAll(child._predecessors);
+
+      _distributions.add(root);
+      if (xschema == null || yschema == null) _distributions.addAll(root._predecessors); // they may have gained a schema
+      return true;
+    }
+
+    /**
+     * Applies the distribution rule to the class of the given node: if it has a function symbol and a successor,
+     * then the successor must have the same function symbol, and the arguments must have the successor's arguments
+     * as their successors.
+     */
+    private boolean distribute(Node node) {
+      Node rep = find(node);
+      Node schema = rep._schema;
+      if (schema == null || rep._successor == null) return true;
+      Node succ = find(rep._successor);
+      Node target = succ._schema;
+      if (target == null) {
+        List<Type> argumentTypes = new ArrayList<>();
+        for (Node child : schema._children) argumentTypes.add(child._type);
+        target = createFreshNode(schema._symbol, argumentTypes, schema._type);
+        _merges.add(succ);
+        _merges.add(target);
+      }
+      else if (!target._symbol.equals(schema._symbol) || target._children.size() != schema._children.size()) {
+        return false;
+      }
+      for (int i = 0; i < schema._children.size(); i++) {
+        _successors.add(schema._children.get(i));
+        _successors.add(target._children.get(i));
+      }
+      return true;
+    }
+
+    /**
+     * Checks that the classes can be given heights such that arguments are strictly lower than their parent, and
+     * successors are at least as high as their predecessor.  This is the case if and only if no strongly connected
+     * component of the graph with edges parent -> argument and successor -> predecessor contains an argument edge.
+     */
+    private boolean heightsConsistent() {
+      List<Node> reps = new ArrayList<>();
+      for (Node node : _allNodes) {
+        Node rep = find(node);
+        rep._index = -1;
+        rep._onStack = false;
+        if (node == rep) reps.add(rep);
+      }
+      Map<Node, List<Node>> predecessors = new HashMap<>();
+      for (Node rep : reps) {
+        if (rep._successor != null) predecessors.computeIfAbsent(find(rep._successor), k -> new ArrayList<>()).add(rep);
+      }
+      int[] counter = { 0 };
+      ArrayDeque<Node> stack = new ArrayDeque<>();
+      for (Node rep : reps) {
+        if (rep._index == -1) tarjan(rep, predecessors, counter, stack);
+      }
+      for (Node rep : reps) { // the lowlink of a node is now the index of the root of its component
+        if (rep._schema == null) continue;
+        for (Node child : rep._schema._children) {
+          if (find(child)._lowlink == rep._lowlink) return false;
+        }
+      }
+      return true;
+    }
+
+    /** Tarjan's algorithm for strongly connected components, used by heightsConsistent. */
+    private void tarjan(Node rep, Map<Node, List<Node>> predecessors, int[] counter, ArrayDeque<Node> stack) {
+      rep._index = rep._lowlink = counter[0]++;
+      stack.push(rep);
+      rep._onStack = true;
+      List<Node> next = new ArrayList<>();
+      if (rep._schema != null) for (Node child : rep._schema._children) next.add(find(child));
+      next.addAll(predecessors.getOrDefault(rep, List.of()));
+      for (Node other : next) {
+        if (other._index == -1) {
+          tarjan(other, predecessors, counter, stack);
+          rep._lowlink = Math.min(rep._lowlink, other._lowlink);
+        }
+        else if (other._onStack) rep._lowlink = Math.min(rep._lowlink, other._index);
+      }
+      if (rep._lowlink == rep._index) {
+        Node member;
+        do {
+          member = stack.pop();
+          member._onStack = false;
+          member._lowlink = rep._index;
+        } while (member != rep);
+      }
+    }
+
+    /** Returns the term that sigma maps every node in the class of the given representative to. */
+    private Term valueOf(Node rep) {
+      if (rep._value != null) return rep._value;
+      Node schema = rep._schema;
+      if (schema == null) {
+        if (rep._variable == null) rep._variable = _freshVariables.createFreshVariable("u", rep._type);
+        rep._value = rep._variable;
+      }
+      else {
+        ArrayList<Term> args = new ArrayList<>();
+        boolean changed = schema._term == null;
+        for (int i = 0; i < schema._children.size(); i++) {
+          Term arg = valueOf(find(schema._children.get(i)));
+          if (!changed && arg != schema._term.queryImmediateSubterm(i + 1)) changed = true;
+          args.add(arg);
+        }
+        rep._value = changed ? new FunctionalTerm(schema._symbol, args) : schema._term;
+      }
+      return rep._value;
+    }
+
+    /** Reads sigma off the graph: every variable of the input is mapped to the term of its class. */
+    private Substitution sigma() {
+      Subst sigma = new Subst();
+      for (Node x : _variables) {
+        Term value = valueOf(find(x));
+        if (!value.equals(x._term)) sigma.extend(x._term.queryVariable(), value);
+      }
+      return sigma;
+    }
+
+    /** Reads rho off the graph: every variable class is mapped to the term of its successor. */
+    private Substitution rho() {
+      Subst rho = new Subst();
+      for (Node node : _allNodes) {
+        Node rep = find(node);
+        if (rep != node || rep._schema != null || rep._successor == null) continue;
+        Term value = valueOf(find(rep._successor));
+        Variable x = valueOf(rep).queryVariable();
+        if (!value.equals(x)) rho.extend(x, value);
+      }
+      return rho;
+    }
+  }
+}
@@ -20,10 +20,14 @@ import java.util.ArrayList;
 public class RhoSymbol extends TermInherit implements FunctionSymbol {
   private Term _arg;
   private Type _type;
+  private int _hash;
+  private int _shapeHash;
 
   RhoSymbol(Term argument) {
     _arg = argument;
     _type = argument.queryType();
+    _hash = 31 * queryName().hashCode() + argument.hashCode();
+    _shapeHash = 31 * queryName().hashCode() + argument.queryShapeHash();
   }
 
   /**
@@ -182,6 +186,7 @@ public class RhoSymbol extends TermInherit implements FunctionSymbol {
     if (t == null) {
       throw new Error("Substituting " + _arg.toString() + " results in null!");
     }
+    if (t == _arg) return this;
     return new RhoSymbol(t);
   }
 
@@ -211,6 +216,22 @@ public class RhoSymbol extends TermInherit implements FunctionSymbol {
     return ret;
   }
 
+  /**
+   * Returns a structural hash code, which is computed when the term is created.
+   */
+  @Override
+  public int hashCode() {
+    return _hash;
+  }
+
+  /**
+   * Returns a hash code that is invariant under variable renaming, computed on creation.
+   */
+  @Override
+  public int queryShapeHash() {
+    return _shapeHash;
+  }
+
   /**
    * Performs an equality check with the given other term.
    *
@@ -219,6 +240,7 @@ public class RhoSymbol extends TermInherit implements FunctionSymbol {
   @Override
   public boolean equals(Term term) {
     if (term == null) return false;
+    if (term == this) return true;
     if (term.queryTermKind() != TermKind.FUNCTIONALTERM) return false;
     if (!this.equals(term.queryRoot())) return false;
     if (term.numberImmediateSubterms() != 1) return false;
@@ -1,10 +1,11 @@
 package cora.analysers.general.semiunification;
 
+import cora.analysers.CancellationToken;
 import cora.interfaces.analyzers.SemiUnifier;
 import cora.interfaces.terms.*;
 import cora.terms.FunctionalTerm;
 import cora.terms.Subst;
-import cora.terms.Var;
+import cora.terms.VarSupply;
 
 import java.util.*;
 
@@ -37,10 +38,27 @@ public class SemiUnification implements SemiUnifier {
       Equation equation = (Equation) o;
       return left.equals(equation.left) && right.equals(equation.right);
     }
+
+    @Override
+    public int hashCode() {
+      return 31 * left.hashCode() + right.hashCode();
+    }
   }
 
+  private FreshVariableSupply _freshVariables;
   private FunctionSymbol _rho;
   private Map<Variable, Variable> _varMapping;
+  private CancellationToken _cancellation;
+
+  /** Creates a semi-unifier with its own supply of fresh variables. */
+  public SemiUnification() {
+    this(new VarSupply());
+  }
+
+  /** Creates a semi-unifier which takes the variables it introduces from the given supply. */
+  public SemiUnification(FreshVariableSupply freshVariables) {
+    _freshVariables = freshVariables;
+  }
 
   /**
    * Get the length of the longest variable name in a term.
@@ -55,10 +73,30 @@ public class SemiUnification implements SemiUnifier {
 
   /**
    * Checks semi-unifications of two terms.
-   * This function will call the function checkSemiUnification with an empty list.
+   * Since the algorithm keeps some state in fields, every call is done on a fresh instance, so that a single
+   * SemiUnification can be used by several threads at once.
    */
   @Override
   public SemiUnificationResult semiUnify(Term s, Term t) {
+    return semiUnify(s, t, new CancellationToken());
+  }
+
+  /**
+   * Checks semi-unification of two terms, checking the token in every round of the rewriting step, so that a long
+   * search stops with an AnalysisCancelledError once the token is cancelled or the thread is interrupted.
+   */
+  @Override
+  public SemiUnificationResult semiUnify(Term s, Term t, CancellationToken token) {
+    SemiUnification instance = new SemiUnification(_freshVariables);
+    instance._cancellation = token;
+    return instance.solve(s, t);
+  }
+
+  /**
+   * Does the actual semi-unification check for semiUnify.
+   * This function will call the function checkSemiUnification with an empty list.
+   */
+  private SemiUnificationResult solve(Term s, Term t) {
     String uniqueVarName = "x".repeat(1 + Math.max(getLongestVarName(s), getLongestVarName(t)));
     _varMapping = new TreeMap<>();
 
@@ -73,7 +111,7 @@ public class SemiUnification implements SemiUnifier {
 
     List<Equation> result = checkSemiUnification(rho_sigma_s, sigma_t, new ArrayList<>());
     if (result == null) return new SemiUnificationResult();
-    else return (new SemiUnificationResultExtractor(result, _varMapping)).extractSolution(uniqueVarName);
+    else return (new SemiUnificationResultExtractor(result, _varMapping, _freshVariables)).extractSolution(uniqueVarName);
   }
 
   /**
@@ -81,8 +119,8 @@ public class SemiUnification implements SemiUnifier {
    */
   private Substitution createVariableMapping(Term l, Term r) {
     Subst subst = new Subst();
-    for (Variable v : l.vars()) subst.extend(v, new Var("s_" + v.queryName(), v.queryType()));
-    for (Variable v : r.vars()) if (!subst.domain().contains(v)) subst.extend(v, new Var("s_" + v.queryName(), v.queryType()));
+    for (Variable v : l.vars()) subst.extend(v, _freshVariables.createVariable("s_" + v.queryName(), v.queryType()));
+    for (Variable v : r.vars()) if (!subst.domain().contains(v)) subst.extend(v, _freshVariables.createVariable("s_" + v.queryName(), v.queryType()));
     return subst;
   }
 
@@ -94,6 +132,8 @@ public class SemiUnification implements SemiUnifier {
    * @return true if the two terms semi-unify
    */
   private List<Equation> checkSemiUnification(Term s, Term t, ArrayList<Equation> rules) {
+    _cancellation.check();
+
     // Step 2.1: apply the distributivity equations
     //           rho(f(g(x), y)) becomes f(g(rho(x)), rho(y)) if x and y are both variables
     s = pushDownRho(s);
@@ -120,6 +160,7 @@ public class SemiUnification implements SemiUnifier {
     //         the rule by the new equation thus obtained and go to step 2. If no rule can be rewritten any further,
     //         semi-unifiability is true.
     for (Equation r1 : rules) {
+      _cancellation.check();
       ArrayList<Equation> rulesWithoutR1 = new ArrayList<>(rules);
       rulesWithoutR1.remove(r1);
       List<Term> leftRewritings = getRewritings(r1.left, rulesWithoutR1);
@@ -164,6 +205,7 @@ public class SemiUnification implements SemiUnifier {
    */
   private List<Equation> orderEquations(List<Equation> equations, List<Equation> existingRules) {
     List<Equation> result = new ArrayList<>();
+    Set<Equation> known = new HashSet<>(existingRules);
     for (Equation e : equations) {
       Equation newRule;
       if (compareTerms(e.left, e.right) >= 0) {
@@ -171,7 +213,7 @@ public class SemiUnification implements SemiUnifier {
       } else {
         newRule = new Equation(e.left, e.right);
       }
-      if (!existingRules.contains(newRule) && !result.contains(newRule)) {
+      if (known.add(newRule)) {
         result.add(newRule);
       }
     }
@@ -257,12 +299,10 @@ public class SemiUnification implements SemiUnifier {
    */
   static List<Position> termContainsSubterm(Term t, Term s) {
     ArrayList<Position> result = new ArrayList<>();
-    for (Position p : t.queryAllPositions()) {
-      Term temp = t.querySubterm(p);
-      if (temp.equals(s)) {
-        result.add(p);
-      }
-    }
+    t.visitSubterms((subterm, path) -> {
+      if (subterm.equals(s)) result.add(path.toPosition());
+      return true;
+    });
     return result;
   }
 
@@ -9,6 +9,7 @@ public class SemiUnificationResult {
   private Substitution _rho;
   private Substitution _sigma;
   private boolean _success;
+  private boolean _unknown;
 
   /**
    * Constructor to create a successful result using two substitutions.
@@ -17,6 +18,7 @@ public class SemiUnificationResult {
     _rho = rho;
     _sigma = sigma;
     _success = true;
+    _unknown = false;
   }
 
   /**
@@ -26,6 +28,17 @@ public class SemiUnificationResult {
     _rho = null;
     _sigma = null;
     _success = false;
+    _unknown = false;
+  }
+
+  /**
+   * Creates a result for a semi-unifier that gave up without deciding the problem; it is not a success, but unlike
+   * a failure it does not mean that the terms do not semi-unify.
+   */
+  public static SemiUnificationResult unknown() {
+    SemiUnificationResult result = new SemiUnificationResult();
+    result._unknown = true;
+    return result;
   }
 
   /**
@@ -48,4 +61,11 @@ public class SemiUnificationResult {
   public boolean isSuccess() {
     return _success;
   }
+
+  /**
+   * Check if the semi-unifier gave up, so it is not known whether the terms semi-unify.
+   */
+  public boolean isUnknown() {
+    return _unknown;
+  }
 }
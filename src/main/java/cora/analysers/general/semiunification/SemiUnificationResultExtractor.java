@@ -1,11 +1,11 @@
 package cora.analysers.general.semiunification;
 
+import cora.interfaces.terms.FreshVariableSupply;
 import cora.interfaces.terms.Position;
 import cora.interfaces.terms.Substitution;
 import cora.interfaces.terms.Term;
 import cora.interfaces.terms.Variable;
 import cora.terms.Subst;
-import cora.terms.Var;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,8 +19,11 @@ class SemiUnificationResultExtractor {
   private Substitution _rhoSubst;
   private Substitution _sigmaSubst;
   private List<Variable> _variables;
+  private FreshVariableSupply _freshVariables;
 
-  SemiUnificationResultExtractor(List<SemiUnification.Equation> rules, Map<Variable, Variable> varMapping) {
+  SemiUnificationResultExtractor(List<SemiUnification.Equation> rules, Map<Variable, Variable> varMapping,
+                                 FreshVariableSupply freshVariables) {
+    _freshVariables = freshVariables;
     _variableMap = varMapping;
     _rules = rules;
     _rhoSubst = new Subst();
@@ -68,8 +71,8 @@ class SemiUnificationResultExtractor {
     for (int i = 0; i < _variables.size(); i++) {
       Variable var = _variables.get(i);
       if (rhsContains(_rules, new RhoSymbol(_variableMap.get(var)))) {
-        Variable u = new Var(getUniqueVarName(uniqueVarName), var.queryType());
-        Variable s_u = new Var("s_" + u.queryName(), u.queryType());
+        Variable u = _freshVariables.createVariable(getUniqueVarName(uniqueVarName), var.queryType());
+        Variable s_u = _freshVariables.createVariable("s_" + u.queryName(), u.queryType());
         _variableMap.put(u, s_u);
         _variables.add(u);
         replaceTerm(_rules, new RhoSymbol(_variableMap.get(var)), s_u);
@@ -100,7 +103,7 @@ class SemiUnificationResultExtractor {
         List<Term> replacements = new ArrayList<>();
         for (int i = 0; i < rhos; i++) {
           if (i == rhos - 1) replacements.add(replaceSVarsWithVars(e.right, reverseVarMap));
-          else  replacements.add(new Var(getUniqueVarName(uniqueVarName), e.right.queryType()));
+          else  replacements.add(_freshVariables.createVariable(getUniqueVarName(uniqueVarName), e.right.queryType()));
         }
         _rhoSubst.extend(leftVar, replacements.get(0));
         for (int i = 1; i < rhos; i++) _rhoSubst.extend(replacements.get(i - 1).queryVariable(), replacements.get(i));
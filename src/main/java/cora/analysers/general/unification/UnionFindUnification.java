@@ -0,0 +1,196 @@
+package cora.analysers.general.unification;
+
+import cora.analysers.general.semiunification.SemiUnificationResult;
+import cora.interfaces.analyzers.SemiUnifier;
+import cora.interfaces.terms.Substitution;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.terms.FunctionalTerm;
+import cora.terms.Subst;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A unification algorithm in the style of Martelli and Montanari which works on a DAG representation of the two terms:
+ * equal subterms are represented by a single node, and nodes that have to be equal are merged using a union-find
+ * structure.  The occurs check is postponed until everything has been merged, where it becomes a single cycle check
+ * on the graph of equivalence classes.  This makes the algorithm almost linear in the size of the terms, whereas
+ * Term.unify can take exponential time when variables are bound to terms which share a lot of structure.
+ *
+ * The static unify function has the same contract as Term.unify.  As a SemiUnifier, this can be used in place of
+ * Unification.
+ */
+public class UnionFindUnification implements SemiUnifier {
+  /**
+   * A node of the DAG: either a variable or a function symbol applied to argument nodes.
+   * The fields after _parent are only meaningful for the representative of an equivalence class.
+   */
+  private static class Node {
+    private Term _term;
+    private List<Node> _children;
+    private Node _parent;
+    private int _rank;
+    private Node _schema;       // a functional node in the class, if any
+    private Variable _variable; // a variable in the class, if any
+    private int _visit;         // 0 = not visited by the cycle check, 1 = on the stack, 2 = done
+    private Term _value;        // the term the class is instantiated to, once computed
+
+    Node(Term term) {
+      _term = term;
+      _children = new ArrayList<>();
+      _parent = this;
+      _rank = 0;
+      if (term.queryTermKind() == Term.TermKind.VARTERM) _variable = term.queryVariable();
+      else _schema = this;
+      _visit = 0;
+    }
+  }
+
+  /**
+   * Checks if the given two terms unify; if so, the unifier is returned (the union-find construction guarantees that
+   * it is correct, so unlike Unification no further check is done).
+   */
+  @Override
+  public SemiUnificationResult semiUnify(Term s, Term t) {
+    Substitution unifier = unify(s, t);
+    if (unifier == null) return new SemiUnificationResult();
+    return new SemiUnificationResult(new Subst(), unifier);
+  }
+
+  /**
+   * Applies the union-find unification algorithm to s and t.
+   * @return a most general unifier of s and t if one exists, otherwise null
+   */
+  public static Substitution unify(Term s, Term t) {
+    Graph graph = new Graph();
+    Node sNode = graph.createNode(s);
+    Node tNode = graph.createNode(t);
+    if (!graph.merge(sNode, tNode) || !graph.acyclic()) return null;
+    Subst gamma = new Subst();
+    for (Node x : graph._variables) {
+      Term value = graph.valueOf(graph.find(x));
+      if (!value.equals(x._term)) gamma.extend(x._term.queryVariable(), value);
+    }
+    return gamma;
+  }
+
+  /** The DAG for a single unification problem, with the union-find structure on its nodes. */
+  private static class Graph {
+    private Map<Term, Node> _nodes = new HashMap<>();
+    private List<Node> _variables = new ArrayList<>();
+
+    /** Returns the node for t, creating it (and the nodes for its subterms) if it does not exist yet. */
+    private Node createNode(Term t) {
+      Node node = _nodes.get(t);
+      if (node != null) return node;
+      node = new Node(t);
+      if (t.queryTermKind() == Term.TermKind.VARTERM) _variables.add(node);
+      else {
+        for (int i = 1; i <= t.numberImmediateSubterms(); i++) node._children.add(createNode(t.queryImmediateSubterm(i)));
+      }
+      _nodes.put(t, node);
+      return node;
+    }
+
+    /** Returns the representative of the class of the given node, compressing the path to it. */
+    private Node find(Node node) {
+      Node root = node;
+      while (root._parent != root) root = root._parent;
+      while (node._parent != root) {
+        Node next = node._parent;
+        node._parent = root;
+        node = next;
+      }
+      return root;
+    }
+
+    /**
+     * Merges the classes of a and b, and then those of all pairs of nodes that have to be equal as a consequence.
+     * Returns false if this leads to a clash of function symbols or types.
+     */
+    private boolean merge(Node a, Node b) {
+      ArrayList<Node> todo = new ArrayList<>();
+      todo.add(a);
+      todo.add(b);
+      while (!todo.isEmpty()) {
+        Node x = find(todo.remove(todo.size() - 2));
+        Node y = find(todo.remove(todo.size() - 1));
+        if (x == y) continue;
+        if (!x._term.queryType().equals(y._term.queryType())) return false;
+        Node xschema = x._schema, yschema = y._schema;
+        if (xschema != null && yschema != null) {
+          if (!xschema._term.queryRoot().equals(yschema._term.queryRoot()) ||
+              xschema._children.size() != yschema._children.size()) return false;
+          for (int i = 0; i < xschema._children.size(); i++) {
+            todo.add(xschema._children.get(i));
+            todo.add(yschema._children.get(i));
+          }
+        }
+        union(x, y);
+      }
+      return true;
+    }
+
+    /** Makes one of the representatives x and y the representative of both classes, keeping the class data. */
+    private void union(Node x, Node y) {
+      Node schema = x._schema != null ? x._schema : y._schema;
+      Variable variable = y._variable != null ? y._variable : x._variable;
+      Node root = x, child = y;
+      if (x._rank < y._rank) { root = y; child = x; }
+      else if (x._rank == y._rank) x._rank++;
+      child._parent = root;
+      root._schema = schema;
+      root._variable = variable;
+    }
+
+    /**
+     * The deferred occurs check: returns true if no class is (indirectly) an argument of itself, that is, if the
+     * graph of classes with edges from a class to the classes of the arguments of its schema has no cycle.
+     */
+    private boolean acyclic() {
+      for (Node node : _nodes.values()) {
+        if (!acyclic(find(node))) return false;
+      }
+      return true;
+    }
+
+    /** Helper for acyclic(): a depth-first search from the given representative. */
+    private boolean acyclic(Node rep) {
+      if (rep._visit == 2) return true;
+      if (rep._visit == 1) return false;
+      rep._visit = 1;
+      if (rep._schema != null) {
+        for (Node child : rep._schema._children) {
+          if (!acyclic(find(child))) return false;
+        }
+      }
+      rep._visit = 2;
+      return true;
+    }
+
+    /**
+     * Returns the term that the class of the given representative is instantiated to: the variable of the class if it
+     * has no schema, otherwise the schema with its arguments instantiated.  Results are shared between classes, so the
+     * terms form a DAG of the same size as the graph.
+     */
+    private Term valueOf(Node rep) {
+      if (rep._value != null) return rep._value;
+      Node schema = rep._schema;
+      if (schema == null) rep._value = rep._variable;
+      else {
+        ArrayList<Term> args = new ArrayList<>();
+        boolean changed = false;
+        for (int i = 0; i < schema._children.size(); i++) {
+          Term arg = valueOf(find(schema._children.get(i)));
+          if (arg != schema._term.queryImmediateSubterm(i + 1)) changed = true;
+          args.add(arg);
+        }
+        rep._value = changed ? new FunctionalTerm(schema._term.queryRoot(), args) : schema._term;
+      }
+      return rep._value;
+    }
+  }
+}
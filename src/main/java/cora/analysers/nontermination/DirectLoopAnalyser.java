@@ -6,7 +6,6 @@ import cora.analysers.results.MaybeResult;
 import cora.interfaces.analyzers.Result;
 import cora.interfaces.rewriting.Rule;
 import cora.interfaces.rewriting.TRS;
-import cora.interfaces.terms.Position;
 import cora.interfaces.terms.Term;
 
 import java.util.Collections;
@@ -33,14 +32,12 @@ public class DirectLoopAnalyser extends InterruptableAnalyzer {
   protected Result analyze() {
     for (int i=0; i < _trs.queryRuleCount(); i++) {
       Rule rule = _trs.queryRule(i);
-      for (Position p : rule.queryRightSide().queryAllPositions()) {
-        Term term = rule.queryRightSide().querySubterm(p);
-        if (term.queryTermKind() != Term.TermKind.VARTERM) { // left side cannot contain just a variable anyway
-          if (rule.queryLeftSide().equals(term)) {
-            return new LoopingResult(Collections.singletonList(rule));
-          }
-        }
-      }
+      boolean loops = !rule.queryRightSide().visitSubterms((term, path) -> {
+        checkCancelled();
+        // left side cannot contain just a variable anyway
+        return term.queryTermKind() == Term.TermKind.VARTERM || !rule.queryLeftSide().equals(term);
+      });
+      if (loops) return new LoopingResult(Collections.singletonList(rule));
     }
     return new MaybeResult();
   }
@@ -6,7 +6,6 @@ import cora.analysers.results.MaybeResult;
 import cora.interfaces.analyzers.Result;
 import cora.interfaces.rewriting.Rule;
 import cora.interfaces.rewriting.TRS;
-import cora.interfaces.terms.Position;
 import cora.interfaces.terms.Substitution;
 import cora.interfaces.terms.Term;
 
@@ -25,14 +24,15 @@ public class MatchingAnalyser extends InterruptableAnalyzer {
     for (int i = 0; i < _trs.queryRuleCount(); i++) {
       Rule rule = _trs.queryRule(i);
       Term rhs = rule.queryRightSide();
-      for (Position p : rhs.queryAllPositions()) {
-        if (rhs.querySubterm(p).queryTermKind() != Term.TermKind.VARTERM) {
-          Substitution subst = rule.queryLeftSide().match(rhs.querySubterm(p));
-          if (subst != null) {
-            return new MatchesResult(rule.queryLeftSide(), rhs.querySubterm(p), subst);
-          }
-        }
-      }
+      Result[] result = new Result[1];
+      rhs.visitSubterms((subterm, path) -> {
+        checkCancelled();
+        if (subterm.queryTermKind() == Term.TermKind.VARTERM) return true;
+        Substitution subst = rule.queryLeftSide().match(subterm);
+        if (subst != null) result[0] = new MatchesResult(rule.queryLeftSide(), subterm, subst);
+        return subst == null;
+      });
+      if (result[0] != null) return result[0];
     }
 
     return new MaybeResult();
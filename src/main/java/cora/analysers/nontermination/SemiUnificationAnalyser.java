@@ -31,8 +31,9 @@ public class SemiUnificationAnalyser extends InterruptableAnalyzer {
       for (Position p : r.queryRightSide().queryAllPositions())
       {
         Term subterm = r.queryRightSide().querySubterm(p);
+        checkCancelled();
         if (subterm.queryTermKind() != Term.TermKind.VARTERM) {
-          SemiUnificationResult result = unifier.semiUnify(r.queryLeftSide(), subterm);
+          SemiUnificationResult result = unifier.semiUnify(r.queryLeftSide(), subterm, queryCancellationToken());
           if (
             result.isSuccess() &&
               r.queryLeftSide() // for two terms s & t, check if rho(sigma(s)) == sigma(t) with the resulting sigma & rho
@@ -13,6 +13,7 @@ import cora.interfaces.terms.Position;
 import cora.interfaces.terms.Substitution;
 import cora.interfaces.terms.Term;
 import cora.rewriting.FirstOrderRule;
+import cora.terms.flat.FlatTerm;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -87,7 +88,6 @@ public class AbstractUnfoldingAnalyser extends UnfoldingAnalyser {
     }
   }
 
-  private boolean _augmentTrs;
   private FunctionalDependencyGraph _graph;
 
   /**
@@ -99,7 +99,18 @@ public class AbstractUnfoldingAnalyser extends UnfoldingAnalyser {
 
   public AbstractUnfoldingAnalyser(TRS trs, int maxUnfoldings, SemiUnifier semiUnifier, boolean augmentTrs) {
     super(trs, maxUnfoldings, semiUnifier);
-    _graph = new FunctionalDependencyGraph(getRulesFromTRS(trs));
+    _graph = new FunctionalDependencyGraph(getRulesFromTRS(trs), _freshVariables);
+    _augmentTrs = augmentTrs;
+  }
+
+  /**
+   * Creates an abstract unfolding analyzer for the TRS of the given session, which uses the dependency graph of the
+   * session rather than building its own; use AnalysisSession.createAbstractUnfolder.
+   */
+  AbstractUnfoldingAnalyser(AnalysisSession session, int maxUnfoldings, SemiUnifier semiUnifier, boolean augmentTrs) {
+    super(session.queryTRS(), maxUnfoldings, semiUnifier);
+    joinSession(session);
+    _graph = session.queryGraph();
     _augmentTrs = augmentTrs;
   }
 
@@ -110,28 +121,43 @@ public class AbstractUnfoldingAnalyser extends UnfoldingAnalyser {
    *  or a Rule that is still useful.
    */
   private List<AbstractRule> unfold(List<Rule> rewriteRules) {
+    return expandFrontier(rewriteRules, this::unfold, AbstractRule::semiUnified);
+  }
+
+  /**
+   * The abstract unfolding operator applied to a single rule of the frontier.
+   * The result ends with a semi-unified rule if one is found.
+   */
+  private List<AbstractRule> unfold(Rule xr) { // l -> r IN X
     List<AbstractRule> result = new ArrayList<>();
-    for (Rule xr : rewriteRules) { // l -> r IN X
-      Term rightSide = xr.queryRightSide();
-      for (Position p : rightSide.queryAllPositions()) {
-        if (rightSide.querySubterm(p).queryTermKind() != Term.TermKind.VARTERM) { // p IN NPos(r)
-          for (int i = 0; i < _trs.queryRuleCount(); i++) {
-            Rule rr = _trs.queryRule(i);
-            if (rr.queryRightSide().queryType().equals(rightSide.querySubterm(p).queryType())) { // l' -> r' IN R renamed with fresh variables
-              Rule lr = makeVariablesFresh(rr);
-              Substitution theta = rightSide.querySubterm(p).unify(lr.queryLeftSide()); // θ IN mgu(r|p, l')
-              if (theta != null) {
-                Term left = xr.queryLeftSide().substitute(theta);
-                Term right = rightSide.replaceSubterm(p, lr.queryRightSide()).substitute(theta);
-                AbstractRule abstr = abstraction(left, right);
-                if (abstr.isUseful()) result.add(abstr);
-                if (abstr.semiUnified()) return result; // we found a solution, no point in doing more work.
-              }
-            }
+    Term rightSide = xr.queryRightSide();
+    FlatTerm flatRightSide = flatten(rightSide);
+    int[] indexes = flatRightSide.queryPostOrder(); // in the order of visitSubterms
+    int[] k = new int[1];
+    rightSide.visitSubterms((subterm, path) -> {
+      int index = indexes[k[0]++];
+      checkExpansion();
+      if (flatRightSide.isVariable(index)) return true; // p IN NPos(r)
+      Position p = null;
+      for (Rule rr : _trs.queryCandidateRules(subterm)) { // only rules that might unify
+        checkExpansion();
+        if (rr.queryRightSide().queryType().equals(subterm.queryType()) &&
+            unifiesWithLeftSide(flatRightSide, index, rr)) { // l' -> r' IN R renamed with fresh variables
+          Rule lr = makeVariablesFresh(rr);
+          Substitution theta = subterm.unify(lr.queryLeftSide()); // θ IN mgu(r|p, l')
+          if (theta != null) {
+            if (p == null) p = path.toPosition();
+            Term left = xr.queryLeftSide().substitute(theta);
+            Term right = rightSide.replaceSubterm(p, lr.queryRightSide()).substitute(theta);
+            queryCancellationToken().countRules(1);
+            AbstractRule abstr = abstraction(left, right);
+            if (abstr.isUseful()) result.add(abstr);
+            if (abstr.semiUnified()) return false; // we found a solution, no point in doing more work.
           }
         }
       }
-    }
+      return true;
+    });
     return result;
   }
 
@@ -147,7 +173,7 @@ public class AbstractUnfoldingAnalyser extends UnfoldingAnalyser {
    * Gives back true if the terms semi-unify, a rule l -> r if the rule is useful, false otherwise.
    */
   private AbstractRule abstraction(Term l, Term r) {
-    var semiUnifyResult = _semiUnifier.semiUnify(l, r);
+    var semiUnifyResult = _semiUnifier.semiUnify(l, r, queryCancellationToken());
     if (semiUnifyResult.isSuccess()) return new AbstractRule(semiUnifyResult, new FirstOrderRule(l, r));
     if (usefulRelation(l, r)) return new AbstractRule(new FirstOrderRule(l, r));
     else return new AbstractRule();
@@ -158,18 +184,21 @@ public class AbstractUnfoldingAnalyser extends UnfoldingAnalyser {
    * Apply the function with the left side combined with each possible subterm on the right side.
    */
   private List<AbstractRule> abstraction(List<Rule> rules) {
+    return expandFrontier(rules, this::abstraction, AbstractRule::semiUnified);
+  }
+
+  /**
+   * The abstraction function for a single rule; the result ends with a semi-unified rule if one is found.
+   */
+  private List<AbstractRule> abstraction(Rule r) {
     List<AbstractRule> result = new ArrayList<>();
-    for (Rule r : rules) {
-      Term right = r.queryRightSide();
-      for (Position p : right.queryAllPositions()) {
-        Term subterm = right.querySubterm(p);
-        if (subterm.queryType().equals(r.queryLeftSide().queryType())) {
-          AbstractRule abstr = abstraction(r.queryLeftSide(), subterm);
-          if (abstr.isUseful()) result.add(abstr);
-          if (abstr.semiUnified()) return result;
-        }
-      }
-    }
+    r.queryRightSide().visitSubterms((subterm, path) -> {
+      checkExpansion();
+      if (!subterm.queryType().equals(r.queryLeftSide().queryType())) return true;
+      AbstractRule abstr = abstraction(r.queryLeftSide(), subterm);
+      if (abstr.isUseful()) result.add(abstr);
+      return !abstr.semiUnified();
+    });
     return result;
   }
 
@@ -189,7 +218,7 @@ public class AbstractUnfoldingAnalyser extends UnfoldingAnalyser {
    *    Where tau is the type of r
    */
   private boolean usefulRelation(Term l, Term r) {
-    if (_semiUnifier.semiUnify(l, r).isSuccess()) return true;
+    if (_semiUnifier.semiUnify(l, r, queryCancellationToken()).isSuccess()) return true;
 
     if (l.queryTermKind() != Term.TermKind.VARTERM && r.queryTermKind() != Term.TermKind.VARTERM) {
       if (l.queryRoot().equals(r.queryRoot())) {
@@ -203,26 +232,77 @@ public class AbstractUnfoldingAnalyser extends UnfoldingAnalyser {
         if (valid) return true;
       }
 
-      if (_graph.transitions(r, l.queryRoot())) return true;
-      return _graph.transitions(r, createFreshVariable(l.queryType(), "theta"));
+      if (_graph.transitions(r, l.queryRoot(), queryCancellationToken())) return true;
+      return _graph.transitions(r, createFreshVariable(l.queryType(), "theta"), queryCancellationToken());
     }
     return false;
   }
 
+  @Override
+  public String queryTechnique() {
+    return "abstractUnfolding";
+  }
+
+  /** Returns the result proving non-termination with the given semi-unified rule. */
+  private Result semiUnifyResult(AbstractRule r) {
+    return new SemiUnifyResult(r.getRule().queryLeftSide(), r.getRule().queryRightSide(), r.getSemiUnifyResult().getRho(), r.getSemiUnifyResult().getSigma());
+  }
+
+  /** Returns the result for the first semi-unified rule in the given list, or null if there is none. */
+  private Result firstSemiUnifyResult(List<AbstractRule> rules) {
+    for (AbstractRule r : rules) {
+      if (r.semiUnified()) return semiUnifyResult(r);
+    }
+    return null;
+  }
+
+  /** Unfolds the rules of the given abstract rules. */
+  private List<AbstractRule> unfoldAbstract(List<AbstractRule> rules) {
+    List<Rule> result = new ArrayList<>();
+    for (AbstractRule r : rules) result.add(r.getRule());
+    return unfold(result);
+  }
+
   /**
    * Abstract unfolding analyzer
    */
   @Override
-  protected Result analyze() {
-    TRS startingRules = _augmentTrs ? createAugmentedTRS(_trs) : _trs;
-    List<AbstractRule> rules = abstraction(getRulesFromTRS(startingRules));
-    for (int i = 0; i < _maximumUnfoldings; i++) {
+  protected Result analyzeUnfolding() {
+    if (isBestFirst()) {
+      return searchBestFirst(startingRules(_augmentTrs), r -> abstraction(r), AbstractRule::getRule,
+                             r -> unfold(r.getRule()), r -> r.semiUnified() ? semiUnifyResult(r) : null);
+    }
+    if (_maximumUnfoldings <= 0) return new MaybeResult();
+    VariantRuleSet explored = startExploring();
+    UnfoldingFrontier resumed = queryResumedFrontier();
+    List<AbstractRule> rules = new ArrayList<>();
+    int start = 1;
+    if (resumed != null) {
+      start = resumed.queryIterations();
+      if (resumed.queryElements() != null) {
+        for (Object element : resumed.queryElements()) rules.add((AbstractRule)element);
+      }
+      else { // the rules in the frontier are the useful results of the abstraction of unfolded rules
+        for (Rule r : resumed.queryRules()) rules.add(abstraction(r.queryLeftSide(), r.queryRightSide()));
+      }
+    }
+    else {
+      // the starting rules are abstracted and unfolded in batches while they are generated
+      Result result = unfoldStartingRules(startingRules(_augmentTrs), this::abstraction, this::firstSemiUnifyResult,
+                                          AbstractRule::getRule, this::unfoldAbstract, AbstractRule::semiUnified,
+                                          explored, rules);
+      if (result != null) return result;
+      recordFrontier(1, rules, AbstractRule::getRule, explored);
+      if (rules.isEmpty()) return new MaybeResult();
+    }
+    for (int i = start; i < _maximumUnfoldings; i++) {
       List<Rule> currentRules = new ArrayList<>();
       for (AbstractRule r : rules) {
-        if (r.semiUnified()) return new SemiUnifyResult(r.getRule().queryLeftSide(), r.getRule().queryRightSide(), r.getSemiUnifyResult().getRho(), r.getSemiUnifyResult().getSigma());
+        if (r.semiUnified()) return semiUnifyResult(r);
         if (r.isUseful()) currentRules.add(r.getRule());
       }
-      rules = unfold(currentRules);
+      rules = unfold(removeExplored(currentRules, r -> r, explored));
+      recordFrontier(i + 1, rules, AbstractRule::getRule, explored);
       if (rules.isEmpty()) break;
     }
     return new MaybeResult();
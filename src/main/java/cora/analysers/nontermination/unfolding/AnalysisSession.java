@@ -0,0 +1,130 @@
+package cora.analysers.nontermination.unfolding;
+
+import cora.analysers.nontermination.unfolding.functionalgraph.FunctionalDependencyGraph;
+import cora.interfaces.analyzers.SemiUnifier;
+import cora.interfaces.rewriting.Rule;
+import cora.interfaces.rewriting.TRS;
+import cora.interfaces.terms.FreshVariableSupply;
+import cora.terms.VarSupply;
+import cora.terms.flat.FlatTerm;
+import cora.terms.flat.SymbolTable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An AnalysisSession holds the structures that the unfolding analysers compute from a TRS, and hands out analysers
+ * for different settings (number of unfoldings, semi-unifier, augmentation) that share them, so that these
+ * structures are computed only once when a TRS is analysed several times:
+ *   - the functional dependency graph (and the transitions it has computed), built on first use;
+ *   - the rules of the augmented TRS, for every combination of augmentation limits, generated as far as any of the
+ *     analysers has needed them;
+ *   - the flattened left-hand sides of the rules, used to filter unfolding candidates.
+ * The rule index and matching automaton are part of the TRS itself, so they are shared as well.
+ *
+ * The TRS must not change while the session is in use.  A session may be used by several threads at the same time,
+ * and its analysers may run concurrently.
+ */
+public class AnalysisSession {
+  /**
+   * The rules of an augmented TRS, generated on demand: the rules generated so far are kept, so every iterator
+   * returns the same rules in the same order, and each rule is generated only once.
+   */
+  private static class SharedRules {
+    private Iterator<Rule> _generator;
+    private List<Rule> _rules;
+
+    SharedRules(Iterator<Rule> generator) {
+      _generator = generator;
+      _rules = new ArrayList<>();
+    }
+
+    /** Returns the rule with the given index, generating it if necessary, or null if there are not so many rules. */
+    synchronized Rule get(int index) {
+      while (_rules.size() <= index && _generator.hasNext()) _rules.add(_generator.next());
+      return index < _rules.size() ? _rules.get(index) : null;
+    }
+
+    Iterator<Rule> iterator() {
+      return new Iterator<>() {
+        private int _next = 0;
+
+        @Override
+        public boolean hasNext() {
+          return get(_next) != null;
+        }
+
+        @Override
+        public Rule next() {
+          Rule rule = get(_next);
+          if (rule == null) throw new NoSuchElementException();
+          _next++;
+          return rule;
+        }
+      };
+    }
+  }
+
+  private TRS _trs;
+  private FreshVariableSupply _freshVariables;
+  private FunctionalDependencyGraph _graph;
+  private Map<List<Integer>, SharedRules> _augmentedRules;
+  private SymbolTable _symbolTable;
+  private Map<Rule, FlatTerm> _flatLeftSides;
+
+  /** Creates a session for the given TRS. */
+  public AnalysisSession(TRS trs) {
+    _trs = trs;
+    _freshVariables = new VarSupply();
+    _graph = null;
+    _augmentedRules = new ConcurrentHashMap<>();
+    _symbolTable = new SymbolTable();
+    _flatLeftSides = new ConcurrentHashMap<>();
+  }
+
+  /** Returns the TRS of this session. */
+  public TRS queryTRS() {
+    return _trs;
+  }
+
+  /** Returns the functional dependency graph of the TRS, building it the first time it is needed. */
+  public synchronized FunctionalDependencyGraph queryGraph() {
+    if (_graph == null) {
+      _graph = new FunctionalDependencyGraph(UnfoldingAnalyser.getRulesFromTRS(_trs), _freshVariables);
+    }
+    return _graph;
+  }
+
+  /**
+   * Returns the rules of the augmented TRS within the given limits (see UnfoldingAnalyser.setAugmentationLimits), in
+   * the order in which an analyser would generate them; rules that an earlier iterator already generated are reused.
+   */
+  Iterator<Rule> augmentedRules(int depth, int limit) {
+    SharedRules rules = _augmentedRules.computeIfAbsent(List.of(depth, limit), k -> new SharedRules(
+      new AugmentedRuleGenerator(UnfoldingAnalyser.getRulesFromTRS(_trs), UnfoldingAnalyser.getLeftHandTerms(_trs),
+                                 t -> UnfoldingAnalyser.makeVariablesFresh(t, _freshVariables), depth, limit)));
+    return rules.iterator();
+  }
+
+  /** Returns the symbol table used to flatten the left-hand sides of the rules. */
+  SymbolTable querySymbolTable() {
+    return _symbolTable;
+  }
+
+  /** Returns the flattened left-hand sides of the rules that were flattened so far. */
+  Map<Rule, FlatTerm> queryFlatLeftSides() {
+    return _flatLeftSides;
+  }
+
+  /** Creates an abstract unfolding analyser for the TRS of this session, which shares the structures of the session. */
+  public AbstractUnfoldingAnalyser createAbstractUnfolder(int maxUnfoldings, SemiUnifier semiUnifier,
+                                                          boolean augmentTrs) {
+    return new AbstractUnfoldingAnalyser(this, maxUnfoldings, semiUnifier, augmentTrs);
+  }
+
+  /** Creates a concrete unfolding analyser for the TRS of this session, which shares the structures of the session. */
+  public ConcreteUnfoldingAnalyser createConcreteUnfolder(int maxUnfoldings, SemiUnifier semiUnifier,
+                                                          boolean augmentTrs) {
+    return new ConcreteUnfoldingAnalyser(this, maxUnfoldings, semiUnifier, augmentTrs);
+  }
+}
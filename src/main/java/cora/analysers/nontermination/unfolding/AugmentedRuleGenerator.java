@@ -0,0 +1,164 @@
+package cora.analysers.nontermination.unfolding;
+
+import cora.interfaces.rewriting.Rule;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.rewriting.FirstOrderRule;
+import cora.terms.Subst;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * An AugmentedRuleGenerator enumerates the rules of an augmented TRS one at a time: all the rules (l -> r)θ where θ
+ * maps some of the variables of l to (fresh variants of) left-hand sides of the same type.
+ * Only type-correct substitutions are enumerated, so nothing is built that is thrown away afterwards.
+ *
+ * The rules are generated by the number of variables that θ substitutes: first all the original rules, then all the
+ * rules where one variable is substituted, and so on.  Both this number and the total number of rules can be bounded,
+ * in which case the generator simply stops early.
+ */
+class AugmentedRuleGenerator implements Iterator<Rule> {
+  private List<Rule> _rules;
+  private List<List<Variable>> _variables;      // for each rule, the variables of its left-hand side
+  private List<List<List<Term>>> _candidates;   // for each rule and variable, the left-hand sides of the same type
+  private Function<Term, Term> _makeFresh;
+  private int _maxLevel;
+  private int _maxRules;
+  private int _generated;
+
+  private int _level;      // the number of variables substituted in the rules currently generated
+  private int _ruleIndex;  // the rule currently being augmented
+  private int[] _subset;   // the indices of the variables substituted, or null if the rule was not started yet
+  private int[] _choice;   // the index of the left-hand side chosen for each of them, or null for a new subset
+  private Rule _next;
+
+  /**
+   * Creates a generator for the augmented rules of the given rules, where variables may be substituted by the given
+   * left-hand sides, which are renamed by makeFresh.
+   * @param maxSubstituted the maximum number of variables substituted in a single rule, or -1 for no limit
+   * @param maxRules the maximum number of rules generated, or -1 for no limit
+   */
+  AugmentedRuleGenerator(List<Rule> rules, List<Term> leftHandTerms, Function<Term, Term> makeFresh,
+                         int maxSubstituted, int maxRules) {
+    _rules = rules;
+    _variables = new ArrayList<>();
+    _candidates = new ArrayList<>();
+    _makeFresh = makeFresh;
+    _maxRules = maxRules;
+    _generated = 0;
+    int maxVariables = 0;
+    for (Rule r : rules) {
+      LinkedHashSet<Variable> vars = new LinkedHashSet<>();
+      r.queryLeftSide().vars().forEach(vars::add);
+      List<Variable> variables = new ArrayList<>(vars);
+      List<List<Term>> candidates = new ArrayList<>();
+      for (Variable x : variables) {
+        List<Term> terms = new ArrayList<>();
+        for (Term t : leftHandTerms) {
+          if (x.queryType().equals(t.queryType())) terms.add(t);
+        }
+        candidates.add(terms);
+      }
+      _variables.add(variables);
+      _candidates.add(candidates);
+      maxVariables = Math.max(maxVariables, variables.size());
+    }
+    _maxLevel = maxSubstituted < 0 ? maxVariables : Math.min(maxSubstituted, maxVariables);
+    _level = 0;
+    _ruleIndex = 0;
+    _subset = null;
+    _choice = null;
+    _next = findNext();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return _next != null;
+  }
+
+  @Override
+  public Rule next() {
+    if (_next == null) throw new NoSuchElementException();
+    Rule result = _next;
+    _generated++;
+    _next = findNext();
+    return result;
+  }
+
+  /** Moves to the next combination of rule, variables and left-hand sides, and returns its rule (or null). */
+  private Rule findNext() {
+    if (_maxRules >= 0 && _generated >= _maxRules) return null;
+    while (_level <= _maxLevel) {
+      if (_ruleIndex >= _rules.size()) {
+        _level++;
+        _ruleIndex = 0;
+        _subset = null;
+        continue;
+      }
+      if (_subset == null) {
+        if (_variables.get(_ruleIndex).size() < _level) {
+          _ruleIndex++;
+          continue;
+        }
+        _subset = new int[_level];
+        for (int i = 0; i < _level; i++) _subset[i] = i;
+      }
+      else if (_choice != null && nextChoice()) return createRule();
+      else if (!nextSubset()) {
+        _ruleIndex++;
+        _subset = null;
+        continue;
+      }
+      if (firstChoice()) return createRule();
+      _choice = null;
+    }
+    return null;
+  }
+
+  /** Moves to the next set of _level variables of the current rule; returns false if there is none. */
+  private boolean nextSubset() {
+    int n = _variables.get(_ruleIndex).size();
+    int k = _subset.length;
+    int i = k - 1;
+    while (i >= 0 && _subset[i] == n - k + i) i--;
+    if (i < 0) return false;
+    _subset[i]++;
+    for (int j = i + 1; j < k; j++) _subset[j] = _subset[j - 1] + 1;
+    return true;
+  }
+
+  /** Chooses the first left-hand side for each variable in the subset; returns false if a variable has none. */
+  private boolean firstChoice() {
+    List<List<Term>> candidates = _candidates.get(_ruleIndex);
+    for (int index : _subset) {
+      if (candidates.get(index).isEmpty()) return false;
+    }
+    _choice = new int[_subset.length];
+    return true;
+  }
+
+  /** Moves to the next choice of left-hand sides for the subset; returns false if there is none. */
+  private boolean nextChoice() {
+    List<List<Term>> candidates = _candidates.get(_ruleIndex);
+    for (int i = _choice.length - 1; i >= 0; i--) {
+      _choice[i]++;
+      if (_choice[i] < candidates.get(_subset[i]).size()) return true;
+      _choice[i] = 0;
+    }
+    return false;
+  }
+
+  /** Returns the current rule with the current choice of left-hand sides substituted. */
+  private Rule createRule() {
+    Rule r = _rules.get(_ruleIndex);
+    List<Variable> variables = _variables.get(_ruleIndex);
+    List<List<Term>> candidates = _candidates.get(_ruleIndex);
+    Subst theta = new Subst();
+    for (int i = 0; i < _subset.length; i++) {
+      int index = _subset[i];
+      theta.extend(variables.get(index), _makeFresh.apply(candidates.get(index).get(_choice[i])));
+    }
+    return new FirstOrderRule(r.queryLeftSide().substitute(theta), r.queryRightSide().substitute(theta));
+  }
+}
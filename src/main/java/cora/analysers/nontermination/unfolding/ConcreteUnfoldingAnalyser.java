@@ -11,6 +11,7 @@ import cora.interfaces.terms.Position;
 import cora.interfaces.terms.Substitution;
 import cora.interfaces.terms.Term;
 import cora.rewriting.FirstOrderRule;
+import cora.terms.flat.FlatTerm;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,8 +21,6 @@ import java.util.List;
  * of Term Rewriting Systems Using an Unfolding Operator" by Etienne Payet. Adapted to work for many-sorted TRSs.
  */
 public class ConcreteUnfoldingAnalyser extends UnfoldingAnalyser {
-  private boolean _augmentTrs;
-
   /**
    * Constructor for a concrete unfolding analyzer using a TRS.
    */
@@ -34,32 +33,73 @@ public class ConcreteUnfoldingAnalyser extends UnfoldingAnalyser {
     _augmentTrs = augmentTrs;
   }
 
+  /**
+   * Creates a concrete unfolding analyzer for the TRS of the given session; use
+   * AnalysisSession.createConcreteUnfolder.
+   */
+  ConcreteUnfoldingAnalyser(AnalysisSession session, int maxUnfoldings, SemiUnifier semiUnifier, boolean augmentTrs) {
+    super(session.queryTRS(), maxUnfoldings, semiUnifier);
+    joinSession(session);
+    _augmentTrs = augmentTrs;
+  }
+
   /**
    * Concrete unfolding function according to the definition of the paper.
    */
   private List<UnfoldedRule> unfold(List<UnfoldedRule> rewriteRules) {
+    return expandFrontier(rewriteRules, this::unfold, r -> false);
+  }
+
+  /**
+   * The concrete unfolding operator applied to a single rule of the frontier.
+   */
+  private List<UnfoldedRule> unfold(UnfoldedRule xr) { // l -> r IN X
     List<UnfoldedRule> result = new ArrayList<>();
-    for (UnfoldedRule xr : rewriteRules) { // l -> r IN X
-      Term rightSide = xr.getRule().queryRightSide();
-      for (Position p : rightSide.queryAllPositions()) {
-        if (rightSide.querySubterm(p).queryTermKind() != Term.TermKind.VARTERM) { // p IN NPos(r)
-          for (int i = 0; i < _trs.queryRuleCount(); i++) {
-            Rule rr = _trs.queryRule(i);
-            if (rr.queryRightSide().queryType().equals(rightSide.querySubterm(p).queryType())) { // l' -> r' IN R renamed with fresh variables
-              Rule lr = makeVariablesFresh(rr);
-              Substitution theta = rightSide.querySubterm(p).unify(lr.queryLeftSide()); // θ IN mgu(r|p, l')
-              if (theta != null) {
-                Rule newRule = new FirstOrderRule(xr.getRule().queryLeftSide().substitute(theta), rightSide.replaceSubterm(p, lr.queryRightSide()).substitute(theta));
-                result.add(new UnfoldedRule(xr, p, lr, theta, newRule)); // (l -> r[p <- r'])θ
-              }
-            }
+    Term rightSide = xr.getRule().queryRightSide();
+    FlatTerm flatRightSide = flatten(rightSide);
+    int[] indexes = flatRightSide.queryPostOrder(); // in the order of visitSubterms
+    int[] k = new int[1];
+    rightSide.visitSubterms((subterm, path) -> {
+      int index = indexes[k[0]++];
+      checkExpansion();
+      if (flatRightSide.isVariable(index)) return true; // p IN NPos(r)
+      Position p = null;
+      for (Rule rr : _trs.queryCandidateRules(subterm)) { // only rules that might unify
+        checkExpansion();
+        if (rr.queryRightSide().queryType().equals(subterm.queryType()) &&
+            unifiesWithLeftSide(flatRightSide, index, rr)) { // l' -> r' IN R renamed with fresh variables
+          Rule lr = makeVariablesFresh(rr);
+          Substitution theta = subterm.unify(lr.queryLeftSide()); // θ IN mgu(r|p, l')
+          if (theta != null) {
+            if (p == null) p = path.toPosition();
+            Rule newRule = new FirstOrderRule(xr.getRule().queryLeftSide().substitute(theta), rightSide.replaceSubterm(p, lr.queryRightSide()).substitute(theta));
+            result.add(new UnfoldedRule(xr, p, lr, theta, newRule)); // (l -> r[p <- r'])θ
+            queryCancellationToken().countRules(1);
           }
         }
       }
-    }
+      return true;
+    });
     return result;
   }
 
+  /**
+   * Checks if the left side of the given rule semi-unifies with a non-variable subterm of its right side.
+   * Returns a singleton list with the corresponding result if so, and an empty list otherwise.
+   */
+  private List<Result> findSemiUnifier(UnfoldedRule r) {
+    List<Result> found = new ArrayList<>(1);
+    r.getRule().queryRightSide().visitSubterms((subterm, path) -> {
+      checkExpansion();
+      if (subterm.queryTermKind() == Term.TermKind.VARTERM) return true;
+      var result = _semiUnifier.semiUnify(r.getRule().queryLeftSide(), subterm, queryCancellationToken());
+      if (!result.isSuccess()) return true;
+      found.add(new UnfoldsResult(r.getRule().queryLeftSide(), subterm, result.getRho(), result.getSigma(), r.toString()));
+      return false;
+    });
+    return found;
+  }
+
   /**
    * Concrete unfolding operator function used FOR TESTING PURPOSES ONLY!
    */
@@ -71,30 +111,63 @@ public class ConcreteUnfoldingAnalyser extends UnfoldingAnalyser {
     return result;
   }
 
+  /** Returns the result for the first rule in the given list that semi-unifies, or null if there is none. */
+  private Result firstSemiUnifier(List<UnfoldedRule> rules) {
+    List<Result> found = expandFrontier(rules, this::findSemiUnifier, r -> true);
+    return found.isEmpty() ? null : found.get(0);
+  }
+
+  /** Wraps the given starting rules for the analysis. */
+  private List<UnfoldedRule> startingElements(List<Rule> rules) {
+    List<UnfoldedRule> result = new ArrayList<>();
+    for (Rule r : rules) result.add(new UnfoldedRule(r));
+    return result;
+  }
+
+  @Override
+  public String queryTechnique() {
+    return "concreteUnfolding";
+  }
+
   /**
    * Concrete unfolding analyzer
    */
   @Override
-  protected Result analyze() {
-    TRS startingRules = _augmentTrs ? createAugmentedTRS(_trs) : _trs;
-    List<Rule> rules = getRulesFromTRS(startingRules);
-
-    List<UnfoldedRule> unfoldedRules = new ArrayList<>();
-    for (Rule r : rules) {
-      unfoldedRules.add(new UnfoldedRule(r));
+  protected Result analyzeUnfolding() {
+    if (isBestFirst()) {
+      return searchBestFirst(startingRules(_augmentTrs), r -> List.of(new UnfoldedRule(r)), UnfoldedRule::getRule,
+                             r -> unfold(r), r -> {
+                               List<Result> found = findSemiUnifier(r);
+                               return found.isEmpty() ? null : found.get(0);
+                             });
     }
-    for (int i = 0; i < _maximumUnfoldings; i++) {
-      for (UnfoldedRule r : unfoldedRules) {
-        for (Position p : r.getRule().queryRightSide().queryAllPositions()) {
-          if (r.getRule().queryRightSide().querySubterm(p).queryTermKind() != Term.TermKind.VARTERM) {
-            var result = _semiUnifier.semiUnify(r.getRule().queryLeftSide(), r.getRule().queryRightSide().querySubterm(p));
-            if (result.isSuccess()) {
-              return new UnfoldsResult(r.getRule().queryLeftSide(), r.getRule().queryRightSide().querySubterm(p), result.getRho(), result.getSigma(), r.toString());
-            }
-          }
-        }
+    if (_maximumUnfoldings <= 0) return new MaybeResult();
+    VariantRuleSet explored = startExploring();
+    UnfoldingFrontier resumed = queryResumedFrontier();
+    List<UnfoldedRule> unfoldedRules = new ArrayList<>();
+    int start = 1;
+    if (resumed != null) {
+      start = resumed.queryIterations();
+      if (resumed.queryElements() != null) {
+        for (Object element : resumed.queryElements()) unfoldedRules.add((UnfoldedRule)element);
+      }
+      else {
+        for (Rule r : resumed.queryRules()) unfoldedRules.add(new UnfoldedRule(r));
       }
-      unfoldedRules = unfold(unfoldedRules);
+    }
+    else {
+      // the starting rules are checked and unfolded in batches while they are generated
+      Result result = unfoldStartingRules(startingRules(_augmentTrs), this::startingElements, this::firstSemiUnifier,
+                                          UnfoldedRule::getRule, this::unfold, r -> false, explored, unfoldedRules);
+      if (result != null) return result;
+      recordFrontier(1, unfoldedRules, UnfoldedRule::getRule, explored);
+      if (unfoldedRules.isEmpty()) return new MaybeResult();
+    }
+    for (int i = start; i < _maximumUnfoldings; i++) {
+      Result result = firstSemiUnifier(unfoldedRules);
+      if (result != null) return result;
+      unfoldedRules = unfold(removeExplored(unfoldedRules, UnfoldedRule::getRule, explored));
+      recordFrontier(i + 1, unfoldedRules, UnfoldedRule::getRule, explored);
       if (unfoldedRules.isEmpty()) break;
     }
     return new MaybeResult();
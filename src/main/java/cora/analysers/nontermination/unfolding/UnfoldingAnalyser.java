@@ -1,7 +1,8 @@
 package cora.analysers.nontermination.unfolding;
 
-import com.google.common.collect.*;
 import cora.analysers.InterruptableAnalyzer;
+import cora.analysers.results.MaybeResult;
+import cora.interfaces.analyzers.Result;
 import cora.interfaces.analyzers.SemiUnifier;
 import cora.interfaces.rewriting.Rule;
 import cora.interfaces.rewriting.TRS;
@@ -10,10 +11,16 @@ import cora.interfaces.types.Type;
 import cora.rewriting.FirstOrderRule;
 import cora.rewriting.TermRewritingSystem;
 import cora.terms.*;
+import cora.terms.flat.FlatTerm;
+import cora.terms.flat.SymbolTable;
 
 import java.util.*;
-
-import static com.google.common.collect.Sets.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Abstract class for an unfolding analyzer, to be used in both the concrete and abstract analysers.
@@ -24,11 +31,396 @@ public abstract class UnfoldingAnalyser extends InterruptableAnalyzer
   TRS _trs;
   int _maximumUnfoldings;
   SemiUnifier _semiUnifier;
+  boolean _augmentTrs;
+  FreshVariableSupply _freshVariables;
+  private int _threads;
+  private boolean _pruneSubsumed;
+  private volatile List<Integer> _prunedCounts; // may be read while a timed out analysis is still running
+  private int _augmentDepth;
+  private int _augmentLimit;
+  private SymbolTable _symbolTable;
+  private Map<Rule, FlatTerm> _flatLeftSides;
+  private AnalysisSession _session;
+  private volatile Supplier<UnfoldingFrontier> _frontier; // may be read while a timed out analysis is still running
+  private UnfoldingFrontier _resumeFrom;
+  private UnfoldingHeuristic _heuristic;
+  private long _searchBudget;
+  private ForkJoinPool _workers;
+  private final ThreadLocal<BooleanSupplier> _abandoned = new ThreadLocal<>();
+
+  static final int GENERATION_BATCH_SIZE = 256;
+
+  /** Thrown by checkExpansion to stop an expansion of expandFrontier whose result would be thrown away. */
+  private static class ExpansionAbandoned extends RuntimeException {
+    ExpansionAbandoned() {
+      super(null, null, false, false);
+    }
+  }
+
+  private static final ExpansionAbandoned ABANDONED = new ExpansionAbandoned();
 
   protected UnfoldingAnalyser(TRS trs, int maximumUnfoldings, SemiUnifier semiUnifier) {
     _maximumUnfoldings = maximumUnfoldings;
     _trs = trs;
     _semiUnifier = semiUnifier;
+    _freshVariables = new VarSupply();
+    _threads = 1;
+    _pruneSubsumed = false;
+    _prunedCounts = new CopyOnWriteArrayList<>();
+    _augmentDepth = -1;
+    _augmentLimit = -1;
+    _symbolTable = new SymbolTable();
+    _flatLeftSides = new ConcurrentHashMap<>();
+    _session = null;
+    _augmentTrs = false;
+    _frontier = null;
+    _resumeFrom = null;
+    _heuristic = null;
+    _searchBudget = -1;
+  }
+
+  /**
+   * Makes this analyser (created for the TRS of the given session) share the structures of the session, that is, the
+   * augmented rules and the flattened left-hand sides, with the other analysers of that session.
+   */
+  void joinSession(AnalysisSession session) {
+    _symbolTable = session.querySymbolTable();
+    _flatLeftSides = session.queryFlatLeftSides();
+    _session = session;
+  }
+
+  /** Returns the flattening of t, which can be compared with the flattened left-hand sides of the rules. */
+  FlatTerm flatten(Term t) {
+    return new FlatTerm(t, _symbolTable);
+  }
+
+  /**
+   * Returns whether the subterm at the given index of the flat term might unify with a fresh variant of the left-hand
+   * side of rule; this is decided on the flat terms, so no fresh rule needs to be created if it does not.
+   */
+  boolean unifiesWithLeftSide(FlatTerm t, int index, Rule rule) {
+    FlatTerm left = _flatLeftSides.computeIfAbsent(rule, r -> flatten(r.queryLeftSide()));
+    return FlatTerm.unifiableApart(t, index, left, 0);
+  }
+
+  /**
+   * Runs the analysis of the subclass (see analyzeUnfolding).  The worker pool that expandFrontier creates for a
+   * parallel analysis is kept for the whole analysis, and shut down when it ends.
+   */
+  @Override
+  protected final Result analyze() {
+    try {
+      return analyzeUnfolding();
+    } finally {
+      if (_workers != null) _workers.shutdownNow();
+      _workers = null;
+    }
+  }
+
+  /** The actual analysis, which is done by analyze(). */
+  protected abstract Result analyzeUnfolding();
+
+  /** Returns the semi-unifier used by this analyser. */
+  public SemiUnifier querySemiUnifier() {
+    return _semiUnifier;
+  }
+
+  /**
+   * Sets the number of threads used to unfold and check the rules of the frontier; with 1 thread (the default)
+   * everything is done sequentially.  The result of the analysis does not depend on the number of threads.
+   */
+  public void setThreads(int threads) {
+    _threads = Math.max(1, threads);
+  }
+
+  /**
+   * Sets whether rules which are instances of an already explored rule are pruned before unfolding.
+   * Rules which are variants of an already explored rule are always pruned.
+   */
+  public void setPruneSubsumed(boolean pruneSubsumed) {
+    _pruneSubsumed = pruneSubsumed;
+  }
+
+  /**
+   * Limits the augmented TRS to rules where at most depth variables are substituted, and to at most limit rules in
+   * total; -1 means no limit.  The rules with fewer substituted variables are kept, so the original rules come first.
+   */
+  public void setAugmentationLimits(int depth, int limit) {
+    _augmentDepth = depth;
+    _augmentLimit = limit;
+  }
+
+  /**
+   * Returns, for each iteration of the last analysis, how many rules were pruned before unfolding because they
+   * were variants (or instances) of rules that were explored before.
+   */
+  public List<Integer> queryPrunedCounts() {
+    return new ArrayList<>(_prunedCounts);
+  }
+
+  /**
+   * Makes the analysis search best-first with the given heuristic instead of breadth-first (or breadth-first again
+   * if heuristic is null).  A best-first search keeps all rules that were generated but not yet unfolded in a priority
+   * queue, and always unfolds the rule with the lowest score next; every generated rule is checked as soon as it is
+   * generated.  The search is not limited by the maximum number of unfoldings, but stops (with a MaybeResult) after
+   * generating budget rules; -1 means no budget.  A best-first search is sequential, and has no frontier to resume.
+   */
+  public void setSearch(UnfoldingHeuristic heuristic, long budget) {
+    _heuristic = heuristic;
+    _searchBudget = budget;
+  }
+
+  /** Returns whether the analysis searches best-first rather than breadth-first. */
+  boolean isBestFirst() {
+    return _heuristic != null;
+  }
+
+  /** An element of the queue of a best-first search, with the number of unfoldings it took to obtain it. */
+  private static class QueuedRule<T> {
+    private T _item;
+    private int _depth;
+    private double _score;
+    private long _order;
+
+    QueuedRule(T item, int depth, double score, long order) {
+      _item = item;
+      _depth = depth;
+      _score = score;
+      _order = order;
+    }
+  }
+
+  /**
+   * Runs a best-first search (see setSearch) from the starting rules.  Each starting rule is first converted by
+   * prepare (for instance, abstracted) into the elements to search from; every element is checked with check, which
+   * returns the result if the element proves non-termination and null otherwise, and then queued.  The queued
+   * element with the lowest score is unfolded with expand, unless its rule was explored before.
+   * If pruneSubsumed is set, a rule is also skipped if it is an instance of an explored rule.
+   */
+  <T> Result searchBestFirst(Iterator<Rule> startingRules, Function<Rule, List<T>> prepare, Function<T, Rule> getRule,
+                             Function<T, List<T>> expand, Function<T, Result> check) {
+    VariantRuleSet explored = new VariantRuleSet(_pruneSubsumed);
+    _prunedCounts = new CopyOnWriteArrayList<>();
+    _frontier = null;
+    PriorityQueue<QueuedRule<T>> queue = new PriorityQueue<>(
+      Comparator.<QueuedRule<T>>comparingDouble(q -> q._score).thenComparingLong(q -> q._order));
+    long generated = 0;
+    _prunedCounts.add(0); // a best-first search has no iterations, so all pruned rules are counted together
+    while (startingRules.hasNext()) {
+      checkCancelled();
+      queryCancellationToken().countRules(1);
+      for (T item : prepare.apply(startingRules.next())) {
+        Result result = check.apply(item);
+        if (result != null) return result;
+        queue.add(new QueuedRule<>(item, 0, _heuristic.score(getRule.apply(item), 0), generated++));
+      }
+    }
+    while (!queue.isEmpty() && (_searchBudget < 0 || generated < _searchBudget)) {
+      checkCancelled();
+      QueuedRule<T> next = queue.poll();
+      if (!explored.add(getRule.apply(next._item))) {
+        _prunedCounts.set(0, _prunedCounts.get(0) + 1);
+        continue;
+      }
+      for (T item : expand.apply(next._item)) {
+        Result result = check.apply(item);
+        if (result != null) return result;
+        int depth = next._depth + 1;
+        queue.add(new QueuedRule<>(item, depth, _heuristic.score(getRule.apply(item), depth), generated++));
+      }
+    }
+    return new MaybeResult();
+  }
+
+  /** Returns the name of the technique of this analyser, which identifies the frontiers it can resume from. */
+  public String queryTechnique() {
+    return getClass().getSimpleName();
+  }
+
+  /**
+   * Returns the frontier after the last completed iteration of the last analysis (or the frontier it resumed from,
+   * if it did not complete any), or null if there is none; it is not set if the analysis found a result before
+   * unfolding.  The frontier is built when it is asked for, so an analysis does not pay for it otherwise.
+   */
+  public UnfoldingFrontier queryFrontier() {
+    Supplier<UnfoldingFrontier> frontier = _frontier;
+    return frontier == null ? null : frontier.get();
+  }
+
+  /**
+   * Makes the next analyses continue from the given frontier rather than from the starting rules (or start from
+   * scratch again if frontier is null).  The frontier must have been computed by an analyser of the same technique
+   * with the same settings for augmentation and pruning, so this should be called after those settings are set.
+   * @throws IllegalArgumentException if the frontier was computed with different settings
+   */
+  public void resumeFrom(UnfoldingFrontier frontier) {
+    String settings = UnfoldingFrontier.describeSettings(queryTechnique(), _augmentTrs, _augmentDepth, _augmentLimit,
+                                                         _pruneSubsumed);
+    if (frontier != null && !frontier.querySettings().equals(settings)) {
+      throw new IllegalArgumentException("Cannot resume from a frontier with settings " + frontier.querySettings() +
+        " in an analyser with settings " + settings + ".");
+    }
+    _resumeFrom = frontier;
+  }
+
+  /** Returns the frontier that the analysis continues from, or null if it starts from scratch. */
+  UnfoldingFrontier queryResumedFrontier() {
+    return _resumeFrom;
+  }
+
+  /**
+   * Creates the set of explored rules to be used by an analysis, and resets the pruning counters; if the analysis
+   * resumes from a frontier, the explored rules and pruning counters of that frontier are restored.
+   */
+  VariantRuleSet startExploring() {
+    VariantRuleSet explored = new VariantRuleSet(_pruneSubsumed);
+    _prunedCounts = new CopyOnWriteArrayList<>();
+    UnfoldingFrontier resumed = _resumeFrom;
+    _frontier = resumed == null ? null : () -> resumed;
+    if (_resumeFrom != null) {
+      for (Rule rule : _resumeFrom.queryExplored()) explored.add(rule);
+      _prunedCounts.addAll(_resumeFrom.queryPrunedCounts());
+    }
+    return explored;
+  }
+
+  /**
+   * Records the frontier after the given number of completed iterations, which consists of the given elements (which
+   * must not be changed afterwards).  Nothing is copied: the explored rules and pruning counts only grow, so it
+   * suffices to remember how many there are now, and queryFrontier builds the frontier from them when needed.
+   */
+  <T> void recordFrontier(int iterations, List<T> elements, Function<T, Rule> getRule, VariantRuleSet explored) {
+    List<Integer> prunedCounts = _prunedCounts;
+    int prunedSize = prunedCounts.size();
+    int exploredSize = explored.size();
+    _frontier = () -> {
+      List<Rule> rules = new ArrayList<>();
+      for (T element : elements) rules.add(getRule.apply(element));
+      return new UnfoldingFrontier(queryTechnique(), _augmentTrs, _pruneSubsumed, _augmentDepth, _augmentLimit,
+                                   iterations, new ArrayList<>(prunedCounts).subList(0, prunedSize),
+                                   explored.queryRules(exploredSize), rules, elements);
+    };
+  }
+
+  /**
+   * Removes from the given rules those which have already been explored, adds the remaining ones to the explored
+   * set, and records how many rules were pruned in this iteration.
+   */
+  <T> List<T> removeExplored(List<T> rules, Function<T, Rule> getRule, VariantRuleSet explored) {
+    _prunedCounts.add(0);
+    return removeMoreExplored(rules, getRule, explored);
+  }
+
+  /**
+   * Like removeExplored, for more rules of the same iteration: the rules that are pruned are added to the count of
+   * the last iteration.
+   */
+  private <T> List<T> removeMoreExplored(List<T> rules, Function<T, Rule> getRule, VariantRuleSet explored) {
+    List<T> result = new ArrayList<>();
+    for (T r : rules) {
+      if (explored.add(getRule.apply(r))) result.add(r);
+    }
+    int last = _prunedCounts.size() - 1;
+    _prunedCounts.set(last, _prunedCounts.get(last) + rules.size() - result.size());
+    return result;
+  }
+
+  /**
+   * Performs the first unfolding iteration on the starting rules while they are generated, so the starting rules are
+   * never all in memory at the same time.  Every batch (see nextBatch) is converted by prepare, and checked with check,
+   * which returns the result proving non-termination for the first element that has one, or null; then its elements
+   * that were not explored before are unfolded with unfold, and added to unfolded.  Once an unfolded element is a
+   * solution, the remaining batches are only checked.
+   * Returns the result of the first starting rule that passes the check, or null if there is none; the unfolded rules
+   * and pruning counts are the same as those of checking all starting rules first and unfolding them afterwards.
+   */
+  <S, T> Result unfoldStartingRules(Iterator<Rule> startingRules, Function<List<Rule>, List<S>> prepare,
+                                    Function<List<S>, Result> check, Function<S, Rule> getRule,
+                                    Function<List<S>, List<T>> unfold, Predicate<T> isSolution,
+                                    VariantRuleSet explored, List<T> unfolded) {
+    _prunedCounts.add(0);
+    boolean solved = false;
+    while (startingRules.hasNext()) {
+      List<S> batch = prepare.apply(nextBatch(startingRules));
+      Result result = check.apply(batch);
+      if (result != null) return result;
+      if (solved) continue;
+      List<T> expansion = unfold.apply(removeMoreExplored(batch, getRule, explored));
+      unfolded.addAll(expansion);
+      solved = expansion.stream().anyMatch(isSolution);
+    }
+    return null;
+  }
+
+  /**
+   * Expands every element of the frontier with the given function, and returns the concatenation of the expansions
+   * in frontier order.  The expansion of an element is expected to end at its first solution (if any); the elements
+   * after the first one whose expansion contains a solution are not expanded, so the result is exactly that of a
+   * sequential loop which stops as soon as it finds a solution.
+   * If more than one thread is used, the elements are expanded in parallel on a ForkJoinPool, which is created once and
+   * kept until the analysis ends.  As soon as a solution is found the workers skip all elements after it, and the
+   * expansions of those elements that are still running stop at their next checkExpansion.
+   */
+  <S, T> List<T> expandFrontier(List<S> frontier, Function<S, List<T>> expand, Predicate<T> isSolution) {
+    List<T> result = new ArrayList<>();
+    if (_threads <= 1 || frontier.size() <= 1) {
+      for (S s : frontier) {
+        checkCancelled();
+        List<T> expansion = expand.apply(s);
+        result.addAll(expansion);
+        if (expansion.stream().anyMatch(isSolution)) break;
+      }
+      return result;
+    }
+
+    if (_workers == null) _workers = new ForkJoinPool(_threads);
+    AtomicInteger firstSolution = new AtomicInteger(frontier.size());
+    List<Future<List<T>>> futures = new ArrayList<>();
+    for (int i = 0; i < frontier.size(); i++) {
+      int index = i;
+      futures.add(_workers.submit(() -> {
+        if (index > firstSolution.get()) return null; // an earlier element already has a solution
+        _abandoned.set(() -> index > firstSolution.get());
+        try {
+          List<T> expansion = expand.apply(frontier.get(index));
+          if (expansion.stream().anyMatch(isSolution)) firstSolution.accumulateAndGet(index, Math::min);
+          return expansion;
+        } catch (ExpansionAbandoned ex) {
+          return null;
+        } finally {
+          _abandoned.remove();
+        }
+      }));
+    }
+    try {
+      for (Future<List<T>> future : futures) { // an expansion is only skipped if an earlier one has a solution
+        List<T> expansion = future.get();
+        result.addAll(expansion);
+        if (expansion.stream().anyMatch(isSolution)) break;
+      }
+      return result;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Unfolding was interrupted.");
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) throw (RuntimeException)ex.getCause();
+      if (ex.getCause() instanceof Error) throw (Error)ex.getCause();
+      throw new IllegalStateException(ex.getCause());
+    } finally {
+      firstSolution.set(-1); // makes any remaining workers skip (or stop expanding) their element
+      for (Future<List<T>> future : futures) future.cancel(false);
+    }
+  }
+
+  /**
+   * Throws an AnalysisCancelledError if the analysis has to stop.  Inside a parallel expansion of expandFrontier, it
+   * also stops the expansion if an earlier element of the frontier has a solution, since its result is not used then.
+   * The expansions call this between candidate rules.
+   */
+  void checkExpansion() {
+    checkCancelled();
+    BooleanSupplier abandoned = _abandoned.get();
+    if (abandoned != null && abandoned.getAsBoolean()) throw ABANDONED;
   }
 
   /**
@@ -38,42 +430,48 @@ public abstract class UnfoldingAnalyser extends InterruptableAnalyzer
    * {x1, ..., xn} SUBSETEQ Var(l) for each i IN [1, n]
    * ti is a variant of a left side in R and variable disjoint from l and from tj, j IN [1, n]\ {i}
    * θ can be empty
+   * If limits were set with setAugmentationLimits, only the rules within those limits are included.
    * @return the augmented TRS R+ from the given TRS R
    */
   TRS createAugmentedTRS(TRS trs) {
-    List<Term> leftHandTerms = getLeftHandTerms(trs);
     ArrayList<Rule> rules = new ArrayList<>();
-    for (Rule r : getRulesFromTRS(trs)) {
-      Term leftHandSide = r.queryLeftSide();
-
-      Set<Variable> varsInTerm = new HashSet<>();
-      leftHandSide.vars().forEach(varsInTerm::add);
-
-      for (Set<Variable> set : powerSet(varsInTerm)) {
-        Set<List<Object>> result = Sets.cartesianProduct(set, newLinkedHashSet(leftHandTerms));
-        for (List<Object> subst : createSubstitutions(result)) {
-          Substitution theta = new Subst();
-          boolean typesMatch = true;
-          for (Object mapping : subst) {
-            List<Object> tuple = (List<Object>)mapping;
-            Variable v = (Variable)tuple.get(0);
-            Term t = (Term)tuple.get(1);
-            if (!v.queryType().equals(t.queryType())) {
-              typesMatch = false;
-              break; // type checking
-            }
-            theta.extend(v, makeVariablesFresh(t));
-          }
-          if (typesMatch) {
-            rules.add(new FirstOrderRule(leftHandSide.substitute(theta), r.queryRightSide().substitute(theta)));
-          }
-        }
-      }
-    }
-
+    augmentedRules(trs).forEachRemaining(r -> {
+      checkCancelled();
+      rules.add(r);
+    });
     return new TermRewritingSystem(trs.getAlphabet(), rules);
   }
 
+  /**
+   * Returns the rules of the augmented TRS R+ one at a time, as they are generated; see createAugmentedTRS.
+   */
+  Iterator<Rule> augmentedRules(TRS trs) {
+    return new AugmentedRuleGenerator(getRulesFromTRS(trs), getLeftHandTerms(trs), this::makeVariablesFresh,
+                                      _augmentDepth, _augmentLimit);
+  }
+
+  /**
+   * Returns the rules to start the analysis with: those of the augmented TRS if augment is true, otherwise _trs.
+   * Analysers of a session share the augmented rules, which are then generated only once.
+   */
+  Iterator<Rule> startingRules(boolean augment) {
+    if (augment && _session != null) return _session.augmentedRules(_augmentDepth, _augmentLimit);
+    return augment ? augmentedRules(_trs) : getRulesFromTRS(_trs).iterator();
+  }
+
+  /**
+   * Returns the next (at most GENERATION_BATCH_SIZE) starting rules.  The analysers check and unfold the starting rules
+   * in such batches while they are generated, so the whole augmented TRS is never built.
+   */
+  List<Rule> nextBatch(Iterator<Rule> startingRules) {
+    List<Rule> batch = new ArrayList<>();
+    while (batch.size() < GENERATION_BATCH_SIZE && startingRules.hasNext()) {
+      batch.add(startingRules.next());
+      queryCancellationToken().countRules(1);
+    }
+    return batch;
+  }
+
   /**
    * Public declaration to create an augmented TRS.
    * FOR TESTING PURPOSES ONLY!!
@@ -86,9 +484,16 @@ public abstract class UnfoldingAnalyser extends InterruptableAnalyzer
    * Make variables fresh in a term.
    */
   private Term makeVariablesFresh(Term t) {
+    return makeVariablesFresh(t, _freshVariables);
+  }
+
+  /**
+   * Make variables fresh in a term, taking the new variables from the given supply.
+   */
+  static Term makeVariablesFresh(Term t, FreshVariableSupply freshVariables) {
     Substitution theta = new Subst();
     for (Variable v : t.vars()) {
-      theta.extend(v, createFreshVariable(v.queryType(), v.queryName()));
+      theta.extend(v, freshVariables.createFreshVariable(v.queryName(), v.queryType()));
     }
     return t.substitute(theta);
   }
@@ -104,43 +509,27 @@ public abstract class UnfoldingAnalyser extends InterruptableAnalyzer
     return new FirstOrderRule(lp, rp);
   }
 
-  /**
-   * Helper function for the augmented trs creator.
-   * It takes an input shaped as: [[x, f(x, x)], [x, f(1, x)], [y, f(x, x)], [y, f(1, x)]]
-   * and creates an output such that every combination of variables is created for substitutions:
-   * [[[x, f(x, x)], [y, f(x, x)]], [[x, f(x, x)], [y, f(1, x)]], [[x, f(1, x)], [y, f(x, x)]],
-   *  [[x, f(1, x)], [y, f(1, x)]]]
-   */
-  private Set<List<Object>> createSubstitutions(Set<List<Object>> cartesianProduct) {
-    Set<Variable> variables = new HashSet<>();
-    cartesianProduct.forEach(tuple -> variables.add((Variable)tuple.get(0)));
-    List<Set<List<Object>>> sets = new ArrayList<>();
-    for (Variable v : variables) {
-      Set<List<Object>> vList = filter(cartesianProduct, tuple -> {
-        assert tuple != null;
-        return tuple.get(0).equals(v);
-      });
-      sets.add(vList);
-    }
-    return Sets.cartesianProduct(sets);
-  }
-
   /**
    * Get all left hand sides of a TRS, if two left hand sides are modulo renamings of only variables, only one is
    * given back.
    */
-  private List<Term> getLeftHandTerms(TRS trs) {
+  static List<Term> getLeftHandTerms(TRS trs) {
     List<Term> leftHandTerms = new ArrayList<>();
+    Map<Integer, List<Term>> termsByShape = new HashMap<>();
     for (Rule r : getRulesFromTRS(trs)) {
       Term toConsider = r.queryLeftSide();
+      List<Term> candidates = termsByShape.computeIfAbsent(toConsider.queryShapeHash(), k -> new ArrayList<>());
       boolean alreadyIn = false;
-      for (Term t : leftHandTerms) {
+      for (Term t : candidates) { // only terms with the same shape hash can be variants
         if (t.match(toConsider) != null && toConsider.match(t) != null) {
           alreadyIn = true;
           break;
         }
       }
-      if (!alreadyIn) leftHandTerms.add(toConsider);
+      if (!alreadyIn) {
+        candidates.add(toConsider);
+        leftHandTerms.add(toConsider);
+      }
     }
     return leftHandTerms;
   }
@@ -148,14 +537,14 @@ public abstract class UnfoldingAnalyser extends InterruptableAnalyzer
   /**
    * Create a fresh variable given a type and a name
    */
-  Var createFreshVariable(Type varType, String name) {
-    return new Var(String.format("%s'", name), varType);
+  Variable createFreshVariable(Type varType, String name) {
+    return _freshVariables.createFreshVariable(name, varType);
   }
 
   /**
    * Get all rules from a TRS
    */
-  List<Rule> getRulesFromTRS(TRS trs) {
+  static List<Rule> getRulesFromTRS(TRS trs) {
     List<Rule> result = new ArrayList<>();
     for (int i = 0; i < trs.queryRuleCount(); i++) {
       result.add(trs.queryRule(i));
@@ -0,0 +1,262 @@
+package cora.analysers.nontermination.unfolding;
+
+import cora.analysers.ResultCache;
+import cora.interfaces.rewriting.Rule;
+import cora.interfaces.rewriting.TRS;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.interfaces.types.Type;
+import cora.rewriting.FirstOrderRule;
+import cora.terms.FunctionalTerm;
+import cora.terms.Var;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * An UnfoldingFrontier is the state of an unfolding analysis after a number of completed iterations: the rules that
+ * the next iteration checks and unfolds, the rules that were explored so far, and the pruning statistics.  An
+ * unfolding analyser given a frontier (see UnfoldingAnalyser.resumeFrom) continues from it, so increasing the number
+ * of unfoldings only costs the additional iterations; the result is the same as that of an analysis from scratch.
+ *
+ * A frontier can be written to a checkpoint file and read back for the same TRS.  The rules are stored without the
+ * way they were derived, so the deduction of a result found after resuming from a file starts at the checkpoint.
+ */
+public class UnfoldingFrontier {
+  private static final String HEADER = "unfolding-frontier 1";
+
+  private String _technique;
+  private boolean _augmentTrs;
+  private boolean _pruneSubsumed;
+  private int _augmentDepth;
+  private int _augmentLimit;
+  private int _iterations;
+  private List<Integer> _prunedCounts;
+  private List<Rule> _explored;
+  private List<Rule> _rules;
+  private List<?> _elements;
+
+  /**
+   * Creates a frontier; elements are the analyser's own representation of the rules (or null), which is used
+   * instead of the rules when the frontier is resumed in the same process.
+   */
+  UnfoldingFrontier(String technique, boolean augmentTrs, boolean pruneSubsumed, int augmentDepth, int augmentLimit,
+                    int iterations, List<Integer> prunedCounts, List<Rule> explored, List<Rule> rules,
+                    List<?> elements) {
+    _technique = technique;
+    _augmentTrs = augmentTrs;
+    _pruneSubsumed = pruneSubsumed;
+    _augmentDepth = augmentDepth;
+    _augmentLimit = augmentLimit;
+    _iterations = iterations;
+    _prunedCounts = List.copyOf(prunedCounts);
+    _explored = List.copyOf(explored);
+    _rules = List.copyOf(rules);
+    _elements = elements == null ? null : List.copyOf(elements);
+  }
+
+  /** Returns the number of unfolding iterations that were completed to reach this frontier. */
+  public int queryIterations() {
+    return _iterations;
+  }
+
+  /** Returns the rules that the next iteration checks and unfolds. */
+  public List<Rule> queryRules() {
+    return _rules;
+  }
+
+  /** Returns the number of rules explored before this frontier. */
+  public int queryExploredCount() {
+    return _explored.size();
+  }
+
+  /** Returns whether the frontier is empty, so continuing the analysis cannot find anything new. */
+  public boolean isExhausted() {
+    return _rules.isEmpty();
+  }
+
+  /** Returns the technique of the analyser that computed this frontier. */
+  public String queryTechnique() {
+    return _technique;
+  }
+
+  /** Returns a description of the settings that must be the same to resume from this frontier. */
+  String querySettings() {
+    return describeSettings(_technique, _augmentTrs, _augmentDepth, _augmentLimit, _pruneSubsumed);
+  }
+
+  /** Returns a description of the given settings, as stored in a frontier. */
+  static String describeSettings(String technique, boolean augmentTrs, int augmentDepth, int augmentLimit,
+                                 boolean pruneSubsumed) {
+    return technique + ";augmentTrs=" + augmentTrs + ";augmentDepth=" + augmentDepth + ";augmentLimit=" +
+      augmentLimit + ";pruneSubsumed=" + pruneSubsumed;
+  }
+
+  List<Integer> queryPrunedCounts() {
+    return _prunedCounts;
+  }
+
+  List<Rule> queryExplored() {
+    return _explored;
+  }
+
+  /** Returns the analyser's own representation of the rules, or null if the frontier was read from a file. */
+  List<?> queryElements() {
+    return _elements;
+  }
+
+  /** Writes this frontier, computed for the given TRS, to the given file. */
+  public void write(Path file, TRS trs) throws IOException {
+    Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), "frontier", ".tmp");
+    try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+      out.write(HEADER + "\n");
+      out.write("problem " + ResultCache.computeKey(trs, "") + "\n");
+      out.write("settings " + querySettings() + "\n");
+      out.write("iterations " + _iterations + "\n");
+      out.write("pruned " + _prunedCounts.size() + "\n");
+      for (int count : _prunedCounts) out.write(count + "\n");
+      writeRules(out, "explored", _explored);
+      writeRules(out, "frontier", _rules);
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** Reads a frontier for the given TRS from the given file, written by write. */
+  public static UnfoldingFrontier read(Path file, TRS trs) throws IOException {
+    try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      if (!HEADER.equals(in.readLine())) throw new IOException(file + " is not an unfolding checkpoint.");
+      if (!field(in, "problem").equals(ResultCache.computeKey(trs, ""))) {
+        throw new IOException("The checkpoint " + file + " was made for a different problem.");
+      }
+      String[] settings = field(in, "settings").split(";");
+      Map<String, String> values = new HashMap<>();
+      for (int i = 1; i < settings.length; i++) {
+        String[] pair = settings[i].split("=", 2);
+        values.put(pair[0], pair.length == 2 ? pair[1] : "");
+      }
+      try {
+        int iterations = Integer.parseInt(field(in, "iterations"));
+        List<Integer> pruned = new ArrayList<>();
+        for (int i = Integer.parseInt(field(in, "pruned")); i > 0; i--) pruned.add(Integer.parseInt(line(in)));
+        Map<String, FunctionSymbol> symbols = symbolsOf(trs);
+        List<Rule> explored = readRules(in, "explored", symbols);
+        List<Rule> rules = readRules(in, "frontier", symbols);
+        return new UnfoldingFrontier(settings[0], Boolean.parseBoolean(values.get("augmentTrs")),
+                                     Boolean.parseBoolean(values.get("pruneSubsumed")),
+                                     Integer.parseInt(values.get("augmentDepth")),
+                                     Integer.parseInt(values.get("augmentLimit")),
+                                     iterations, pruned, explored, rules, null);
+      } catch (RuntimeException ex) {
+        throw new IOException("The checkpoint " + file + " is damaged: " + ex.getMessage());
+      }
+    }
+  }
+
+  /** Returns the next line of the input, which must exist. */
+  private static String line(BufferedReader in) throws IOException {
+    String line = in.readLine();
+    if (line == null) throw new IOException("Unexpected end of the checkpoint.");
+    return line;
+  }
+
+  /** Reads a line "name value", and returns the value. */
+  private static String field(BufferedReader in, String name) throws IOException {
+    String line = line(in);
+    if (!line.startsWith(name + " ")) throw new IOException("Expected " + name + " in the checkpoint, not: " + line);
+    return line.substring(name.length() + 1);
+  }
+
+  /** Maps the names of the function symbols in the rules of trs to those symbols. */
+  private static Map<String, FunctionSymbol> symbolsOf(TRS trs) {
+    Map<String, FunctionSymbol> symbols = new HashMap<>();
+    for (Rule rule : UnfoldingAnalyser.getRulesFromTRS(trs)) {
+      for (Term side : List.of(rule.queryLeftSide(), rule.queryRightSide())) {
+        side.visitSubterms((subterm, path) -> {
+          if (subterm.queryTermKind() == Term.TermKind.FUNCTIONALTERM) {
+            symbols.put(subterm.queryRoot().queryName(), subterm.queryRoot());
+          }
+          return true;
+        });
+      }
+    }
+    return symbols;
+  }
+
+  /**
+   * Writes the given rules, one per line.  Terms are written in prefix notation as tokens F:name for a function
+   * symbol (its arguments follow) and V:index:name for a variable, with the names URL-encoded.
+   */
+  private static void writeRules(BufferedWriter out, String name, List<Rule> rules) throws IOException {
+    out.write(name + " " + rules.size() + "\n");
+    for (Rule rule : rules) {
+      StringBuilder line = new StringBuilder();
+      Map<Variable, Integer> variables = new HashMap<>();
+      writeTerm(rule.queryLeftSide(), variables, line);
+      writeTerm(rule.queryRightSide(), variables, line);
+      out.write(line.toString().strip() + "\n");
+    }
+  }
+
+  private static void writeTerm(Term t, Map<Variable, Integer> variables, StringBuilder line) {
+    if (t.queryTermKind() == Term.TermKind.VARTERM) {
+      int index = variables.computeIfAbsent(t.queryVariable(), x -> variables.size());
+      line.append("V:").append(index).append(':').append(encode(t.queryVariable().queryName())).append(' ');
+      return;
+    }
+    line.append("F:").append(encode(t.queryRoot().queryName())).append(' ');
+    for (int i = 1; i <= t.numberImmediateSubterms(); i++) writeTerm(t.queryImmediateSubterm(i), variables, line);
+  }
+
+  private static List<Rule> readRules(BufferedReader in, String name, Map<String, FunctionSymbol> symbols)
+    throws IOException {
+    List<Rule> rules = new ArrayList<>();
+    for (int i = Integer.parseInt(field(in, name)); i > 0; i--) {
+      Deque<String> tokens = new ArrayDeque<>(Arrays.asList(line(in).split(" ")));
+      Map<Integer, Variable> variables = new HashMap<>();
+      Term left = readTerm(tokens, null, symbols, variables);
+      Term right = readTerm(tokens, left.queryType(), symbols, variables);
+      if (!tokens.isEmpty()) throw new IOException("Unexpected tokens after a rule: " + tokens);
+      rules.add(new FirstOrderRule(left, right));
+    }
+    return rules;
+  }
+
+  /** Reads a term of the given type (which may only be null if the term is not a variable) from tokens. */
+  private static Term readTerm(Deque<String> tokens, Type type, Map<String, FunctionSymbol> symbols,
+                               Map<Integer, Variable> variables) throws IOException {
+    if (tokens.isEmpty()) throw new IOException("Unexpected end of a rule.");
+    String[] token = tokens.pop().split(":", 3);
+    if (token[0].equals("V") && token.length == 3 && type != null) {
+      int index = Integer.parseInt(token[1]);
+      Variable x = variables.get(index);
+      if (x == null) variables.put(index, x = new Var(decode(token[2]), type));
+      return x;
+    }
+    FunctionSymbol f = token[0].equals("F") && token.length == 2 ? symbols.get(decode(token[1])) : null;
+    if (f == null) throw new IOException("Unknown token in a rule: " + String.join(":", token));
+    ArrayList<Term> args = new ArrayList<>();
+    Type current = f.queryType();
+    for (int i = f.queryType().queryArity(); i > 0; i--) {
+      args.add(readTerm(tokens, current.queryArrowInputType(), symbols, variables));
+      current = current.queryArrowOutputType();
+    }
+    return new FunctionalTerm(f, args);
+  }
+
+  private static String encode(String name) {
+    return URLEncoder.encode(name, StandardCharsets.UTF_8);
+  }
+
+  private static String decode(String name) {
+    return URLDecoder.decode(name, StandardCharsets.UTF_8);
+  }
+}
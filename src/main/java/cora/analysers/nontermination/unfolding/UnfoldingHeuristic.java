@@ -0,0 +1,70 @@
+package cora.analysers.nontermination.unfolding;
+
+import cora.interfaces.rewriting.Rule;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Term;
+
+/**
+ * An UnfoldingHeuristic decides the order in which a best-first unfolding search (see UnfoldingAnalyser.setSearch)
+ * expands its rules: the rule with the lowest score is unfolded first, and rules with the same score are unfolded in
+ * the order in which they were generated.
+ */
+public interface UnfoldingHeuristic {
+  /** Returns the score of a rule that was obtained after the given number of unfoldings. */
+  double score(Rule rule, int depth);
+
+  /** Prefers small rules: the score is the number of subterms of both sides. */
+  UnfoldingHeuristic TERM_SIZE = (rule, depth) -> size(rule.queryLeftSide()) + size(rule.queryRightSide());
+
+  /**
+   * Prefers rules whose sides have about the same size, as the right-hand side of a loop contains an instance of
+   * (a variant of) its left-hand side: the score is the difference between the sizes of the two sides.
+   */
+  UnfoldingHeuristic SIZE_DIFFERENCE =
+    (rule, depth) -> Math.abs(size(rule.queryRightSide()) - size(rule.queryLeftSide()));
+
+  /**
+   * Prefers rules where the root symbol of the left-hand side occurs often in the right-hand side: the score is minus
+   * the fraction of the subterms of the right-hand side with that root symbol (a fraction rather than a number, so
+   * the search does not favour rules that just keep growing).
+   */
+  UnfoldingHeuristic SHARED_ROOTS = (rule, depth) ->
+    -(double)rootOccurrences(rule.queryRightSide(), rule.queryLeftSide().queryRoot()) / size(rule.queryRightSide());
+
+  /** Prefers the rules obtained after the most unfoldings, so the search goes depth-first. */
+  UnfoldingHeuristic DEPTH = (rule, depth) -> -depth;
+
+  /**
+   * Returns the heuristic with the given name: termSize, sizeDifference, sharedRoots or depth; or null if there is
+   * no such heuristic.
+   */
+  static UnfoldingHeuristic fromName(String name) {
+    switch (name) {
+      case "termSize": return TERM_SIZE;
+      case "sizeDifference": return SIZE_DIFFERENCE;
+      case "sharedRoots": return SHARED_ROOTS;
+      case "depth": return DEPTH;
+      default: return null;
+    }
+  }
+
+  /** Returns the number of subterms of t. */
+  static int size(Term t) {
+    int[] count = new int[1];
+    t.visitSubterms((subterm, path) -> {
+      count[0]++;
+      return true;
+    });
+    return count[0];
+  }
+
+  /** Returns the number of subterms of t whose root is f. */
+  static int rootOccurrences(Term t, FunctionSymbol f) {
+    int[] count = new int[1];
+    t.visitSubterms((subterm, path) -> {
+      if (subterm.queryTermKind() == Term.TermKind.FUNCTIONALTERM && subterm.queryRoot().equals(f)) count[0]++;
+      return true;
+    });
+    return count[0];
+  }
+}
@@ -0,0 +1,95 @@
+package cora.analysers.nontermination.unfolding;
+
+import cora.interfaces.rewriting.Rule;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Substitution;
+import cora.terms.Subst;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A VariantRuleSet keeps track of the rules that an unfolding analyser has already explored, modulo renaming of
+ * variables: a rule is only added if no variant of it was added before.
+ * Optionally, a rule is also rejected if it is an instance of a rule that was added before, since everything that
+ * can be derived from such a rule can also be derived (in a more general form) from the rule it is an instance of.
+ * Rules are only added by one thread, but the rules in the set may be queried by another thread at the same time.
+ */
+public class VariantRuleSet {
+  private boolean _pruneSubsumed;
+  private Map<Integer, List<Rule>> _rulesByShape;
+  private Map<FunctionSymbol, List<Rule>> _rulesByRoot;
+  private List<Rule> _rules;
+
+  /**
+   * Creates an empty set; if pruneSubsumed is true then instances of rules in the set are rejected as well as
+   * variants.
+   */
+  public VariantRuleSet(boolean pruneSubsumed) {
+    _pruneSubsumed = pruneSubsumed;
+    _rulesByShape = new HashMap<>();
+    _rulesByRoot = new HashMap<>();
+    _rules = new ArrayList<>();
+  }
+
+  /**
+   * Adds the given rule to the set, unless a variant of it (or a more general rule, if subsumed rules are pruned)
+   * is already in the set.
+   * @return true if the rule was added, false if it was rejected
+   */
+  public boolean add(Rule rule) {
+    int shape = shapeHash(rule);
+    List<Rule> sameShape = _rulesByShape.computeIfAbsent(shape, k -> new ArrayList<>());
+    for (Rule r : sameShape) { // variants of each other always have the same shape hash
+      if (isInstance(r, rule) && isInstance(rule, r)) return false;
+    }
+    FunctionSymbol root = rule.queryLeftSide().queryRoot();
+    if (_pruneSubsumed) {
+      for (Rule r : _rulesByRoot.getOrDefault(root, List.of())) { // a rule and its instances share a root symbol
+        if (isInstance(r, rule)) return false;
+      }
+    }
+    sameShape.add(rule);
+    _rulesByRoot.computeIfAbsent(root, k -> new ArrayList<>()).add(rule);
+    synchronized (_rules) {
+      _rules.add(rule);
+    }
+    return true;
+  }
+
+  /** @return the number of rules in the set */
+  public int size() {
+    return _rules.size();
+  }
+
+  /** @return the rules in the set, in the order in which they were added */
+  public List<Rule> queryRules() {
+    synchronized (_rules) {
+      return new ArrayList<>(_rules);
+    }
+  }
+
+  /** @return the first count rules that were added to the set, in the order in which they were added */
+  public List<Rule> queryRules(int count) {
+    synchronized (_rules) {
+      return new ArrayList<>(_rules.subList(0, count));
+    }
+  }
+
+  /** A hash for the rule that is the same for all its variants. */
+  private int shapeHash(Rule rule) {
+    return 31 * rule.queryLeftSide().queryShapeHash() + rule.queryRightSide().queryShapeHash();
+  }
+
+  /**
+   * Checks if specific is an instance of general; that is, if there is a single substitution gamma such that both
+   * sides of general are mapped by gamma to the corresponding sides of specific.
+   */
+  static boolean isInstance(Rule general, Rule specific) {
+    Substitution gamma = new Subst();
+    return general.queryLeftSide().match(specific.queryLeftSide(), gamma) == null &&
+      general.queryRightSide().match(specific.queryRightSide(), gamma) == null;
+  }
+}
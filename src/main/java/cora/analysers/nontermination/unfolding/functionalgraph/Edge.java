@@ -49,6 +49,18 @@ public class Edge {
     }
   }
 
+  /**
+   * The hash code is consistent with equals: the exact end of the edge is hashed structurally,
+   * while of the other end only its type (for a variable) or its root symbol is used.
+   */
+  @Override
+  public int hashCode() {
+    Term exact = _termToRoot ? _from : _to;
+    Term loose = _termToRoot ? _to : _from;
+    int looseHash = termIsVariable(loose) ? loose.queryType().hashCode() : loose.queryRoot().hashCode();
+    return 31 * (31 * exact.hashCode() + looseHash) + (_termToRoot ? 1 : 0);
+  }
+
   private boolean termIsVariable(Term t) {
     return t instanceof Variable;
   }
@@ -1,17 +1,24 @@
 package cora.analysers.nontermination.unfolding.functionalgraph;
 
+import cora.analysers.CancellationToken;
 import cora.interfaces.rewriting.Rule;
+import cora.interfaces.terms.FreshVariableSupply;
+import cora.interfaces.terms.FunctionSymbol;
 import cora.interfaces.terms.Substitution;
 import cora.interfaces.terms.Term;
 import cora.interfaces.terms.Variable;
 import cora.interfaces.types.Type;
 import cora.terms.Subst;
-import cora.terms.Var;
+import cora.terms.VarSupply;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The functional dependency graph is used in the abstract unfolding analyzer.
@@ -20,20 +27,68 @@ import java.util.Set;
  * variable as a vertex. In the code this is done by creating a variable.
  */
 public class FunctionalDependencyGraph {
+  /** The maximum number of shapes for which results of transitions are remembered. */
+  public static final int TRANSITION_MEMO_CAPACITY = 4096;
+
   private List<Term> _vertices;
   private List<Edge> _edges;
   private List<Rule> _rules;
+  private Set<Term> _vertexSet;
+  private Map<Integer, List<Term>> _verticesByShape;
+  private Set<Edge> _edgeSet;
+  private FreshVariableSupply _freshVariables;
+  private Map<Type, Term> _sortNodes;
+  private Map<FunctionSymbol, List<Term>> _verticesByRoot;
+  private Map<Term, Set<Term>> _reachable;
+  private Map<Term, Set<Type>> _reachableTypes;
+  private LinkedHashMap<List<Object>, List<RememberedTransition>> _transitions;
+  private CancellationToken _cancellation;
+
+  /** A term for which transitions was computed, with the result. */
+  private static class RememberedTransition {
+    private Term _term;
+    private boolean _result;
+
+    RememberedTransition(Term term, boolean result) {
+      _term = term;
+      _result = result;
+    }
+  }
 
   /**
    * Create a FunctionalDependencyGraph using a set of rules.
    */
   public FunctionalDependencyGraph(List<Rule> rules) {
+    this(rules, new VarSupply());
+  }
+
+  /**
+   * Create a FunctionalDependencyGraph using a set of rules, which takes the variables it introduces from the given
+   * supply.
+   */
+  public FunctionalDependencyGraph(List<Rule> rules, FreshVariableSupply freshVariables) {
+    _freshVariables = freshVariables;
     _rules = rules;
     _vertices = new ArrayList<>();
     _edges = new ArrayList<>();
+    _vertexSet = new HashSet<>();
+    _verticesByShape = new HashMap<>();
+    _edgeSet = new HashSet<>();
+    _sortNodes = new HashMap<>();
+    _verticesByRoot = new HashMap<>();
+    _reachable = new HashMap<>();
+    _reachableTypes = new HashMap<>();
+    _transitions = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<List<Object>, List<RememberedTransition>> eldest) {
+        return size() > TRANSITION_MEMO_CAPACITY;
+      }
+    };
+    _cancellation = new CancellationToken();
 
     parseRules();
     createEdges();
+    computeReachability();
   }
 
   /**
@@ -47,16 +102,30 @@ public class FunctionalDependencyGraph {
       if (r.queryRightSide().queryTermKind() == Term.TermKind.VARTERM) to = r.queryRightSide().queryVariable();
       else to = r.queryRightSide().queryRoot();
 
-      boolean exists = false;
-      for (Term t : _vertices) {
-        if (isModuloRenaming(t, r.queryLeftSide())) exists = true;
-      }
-      if (!exists) _vertices.add(r.queryLeftSide());
-      Edge newEdge = new Edge(r.queryLeftSide(), to, true);
-      if (!_edges.contains(newEdge)) _edges.add(newEdge);
+      addVertex(r.queryLeftSide());
+      addEdge(new Edge(r.queryLeftSide(), to, true));
     }
   }
 
+  /**
+   * Adds the given term as a vertex, unless a variant of it is already a vertex.  Only vertices
+   * with the same shape hash can be variants, so only those are compared.
+   */
+  private void addVertex(Term t) {
+    List<Term> candidates = _verticesByShape.computeIfAbsent(t.queryShapeHash(), k -> new ArrayList<>());
+    for (Term v : candidates) {
+      if (isModuloRenaming(v, t)) return;
+    }
+    candidates.add(t);
+    _vertices.add(t);
+    _vertexSet.add(t);
+  }
+
+  /** Adds the given edge, unless an equal edge already exists. */
+  private void addEdge(Edge e) {
+    if (_edgeSet.add(e)) _edges.add(e);
+  }
+
   /**
    * Check if two terms are modulo renaming of variables of one another.
    */
@@ -72,50 +141,76 @@ public class FunctionalDependencyGraph {
    *   if f not in vertices and g not in vertices:
    *     if root(l') = f OR f = type(l):
    *       add edge from f -> l'
+   * To avoid comparing all pairs of edges, the candidates for l' -> g are first indexed by the root and the type of l'.
    */
   private void createEdges() {
-    for (int i = 0; i < _edges.size(); i++) {
-      Edge ltof = _edges.get(i);
-      for (int j = 0; j < _edges.size(); j++) {
-        Edge lptog = _edges.get(j);
-
-        if (_vertices.contains(ltof.getFrom()) && _vertices.contains(lptog.getFrom()) &&
-          !_vertices.contains(ltof.getTo()) && !_vertices.contains(lptog.getTo()) &&
-          ltof.isTermToRootEdge() && lptog.isTermToRootEdge()) {
-
-          if ((ltof.getTo().queryTermKind() == Term.TermKind.VARTERM && lptog.getFrom().queryType().equals(ltof.getTo().queryType())) ||
-            (ltof.getTo().queryTermKind() != Term.TermKind.VARTERM && lptog.getFrom().queryRoot().equals(ltof.getTo().queryRoot()))) {
-            Edge newEdge = new Edge(ltof.getTo(), lptog.getFrom(), false);
-            if (!_edges.contains(newEdge)) _edges.add(newEdge);
-          }
-        }
+    List<Edge> initial = new ArrayList<>();
+    Map<FunctionSymbol, List<Edge>> byRoot = new HashMap<>();
+    Map<Type, List<Edge>> byType = new HashMap<>();
+    for (Edge e : _edges) {
+      if (_vertexSet.contains(e.getFrom()) && !_vertexSet.contains(e.getTo()) && e.isTermToRootEdge()) {
+        initial.add(e);
+        byRoot.computeIfAbsent(e.getFrom().queryRoot(), k -> new ArrayList<>()).add(e);
+        byType.computeIfAbsent(e.getFrom().queryType(), k -> new ArrayList<>()).add(e);
       }
     }
+    for (Edge ltof : initial) {
+      List<Edge> candidates;
+      if (ltof.getTo().queryTermKind() == Term.TermKind.VARTERM) candidates = byType.get(ltof.getTo().queryType());
+      else candidates = byRoot.get(ltof.getTo().queryRoot());
+      if (candidates == null) continue;
+      for (Edge lptog : candidates) addEdge(new Edge(ltof.getTo(), lptog.getFrom(), false));
+    }
   }
 
   /**
-   * Checks if a path exists from a term to a function symbol or a variable.
+   * Returns the node of the graph that the given end of an edge stands for.  A variable stands for its type, so all
+   * variables of the same type are represented by the same node.
    */
-  private boolean pathExists(Term t, Term g, Set<Term> visitedTerms) {
+  private Term node(Term t) {
+    if (t.queryTermKind() != Term.TermKind.VARTERM) return t;
+    return _sortNodes.computeIfAbsent(t.queryType(), k -> t);
+  }
+
+  /**
+   * Third step: compute for every vertex which function symbols, vertices and types can be reached from it by a
+   * non-empty path (the vertex itself excluded), so pathExists is a single lookup.
+   */
+  private void computeReachability() {
+    Map<Term, List<Term>> successors = new HashMap<>();
     for (Edge e : _edges) {
-      if (e.getFrom().equals(t) && !visitedTerms.contains(e.getTo())) {
-        if (g.queryTermKind() == Term.TermKind.VARTERM && e.getTo().queryTermKind() == Term.TermKind.VARTERM &&
-          g.queryType().equals(e.getTo().queryType())) return true;
-        if (g.queryTermKind() != Term.TermKind.VARTERM && g.equals(e.getTo())) return true;
-        Set<Term> newVisited = new HashSet<>(visitedTerms);
-        newVisited.add(e.getFrom());
-        if (pathExists(e.getTo(), g, newVisited)) return true;
+      successors.computeIfAbsent(node(e.getFrom()), k -> new ArrayList<>()).add(node(e.getTo()));
+    }
+    for (Term v : _vertices) {
+      Set<Term> reached = new HashSet<>();
+      Set<Type> reachedTypes = new HashSet<>();
+      ArrayList<Term> todo = new ArrayList<>();
+      todo.add(v);
+      while (!todo.isEmpty()) {
+        Term current = todo.remove(todo.size() - 1);
+        for (Term next : successors.getOrDefault(current, List.of())) {
+          if (!reached.add(next)) continue;
+          if (next.queryTermKind() == Term.TermKind.VARTERM) reachedTypes.add(next.queryType());
+          todo.add(next);
+        }
       }
+      reached.remove(v);
+      _reachable.put(v, reached);
+      _reachableTypes.put(v, reachedTypes);
+      _verticesByRoot.computeIfAbsent(v.queryRoot(), k -> new ArrayList<>()).add(v);
     }
-    return false;
   }
 
   /**
-   * Wrapper function for pathExists.
+   * Checks if a path exists from a vertex to a function symbol or a variable (that is, to the type of the variable).
    */
   private boolean pathExists(Term t, Term g) {
-    if (!_vertices.contains(t)) return false;
-    return pathExists(t, g, new HashSet<>());
+    if (g.queryTermKind() == Term.TermKind.VARTERM) {
+      Set<Type> types = _reachableTypes.get(t);
+      return types != null && types.contains(g.queryType());
+    }
+    Set<Term> reached = _reachable.get(t);
+    return reached != null && reached.contains(g);
   }
 
   /**
@@ -126,29 +221,71 @@ public class FunctionalDependencyGraph {
    *   - mgu(t_i, s_i renamed with fresh vars) != null
    *   - t_i ->+Gr root(s_i)
    *   - t_i ->+Gr type(t_i)
+   * Since only the type of a variable g matters, and the result does not change if the variables of t are renamed,
+   * results are remembered per term modulo renaming and function symbol or type.  The terms of the unfolded rules use
+   * fresh variables all the time, so remembering them exactly would hardly ever give a hit.  The results are kept for
+   * at most TRANSITION_MEMO_CAPACITY shapes; the least recently used shape is forgotten first.
    */
   public boolean transitions(Term t, Term g) {
-    for (Term v : _vertices) {
-      if (v.queryRoot().equals(t.queryRoot())) {
-        if (pathExists(v, g)) {
-          boolean valid = true;
-          for (int i = 0; i < t.numberImmediateSubterms(); i++) {
-            Term tSubTerm = t.queryImmediateSubterm(i + 1);
-            Term vSubTerm = v.queryImmediateSubterm(i + 1);
-            if (tSubTerm.unify(makeVariablesFresh(vSubTerm)) == null &&
-              !transitions(tSubTerm, vSubTerm.queryTermKind() == Term.TermKind.VARTERM ? vSubTerm.queryVariable() : vSubTerm.queryRoot()) &&
-              !transitions(tSubTerm, createFreshVariable(vSubTerm.queryType(), "sigma"))) {
-              valid = false;
-              break;
-            }
+    return transitions(t, g, _cancellation);
+  }
+
+  /**
+   * Implements the transition relation as transitions(t, g) does, but checks the given token rather than the one set
+   * with setCancellationToken; this way, several analyses can share the graph (and its remembered results).
+   */
+  public boolean transitions(Term t, Term g, CancellationToken cancellation) {
+    // variants have the same shape hash, so only terms with that hash are compared (as in addVertex)
+    List<Object> key = List.of(t.queryShapeHash(), g.queryTermKind() == Term.TermKind.VARTERM ? g.queryType() : g);
+    List<RememberedTransition> candidates;
+    synchronized (_transitions) {
+      candidates = _transitions.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+    }
+    for (RememberedTransition remembered : candidates) {
+      if (isModuloRenaming(remembered._term, t)) return remembered._result;
+    }
+    boolean result = computeTransitions(t, g, cancellation);
+    candidates.add(new RememberedTransition(t, result));
+    return result;
+  }
+
+  /** Returns the number of results of transitions that are remembered. */
+  public int queryRememberedTransitions() {
+    int count = 0;
+    synchronized (_transitions) {
+      for (List<RememberedTransition> candidates : _transitions.values()) count += candidates.size();
+    }
+    return count;
+  }
+
+  /** Helper function for transitions, which does the actual work. */
+  private boolean computeTransitions(Term t, Term g, CancellationToken cancellation) {
+    if (t.queryTermKind() == Term.TermKind.VARTERM) return false;
+    for (Term v : _verticesByRoot.getOrDefault(t.queryRoot(), List.of())) {
+      cancellation.check();
+      if (pathExists(v, g)) {
+        boolean valid = true;
+        for (int i = 0; i < t.numberImmediateSubterms(); i++) {
+          Term tSubTerm = t.queryImmediateSubterm(i + 1);
+          Term vSubTerm = v.queryImmediateSubterm(i + 1);
+          if (tSubTerm.unify(makeVariablesFresh(vSubTerm)) == null &&
+            !transitions(tSubTerm, vSubTerm.queryTermKind() == Term.TermKind.VARTERM ? vSubTerm.queryVariable() : vSubTerm.queryRoot(), cancellation) &&
+            !transitions(tSubTerm, createFreshVariable(vSubTerm.queryType(), "sigma"), cancellation)) {
+            valid = false;
+            break;
           }
-          if (valid) return true;
         }
+        if (valid) return true;
       }
     }
     return false;
   }
 
+  /** Sets the token that is checked while computing transitions, so a long computation can be cancelled. */
+  public void setCancellationToken(CancellationToken cancellation) {
+    _cancellation = cancellation;
+  }
+
   /**
    * Make variables fresh in a term.
    */
@@ -163,8 +300,8 @@ public class FunctionalDependencyGraph {
   /**
    * Create a new fresh variable with a type and name.
    */
-  private Var createFreshVariable(Type varType, String name) {
-    return new Var(String.format("%s'", name), varType);
+  private Variable createFreshVariable(Type varType, String name) {
+    return _freshVariables.createFreshVariable(name, varType);
   }
 
   public List<Edge> getEdges() { return _edges; }
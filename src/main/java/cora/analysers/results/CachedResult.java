@@ -0,0 +1,51 @@
+package cora.analysers.results;
+
+import cora.interfaces.analyzers.Result;
+
+/**
+ * The CachedResult is a result that was read back from a ResultCache: it has the result type and deduction of the
+ * original analysis, and remembers how long that analysis took.
+ */
+public class CachedResult implements Result {
+  private ResultType _type;
+  private String _deduction;
+  private long _originalTime;
+  private long _timeTaken;
+
+  /** Creates a CachedResult for an analysis with the given outcome, which took originalTime milliseconds. */
+  public CachedResult(ResultType type, String deduction, long originalTime) {
+    _type = type;
+    _deduction = deduction;
+    _originalTime = originalTime;
+    _timeTaken = originalTime;
+  }
+
+  /** @return the result type of the original analysis */
+  @Override
+  public ResultType getResultType() {
+    return _type;
+  }
+
+  /** @return the deduction of the original analysis */
+  @Override
+  public String getDeduction() {
+    return _deduction;
+  }
+
+  /** @return the time (in millis) the original analysis took */
+  public long queryOriginalTime() {
+    return _originalTime;
+  }
+
+  /** Set the time taken by the analyzer */
+  @Override
+  public void setAnalyzerTime(long timeTaken) {
+    _timeTaken = timeTaken;
+  }
+
+  /** @return the time taken by the analyzer in millis */
+  @Override
+  public long getAnalyzerTime() {
+    return _timeTaken;
+  }
+}
@@ -0,0 +1,43 @@
+package cora.analysers.results;
+
+import cora.interfaces.analyzers.Result;
+
+/**
+ * The LimitResult is returned by an InterruptableAnalyzer when the analysis was stopped because it reached one of its
+ * resource limits (on the number of generated rules or on memory), rather than letting it run out of memory.
+ */
+public class LimitResult implements Result {
+  private String _reason;
+  private long _rules;
+  private long _timeTaken;
+
+  /** Creates a LimitResult for the given reason, after the given number of rules was generated. */
+  public LimitResult(String reason, long rules) {
+    _reason = reason;
+    _rules = rules;
+  }
+
+  /** @return ResultType.LIMIT */
+  @Override
+  public ResultType getResultType() {
+    return ResultType.LIMIT;
+  }
+
+  /** @return a string informing which limit was reached */
+  @Override
+  public String getDeduction() {
+    return "The analysis was stopped because " + _reason + ", after generating " + _rules + " rules.";
+  }
+
+  /** Set the time taken by the analyzer */
+  @Override
+  public void setAnalyzerTime(long timeTaken) {
+    _timeTaken = timeTaken;
+  }
+
+  /** @return the time taken by the analyzer in millis */
+  @Override
+  public long getAnalyzerTime() {
+    return _timeTaken;
+  }
+}
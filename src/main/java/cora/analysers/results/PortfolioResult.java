@@ -0,0 +1,79 @@
+package cora.analysers.results;
+
+import cora.interfaces.analyzers.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The PortfolioResult is the result of a PortfolioAnalyser: the result of the winning strategy (or a MaybeResult if no
+ * strategy proved non-termination), together with the outcome and elapsed time of every strategy.
+ */
+public class PortfolioResult implements Result {
+  private Result _result;
+  private String _winner;
+  private List<String> _strategies;
+  private List<String> _outcomes;
+  private long[] _times;
+  private long _timeTaken;
+
+  /**
+   * Creates a PortfolioResult; winner is the name of the strategy whose result is given, or null if no strategy
+   * proved non-termination.  The outcomes and times are given in the order of the strategies.
+   */
+  public PortfolioResult(Result result, String winner, List<String> strategies, List<String> outcomes, long[] times) {
+    _result = result;
+    _winner = winner;
+    _strategies = new ArrayList<>(strategies);
+    _outcomes = new ArrayList<>(outcomes);
+    _times = times.clone();
+  }
+
+  /** @return the result type of the winning strategy, or MAYBE */
+  @Override
+  public ResultType getResultType() {
+    return _result.getResultType();
+  }
+
+  /** @return the deduction of the winning strategy, followed by the outcome and time of every strategy */
+  @Override
+  public String getDeduction() {
+    StringBuilder result = new StringBuilder();
+    if (_winner != null) result.append("Strategy ").append(_winner).append(" proved non-termination:\n");
+    result.append(_result.getDeduction());
+    result.append("\nStrategies:");
+    for (int i = 0; i < _strategies.size(); i++) {
+      result.append("\n  ").append(_strategies.get(i)).append(": ").append(_outcomes.get(i))
+            .append(" after ").append(_times[i]).append("ms");
+    }
+    return result.toString();
+  }
+
+  /** @return the result of the winning strategy, or a MaybeResult if there is none */
+  public Result queryResult() {
+    return _result;
+  }
+
+  /** @return the name of the strategy that proved non-termination, or null if none did */
+  public String queryWinner() {
+    return _winner;
+  }
+
+  /** @return the time (in millis) the strategy with the given name ran, or -1 if there is no such strategy */
+  public long queryStrategyTime(String strategy) {
+    int index = _strategies.indexOf(strategy);
+    return index < 0 ? -1 : _times[index];
+  }
+
+  /** Set the time taken by the analyzer */
+  @Override
+  public void setAnalyzerTime(long timeTaken) {
+    _timeTaken = timeTaken;
+  }
+
+  /** @return the time taken by the analyzer in millis */
+  @Override
+  public long getAnalyzerTime() {
+    return _timeTaken;
+  }
+}
@@ -7,11 +7,18 @@ import cora.interfaces.analyzers.Result;
  * been reached.
  */
 public class TimeoutResult implements Result {
-  private int _timeout;
+  private long _timeout; // in millis
 
   /** Constructor to create a TimeoutResult using the timeout in seconds as argument */
   public TimeoutResult(int timeout) {
-    _timeout = timeout;
+    _timeout = timeout * 1000L;
+  }
+
+  /** Creates a TimeoutResult using the timeout in milliseconds */
+  public static TimeoutResult fromMillis(long timeout) {
+    TimeoutResult result = new TimeoutResult(0);
+    result._timeout = timeout;
+    return result;
   }
 
   /** @return ResultType.TIMEOUT */
@@ -23,7 +30,10 @@ public class TimeoutResult implements Result {
   /** @return string informing that the analyzer took too long */
   @Override
   public String getDeduction() {
-    return String.format("Analyzer did not finish in the given timeframe of %d seconds", _timeout);
+    if (_timeout % 1000 == 0) {
+      return String.format("Analyzer did not finish in the given timeframe of %d seconds", _timeout / 1000);
+    }
+    return String.format("Analyzer did not finish in the given timeframe of %d milliseconds", _timeout);
   }
 
   /** Throws an error as you should never be wanting to set the analyzer time of a timeout result */
@@ -35,6 +45,6 @@ public class TimeoutResult implements Result {
   /** @return the timeout in millis */
   @Override
   public long getAnalyzerTime() {
-    return _timeout * 1000;
+    return _timeout;
   }
 }
@@ -0,0 +1,12 @@
+package cora.exceptions;
+
+/**
+ * An AnalysisCancelledError is thrown from inside an analysis when its CancellationToken has been cancelled, either
+ * because the analysis timed out or was interrupted, or because it reached one of its resource limits.  It unwinds
+ * the analysis, and is caught by the InterruptableAnalyzer that started it.
+ */
+public class AnalysisCancelledError extends Error {
+  public AnalysisCancelledError(String reason) {
+    super("Analysis cancelled: " + reason + ".");
+  }
+}
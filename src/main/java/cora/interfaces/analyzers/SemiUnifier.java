@@ -1,5 +1,6 @@
 package cora.interfaces.analyzers;
 
+import cora.analysers.CancellationToken;
 import cora.analysers.general.semiunification.SemiUnificationResult;
 import cora.interfaces.terms.Term;
 
@@ -14,4 +15,13 @@ public interface SemiUnifier {
    * @return true if the two given terms semi-unify.
   */
   SemiUnificationResult semiUnify(Term s, Term t);
+
+  /**
+   * Checks if the given two terms semi-unify, giving up with an AnalysisCancelledError once the token is cancelled.
+   * Semi-unifiers whose search may take long should override this to check the token while they work.
+   */
+  default SemiUnificationResult semiUnify(Term s, Term t, CancellationToken token) {
+    token.check();
+    return semiUnify(s, t);
+  }
 }
@@ -19,6 +19,8 @@ import cora.interfaces.terms.FunctionSymbol;
 import cora.interfaces.terms.Term;
 import cora.interfaces.terms.Position;
 
+import java.util.List;
+
 /**
  * A TRS (term rewriting system) is an abstract rewriting system based on a set of rules.
  * It is key to rewriting, and it is that which we analyse for various properties.
@@ -30,6 +32,17 @@ public interface TRS {
   /** For 0 <= index < queryRuleCount(), this returns one of the rules in the system. */
   Rule queryRule(int index);
 
+  /**
+   * Returns, in the order of queryRule, the rules whose left-hand side might unify with (or match)
+   * the given term; all other rules certainly do not.
+   */
+  List<Rule> queryCandidateRules(Term t);
+
+  /**
+   * Returns, in the order of queryRule, all rules that can be applied to s at the given position.
+   */
+  List<Rule> queryApplicableRules(Term s, Position pos);
+
   /**
    * Returns the FunctionSymbol associated to the given name in this TRS, if there is a unique
    * one.
@@ -0,0 +1,18 @@
+package cora.interfaces.terms;
+
+import cora.interfaces.types.Type;
+
+/**
+ * A FreshVariableSupply creates variables that are guaranteed to be distinct from all variables
+ * created before, also when it is used by several threads at the same time.
+ */
+public interface FreshVariableSupply {
+  /** Returns a new variable with exactly the given name and type. */
+  Variable createVariable(String name, Type type);
+
+  /**
+   * Returns a new variable of the given type whose name is a primed version of the given name.
+   * Names do not grow when a variable is renamed repeatedly: both x and x' give rise to x'.
+   */
+  Variable createFreshVariable(String name, Type type);
+}
@@ -0,0 +1,13 @@
+package cora.interfaces.terms;
+
+import cora.terms.positions.PositionPath;
+
+/**
+ * A SubtermVisitor is called by Term.visitSubterms for every subterm of a term, together with its position.
+ * The path is updated in place during the traversal, so it should be converted with toPosition() if it is needed
+ * after the visit.
+ */
+public interface SubtermVisitor {
+  /** Visits the subterm at the given path; returns false to stop the traversal. */
+  boolean visit(Term subterm, PositionPath path);
+}
@@ -70,6 +70,14 @@ public interface Term {
    */
   ArrayList<Position> queryAllPositions();
 
+  /**
+   * Calls the visitor for every subterm with its position, in the same (leftmost innermost)
+   * order as queryAllPositions, until the visitor returns false.  Unlike queryAllPositions, this
+   * does not build a list of positions, and the subterms are given directly.
+   * @return false if the visitor stopped the traversal, true otherwise
+   */
+  boolean visitSubterms(SubtermVisitor visitor);
+
   /** Returns the set of all variables that occur in the current term. */
   Environment vars();
 
@@ -120,6 +128,20 @@ public interface Term {
    */
   boolean equals(Term term);
 
+  /**
+   * Returns a structural hash code for the term, which is consistent with equality: equal terms
+   * have the same hash code.  The hash is computed when the term is created, so this is a
+   * constant-time operation.
+   */
+  int hashCode();
+
+  /**
+   * Returns a hash code that is invariant under renaming of variables: if s and t are variants of
+   * each other (so s = tγ for some type-preserving variable renaming γ), then s and t have the
+   * same shape hash.  Like the hashCode, this is computed when the term is created.
+   */
+  int queryShapeHash();
+
   /**
    * Apply the unification algorithm to the term given another term.
    * @param other the other term.
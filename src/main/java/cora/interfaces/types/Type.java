@@ -36,6 +36,9 @@ public interface Type {
   /** Returns whether the given Type is equal to us. */
   public boolean equals(Type type);
 
+  /** Returns a hash code for the type; types that are equal have the same hash code. */
+  public int hashCode();
+
   /** For σ1 → ,,, → σk → τ, returns k */
   public int queryArity();
   /** For σ1 → ,,, → σk → τ, adds {σ1,,,σk} to the end of answer. */
@@ -0,0 +1,201 @@
+package cora.rewriting;
+
+import cora.interfaces.rewriting.Rule;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.terms.Subst;
+
+import java.util.*;
+
+/**
+ * A MatchingAutomaton matches all left-hand sides of a list of rules against a term at once.
+ * The left-hand sides are compiled into a tree whose edges read the symbols of a term in pre-order, where a variable of
+ * a left-hand side is an edge that skips (and binds) a whole subterm.  A term is matched by walking this tree; the
+ * subterms still to be read and the bound subterms are kept in per-thread arrays, so that a failed match allocates
+ * nothing, and the equality constraints of non-linear left-hand sides are only checked when a rule is reached.
+ * Symbol edges are labelled by a symbol together with its number of arguments, since a symbol may occur with different
+ * numbers of arguments (partially applied) in different left-hand sides.
+ */
+public class MatchingAutomaton {
+  /** A rule that is matched when a state is reached with all subterms read. */
+  private static class Accept {
+    private int _rule;
+    private Variable[] _variables;   // the variable bound by each wildcard, in order
+    private int[] _equalities;       // pairs of wildcards that must be bound to the same term
+  }
+
+  private static class State {
+    private Map<FunctionSymbol, State[]> _symbols = new HashMap<>();   // the successors for each number of arguments
+    private State _wildcard;
+    private List<Accept> _accepting = new ArrayList<>();
+
+    /** Returns the successor for f with n arguments, or null if there is none. */
+    State next(FunctionSymbol f, int n) {
+      State[] successors = _symbols.get(f);
+      return successors == null || n >= successors.length ? null : successors[n];
+    }
+
+    /** Returns the successor for f with n arguments, creating it if there is none yet. */
+    State createNext(FunctionSymbol f, int n) {
+      State[] successors = _symbols.get(f);
+      if (successors == null || n >= successors.length) {
+        successors = successors == null ? new State[n + 1] : Arrays.copyOf(successors, n + 1);
+        _symbols.put(f, successors);
+      }
+      if (successors[n] == null) successors[n] = new State();
+      return successors[n];
+    }
+  }
+
+  /** The space a thread uses to match a term, which is reused for every match. */
+  private class Scratch {
+    private Term[] _pending = new Term[_maxPending];   // the subterms still to be read
+    private Term[] _bound = new Term[_maxBound];       // the subterms bound to wildcards on the current path
+    private Term[] _chosen = new Term[_maxBound];      // the subterms bound for the first matching rule
+    private Accept _accept;                            // the first matching rule
+  }
+
+  private List<Rule> _rules;
+  private State _start;
+  private int _maxPending;
+  private int _maxBound;
+  private ThreadLocal<Scratch> _scratch;
+
+  /** Compiles the left-hand sides of the given rules. */
+  public MatchingAutomaton(List<Rule> rules) {
+    _rules = new ArrayList<>(rules);
+    _start = new State();
+    _maxPending = 1;
+    _maxBound = 0;
+    for (int i = 0; i < _rules.size(); i++) compile(_rules.get(i).queryLeftSide(), i);
+    _scratch = ThreadLocal.withInitial(Scratch::new);
+  }
+
+  /** Adds the paths for the given left-hand side to the tree. */
+  private void compile(Term lhs, int rule) {
+    ArrayList<Term> pending = new ArrayList<>();
+    ArrayList<Variable> variables = new ArrayList<>();
+    ArrayList<Integer> equalities = new ArrayList<>();
+    pending.add(lhs);
+    State state = _start;
+    while (!pending.isEmpty()) {
+      Term t = pending.remove(pending.size() - 1);
+      if (t.queryTermKind() == Term.TermKind.VARTERM) {
+        int earlier = variables.indexOf(t.queryVariable());
+        if (earlier >= 0) {
+          equalities.add(earlier);
+          equalities.add(variables.size());
+        }
+        variables.add(t.queryVariable());
+        if (state._wildcard == null) state._wildcard = new State();
+        state = state._wildcard;
+      }
+      else {
+        state = state.createNext(t.queryRoot(), t.numberImmediateSubterms());
+        for (int i = t.numberImmediateSubterms(); i >= 1; i--) pending.add(t.queryImmediateSubterm(i));
+        _maxPending = Math.max(_maxPending, pending.size());
+      }
+    }
+    Accept accept = new Accept();
+    accept._rule = rule;
+    accept._variables = variables.toArray(new Variable[0]);
+    accept._equalities = new int[equalities.size()];
+    for (int i = 0; i < equalities.size(); i++) accept._equalities[i] = equalities.get(i);
+    state._accepting.add(accept);
+    _maxBound = Math.max(_maxBound, variables.size());
+  }
+
+  /** Returns all rules whose left-hand side matches t, in the order in which they were given. */
+  public List<Rule> queryMatchingRules(Term t) {
+    BitSet found = new BitSet(_rules.size());
+    run(t, found, false);
+    List<Rule> result = new ArrayList<>(found.cardinality());
+    for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) result.add(_rules.get(i));
+    return result;
+  }
+
+  /** Returns whether some rule matches t. */
+  public boolean matches(Term t) {
+    return run(t, null, false) < _rules.size();
+  }
+
+  /**
+   * Rewrites t at the root with the first rule (in the order in which they were given) that matches it, and returns
+   * the result, or null if no rule matches.
+   */
+  public Term reduceAtRoot(Term t) {
+    Scratch scratch = _scratch.get();
+    int rule = run(t, null, true);
+    if (rule == _rules.size()) return null;
+    Subst gamma = new Subst();
+    Variable[] variables = scratch._accept._variables;
+    for (int i = 0; i < variables.length; i++) gamma.extend(variables[i], scratch._chosen[i]);
+    Arrays.fill(scratch._chosen, null);
+    scratch._accept = null;
+    return _rules.get(rule).queryRightSide().substitute(gamma);
+  }
+
+  /**
+   * Matches t, and returns the index of the first matching rule (or the number of rules if there is none).  If found is
+   * given, all matching rules are stored in it.  If keep is true, the bindings for the first matching rule are left in
+   * the scratch space of the current thread; otherwise the scratch space is cleared.
+   */
+  private int run(Term t, BitSet found, boolean keep) {
+    Scratch scratch = _scratch.get();
+    scratch._pending[0] = t;
+    int best = walk(_start, scratch, 1, 0, _rules.size(), found);
+    Arrays.fill(scratch._pending, null);
+    Arrays.fill(scratch._bound, null);
+    if (!keep) {
+      Arrays.fill(scratch._chosen, null);
+      scratch._accept = null;
+    }
+    return best;
+  }
+
+  /**
+   * Continues matching in the given state, where the first top pending terms of the scratch space are the subterms
+   * still to be read (the next one last) and its first numBound bound terms those bound to wildcards so far; best is
+   * the first matching rule so far.
+   */
+  private int walk(State state, Scratch scratch, int top, int numBound, int best, BitSet found) {
+    Term[] pending = scratch._pending;
+    if (top == 0) {
+      for (Accept accept : state._accepting) {
+        if (!consistent(accept, scratch._bound)) continue;
+        if (found != null) found.set(accept._rule);
+        if (accept._rule < best) {
+          best = accept._rule;
+          scratch._accept = accept;
+          System.arraycopy(scratch._bound, 0, scratch._chosen, 0, numBound);
+        }
+      }
+      return best;
+    }
+    Term t = pending[top - 1];
+    if (state._wildcard != null) {
+      scratch._bound[numBound] = t;
+      best = walk(state._wildcard, scratch, top - 1, numBound + 1, best, found);
+      pending[top - 1] = t;
+    }
+    if (t.queryTermKind() != Term.TermKind.VARTERM) {
+      int n = t.numberImmediateSubterms();
+      State next = state.next(t.queryRoot(), n);
+      if (next != null) {
+        for (int i = n; i >= 1; i--) pending[top - 1 + n - i] = t.queryImmediateSubterm(i);
+        best = walk(next, scratch, top - 1 + n, numBound, best, found);
+        pending[top - 1] = t;
+      }
+    }
+    return best;
+  }
+
+  /** Returns whether the wildcards that stand for the same variable of the rule are bound to the same term. */
+  private boolean consistent(Accept accept, Term[] bound) {
+    for (int i = 0; i < accept._equalities.length; i += 2) {
+      if (!bound[accept._equalities[i]].equals(bound[accept._equalities[i + 1]])) return false;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,158 @@
+package cora.rewriting;
+
+import cora.interfaces.terms.Term;
+import cora.terms.FunctionalTerm;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A MemoisingEvaluator computes innermost normal forms like TermRewritingSystem.normalize, but remembers the normal
+ * forms of the ground terms it has evaluated, so that a ground subterm which occurs again (as fib(s^k(0)) does many
+ * times while evaluating fib(s^n(0))) is looked up rather than evaluated again.  Terms are compared structurally.
+ *
+ * The cached normal forms are only meaningful if the system is confluent (otherwise a term may have several normal
+ * forms, and the cache fixes the first one found); evaluation only terminates if the system does.
+ * The cache holds at most a given number of terms; when it is full, the least recently used term is evicted.
+ * It may be used by several threads at the same time.
+ */
+public class MemoisingEvaluator {
+  private TermRewritingSystem _trs;
+  private int _capacity;
+  private LinkedHashMap<Term, Term> _cache;
+  private AtomicLong _hits;
+  private AtomicLong _misses;
+  private AtomicLong _steps;
+
+  /** Creates an evaluator for the given system, which caches the normal forms of at most capacity terms. */
+  public MemoisingEvaluator(TermRewritingSystem trs, int capacity) {
+    _trs = trs;
+    _capacity = capacity;
+    _cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Term, Term> eldest) {
+        return size() > _capacity;
+      }
+    };
+    _hits = new AtomicLong(0);
+    _misses = new AtomicLong(0);
+    _steps = new AtomicLong(0);
+  }
+
+  /** Returns the normal form of s with respect to innermost rewriting. */
+  public Term normalize(Term s) {
+    return normalize(s, -1);
+  }
+
+  /**
+   * Returns the normal form of s with respect to innermost rewriting, or null if it is not reached within maxSteps
+   * rewrite steps (a negative maxSteps means there is no bound).  Steps saved by the cache are not counted.
+   */
+  public Term normalize(Term s, long maxSteps) {
+    return evaluate(s, new long[] { maxSteps }, new boolean[1]);
+  }
+
+  /**
+   * Helper function for normalize: evaluates s with budget[0] steps left (or no bound if it is negative), and sets
+   * ground[0] to whether s is ground.  Returns null if the budget is exhausted.
+   */
+  private Term evaluate(Term s, long[] budget, boolean[] ground) {
+    List<Term> visited = new ArrayList<>();   // the ground terms whose normal form is the result
+    while (true) {
+      if (s.queryTermKind() == Term.TermKind.VARTERM) {
+        ground[0] = false;
+        return s;
+      }
+      Term cached = lookup(s);
+      if (cached != null) {
+        store(visited, cached);
+        ground[0] = true;
+        return cached;
+      }
+      boolean isGround = true;
+      int n = s.numberImmediateSubterms();
+      ArrayList<Term> args = null;
+      for (int i = 1; i <= n; i++) {
+        Term arg = s.queryImmediateSubterm(i);
+        Term nf = evaluate(arg, budget, ground);
+        if (nf == null) return null;
+        isGround = isGround && ground[0];
+        if (nf != arg && args == null) {
+          args = new ArrayList<Term>(n);
+          for (int j = 1; j < i; j++) args.add(s.queryImmediateSubterm(j));
+        }
+        if (args != null) args.add(nf);
+      }
+      if (isGround) visited.add(s);
+      if (args != null) {
+        s = new FunctionalTerm(s.queryRoot(), args);
+        if (isGround) visited.add(s);
+      }
+      Term reduct = _trs.reduceAtRoot(s);
+      if (reduct == null) {
+        store(visited, s);
+        ground[0] = isGround;
+        return s;
+      }
+      if (budget[0] == 0) return null;
+      if (budget[0] > 0) budget[0]--;
+      _steps.incrementAndGet();
+      s = reduct;
+    }
+  }
+
+  /**
+   * Returns the cached normal form of s, or null if there is none.  Only lookups that replace s by a different term
+   * count as hits: finding that a term (such as an argument that was already evaluated) is in normal form saves no
+   * work.
+   */
+  private Term lookup(Term s) {
+    Term result;
+    synchronized (_cache) {
+      result = _cache.get(s);
+    }
+    if (result != null && !result.equals(s)) _hits.incrementAndGet();
+    return result;
+  }
+
+  /** Stores nf as the normal form of all the given terms. */
+  private void store(List<Term> terms, Term nf) {
+    if (terms.isEmpty() || _capacity <= 0) return;
+    _misses.addAndGet(terms.size());
+    synchronized (_cache) {
+      for (Term t : terms) _cache.put(t, nf);
+    }
+  }
+
+  /** Empties the cache (but keeps the statistics). */
+  public void clear() {
+    synchronized (_cache) {
+      _cache.clear();
+    }
+  }
+
+  /** @return the number of terms that were replaced by a (different) normal form found in the cache */
+  public long queryHits() {
+    return _hits.get();
+  }
+
+  /** @return the number of ground terms whose normal form was computed and stored in the cache */
+  public long queryMisses() {
+    return _misses.get();
+  }
+
+  /** @return the number of rewrite steps done (so not counting those saved by the cache) */
+  public long querySteps() {
+    return _steps.get();
+  }
+
+  /** @return the number of terms currently in the cache */
+  public int querySize() {
+    synchronized (_cache) {
+      return _cache.size();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package cora.rewriting;
+
+import cora.interfaces.rewriting.Rule;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Term;
+
+import java.util.*;
+
+/**
+ * A RuleIndex is a discrimination tree over the left-hand sides of a list of rules.  Every left-hand side is stored as
+ * the sequence of its symbols in pre-order, where all variables are replaced by the same wildcard.  Given a term t, the
+ * index quickly finds the rules whose left-hand side might unify with t: those where every position that both terms
+ * have is labelled by the same function symbol with the same number of arguments (a symbol may occur partially applied),
+ * ignoring the subterms below a variable in either term.
+ * This is an over-approximation (non-linear left-hand sides are not taken into account), so the candidates still have
+ * to be unified (or matched), but all other rules certainly do not unify with t, and do not match it.
+ */
+public class RuleIndex {
+  /** A node of the tree, reached by a sequence of symbols and wildcards. */
+  private static class Node {
+    private Map<FunctionSymbol, Node[]> _children = new HashMap<>();   // the children for each number of arguments
+    private Node _wildcard;              // the child for a variable, if any
+    private List<Integer> _rules = new ArrayList<>();   // the rules whose left-hand side ends in this node
+
+    /** Returns the child for f with n arguments, or null if there is none. */
+    Node child(FunctionSymbol f, int n) {
+      Node[] children = _children.get(f);
+      return children == null || n >= children.length ? null : children[n];
+    }
+
+    /** Returns the child for f with n arguments, creating it if there is none yet. */
+    Node createChild(FunctionSymbol f, int n) {
+      Node[] children = _children.get(f);
+      if (children == null || n >= children.length) {
+        children = children == null ? new Node[n + 1] : Arrays.copyOf(children, n + 1);
+        _children.put(f, children);
+      }
+      if (children[n] == null) children[n] = new Node();
+      return children[n];
+    }
+  }
+
+  private List<Rule> _rules;
+  private Node _root;
+
+  /** Creates the index for the given rules. */
+  public RuleIndex(List<Rule> rules) {
+    _rules = new ArrayList<>(rules);
+    _root = new Node();
+    for (int i = 0; i < _rules.size(); i++) insert(_rules.get(i).queryLeftSide(), i);
+  }
+
+  /** Adds the term as the left-hand side of the given rule. */
+  private void insert(Term lhs, int rule) {
+    ArrayList<Term> todo = new ArrayList<>();
+    todo.add(lhs);
+    Node node = _root;
+    while (!todo.isEmpty()) {
+      Term t = todo.remove(todo.size() - 1);
+      if (t.queryTermKind() == Term.TermKind.VARTERM) {
+        if (node._wildcard == null) node._wildcard = new Node();
+        node = node._wildcard;
+      }
+      else {
+        node = node.createChild(t.queryRoot(), t.numberImmediateSubterms());
+        for (int i = t.numberImmediateSubterms(); i >= 1; i--) todo.add(t.queryImmediateSubterm(i));
+      }
+    }
+    node._rules.add(rule);
+  }
+
+  /** Returns the number of rules in the index. */
+  public int size() {
+    return _rules.size();
+  }
+
+  /**
+   * Returns the rules whose left-hand side might unify with t, in the order in which they were given.
+   */
+  public List<Rule> queryCandidates(Term t) {
+    List<Term> flat = new ArrayList<>();
+    List<Integer> ends = new ArrayList<>();
+    flatten(t, flat, ends);
+    BitSet found = new BitSet(_rules.size());
+    retrieve(_root, flat, ends, 0, found);
+    List<Rule> result = new ArrayList<>(found.cardinality());
+    for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) result.add(_rules.get(i));
+    return result;
+  }
+
+  /**
+   * Stores the subterms of t in pre-order in flat, and for each of them the index in flat just after its last
+   * subterm in ends.
+   */
+  private void flatten(Term t, List<Term> flat, List<Integer> ends) {
+    int index = flat.size();
+    flat.add(t);
+    ends.add(0);
+    if (t.queryTermKind() != Term.TermKind.VARTERM) {
+      for (int i = 1; i <= t.numberImmediateSubterms(); i++) flatten(t.queryImmediateSubterm(i), flat, ends);
+    }
+    ends.set(index, flat.size());
+  }
+
+  /** Adds all rules below node that are compatible with the part of the query from position i to found. */
+  private void retrieve(Node node, List<Term> flat, List<Integer> ends, int i, BitSet found) {
+    if (i == flat.size()) {
+      for (int rule : node._rules) found.set(rule);
+      return;
+    }
+    Term t = flat.get(i);
+    if (t.queryTermKind() == Term.TermKind.VARTERM) {
+      skip(node, 1, flat, ends, i + 1, found);
+      return;
+    }
+    if (node._wildcard != null) retrieve(node._wildcard, flat, ends, ends.get(i), found);
+    Node child = node.child(t.queryRoot(), t.numberImmediateSubterms());
+    if (child != null) retrieve(child, flat, ends, i + 1, found);
+  }
+
+  /** Skips count complete terms in the tree below node (for a variable in the query), and continues at i. */
+  private void skip(Node node, int count, List<Term> flat, List<Integer> ends, int i, BitSet found) {
+    if (count == 0) {
+      retrieve(node, flat, ends, i, found);
+      return;
+    }
+    if (node._wildcard != null) skip(node._wildcard, count - 1, flat, ends, i, found);
+    for (Node[] children : node._children.values()) {
+      for (int n = 0; n < children.length; n++) {
+        if (children[n] != null) skip(children[n], count - 1 + n, flat, ends, i, found);
+      }
+    }
+  }
+}
@@ -25,6 +25,7 @@ import cora.interfaces.terms.Position;
 import cora.interfaces.rewriting.Alphabet;
 import cora.interfaces.rewriting.Rule;
 import cora.interfaces.rewriting.TRS;
+import cora.terms.FunctionalTerm;
 
 /**
  * In the literature, an abstract rewriting system is a pair (A,→), where A is a set of terms and
@@ -35,6 +36,8 @@ import cora.interfaces.rewriting.TRS;
 public class TermRewritingSystem implements TRS {
   private Alphabet _alphabet;
   private ArrayList<Rule> _rules;
+  private RuleIndex _index;
+  private MatchingAutomaton _automaton;
 
   /** Create an TermRewritingSystem with the given alphabet and rules. */
   public TermRewritingSystem(Alphabet alphabet, ArrayList<Rule> rules) {
@@ -48,6 +51,8 @@ public class TermRewritingSystem implements TRS {
 
     _alphabet = alphabet.copy();
     _rules = new ArrayList<Rule>(rules);
+    _index = new RuleIndex(_rules);
+    _automaton = new MatchingAutomaton(_rules);
   }
 
   /** Gives a human-readable representation of the term rewriting system. */
@@ -72,6 +77,22 @@ public class TermRewritingSystem implements TRS {
     return _rules.get(index);
   }
 
+  /**
+   * Returns, in the order of queryRule, the rules whose left-hand side might unify with (or match)
+   * the given term; this uses a discrimination tree over the left-hand sides.
+   */
+  public List<Rule> queryCandidateRules(Term t) {
+    return _index.queryCandidates(t);
+  }
+
+  /**
+   * Returns, in the order of queryRule, all rules that can be applied to s at the given position;
+   * the rules are matched simultaneously by a matching automaton.
+   */
+  public List<Rule> queryApplicableRules(Term s, Position pos) {
+    return _automaton.queryMatchingRules(s.querySubterm(pos));
+  }
+
   /** Returns the corresponding symbol in the underlying alphabet (if any). */
   public FunctionSymbol lookupSymbol(String name) {
     return _alphabet.lookup(name);
@@ -82,15 +103,13 @@ public class TermRewritingSystem implements TRS {
    * position exists.
    */
   public Position leftmostInnermostRedexPosition(Term s) {
-    ArrayList<Position> positions = s.queryAllPositions();
-    for (int i = 0; i < positions.size(); i++) {
-      Position pos = positions.get(i);
-      Term sub = s.querySubterm(pos);
-      for (int j = 0; j < _rules.size(); j++) {
-        if (_rules.get(j).applicable(sub)) return pos;
-      }
-    }
-    return null;
+    Position[] redex = new Position[1];
+    s.visitSubterms((subterm, path) -> {
+      if (!_automaton.matches(subterm)) return true;
+      redex[0] = path.toPosition();
+      return false;
+    });
+    return redex[0];
   }
 
   /** 
@@ -99,11 +118,11 @@ public class TermRewritingSystem implements TRS {
    * If multiple rules match, an arbitrary one is chosen.
    */
   public Term leftmostInnermostReduce(Term s) {
-    ArrayList<Rule> tmp = new ArrayList<Rule>(_rules);
-    Collections.shuffle(tmp);
     Position pos = leftmostInnermostRedexPosition(s);
     if (pos == null) return null;
     Term subterm = s.querySubterm(pos);
+    List<Rule> tmp = _automaton.queryMatchingRules(subterm);
+    Collections.shuffle(tmp);
     for (int j = 0; j < tmp.size(); j++) {
       Term result = tmp.get(j).apply(subterm);
       if (result != null) return s.replaceSubterm(pos, result);
@@ -111,6 +130,70 @@ public class TermRewritingSystem implements TRS {
     return null;
   }
 
+  /**
+   * Returns the normal form of s with respect to innermost rewriting.  If several rules apply at
+   * the same position, the first one is used.  This does not terminate if s has no normal form.
+   */
+  public Term normalize(Term s) {
+    return normalize(s, -1);
+  }
+
+  /**
+   * Returns the normal form of s with respect to innermost rewriting, or null if it is not
+   * reached within maxSteps rewrite steps (a negative maxSteps means there is no bound).
+   *
+   * Unlike repeated calls to leftmostInnermostReduce, this does not start from the root after
+   * every step: the arguments of a term are normalised before its root is considered, and the
+   * subterms that are known to be in normal form (which includes the instantiations of the
+   * variables in a right-hand side) are not scanned again.  Rules are found by the matching
+   * automaton.
+   */
+  public Term normalize(Term s, long maxSteps) {
+    Set<Term> normal = Collections.newSetFromMap(new IdentityHashMap<Term,Boolean>());
+    long[] budget = new long[] { maxSteps };
+    return normalize(s, normal, budget);
+  }
+
+  /**
+   * Helper function for normalize: normalises s, where the terms in normal (compared by
+   * identity) are known to be in normal form, and budget[0] is the number of steps left (or
+   * negative if there is no bound).  Returns null if the budget is exhausted.
+   */
+  private Term normalize(Term s, Set<Term> normal, long[] budget) {
+    while (true) {
+      if (s.queryTermKind() == Term.TermKind.VARTERM || normal.contains(s)) return s;
+      int n = s.numberImmediateSubterms();
+      ArrayList<Term> args = null;
+      for (int i = 1; i <= n; i++) {
+        Term arg = s.queryImmediateSubterm(i);
+        Term nf = normalize(arg, normal, budget);
+        if (nf == null) return null;
+        if (nf != arg && args == null) {
+          args = new ArrayList<Term>(n);
+          for (int j = 1; j < i; j++) args.add(s.queryImmediateSubterm(j));
+        }
+        if (args != null) args.add(nf);
+      }
+      if (args != null) s = new FunctionalTerm(s.queryRoot(), args);
+      Term reduct = reduceAtRoot(s);
+      if (reduct == null) {
+        normal.add(s);
+        return s;
+      }
+      if (budget[0] == 0) return null;
+      if (budget[0] > 0) budget[0]--;
+      s = reduct;
+    }
+  }
+
+  /**
+   * Rewrites s at the root with the first rule that matches it, and returns the result, or null
+   * if no rule matches.
+   */
+  Term reduceAtRoot(Term s) {
+    return _automaton.reduceAtRoot(s);
+  }
+
   /**
    * @return a name that could be used as a fresh variable
    */
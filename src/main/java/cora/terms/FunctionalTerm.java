@@ -39,6 +39,8 @@ public class FunctionalTerm extends TermInherit implements Term {
   private FunctionSymbol _f;
   private ArrayList<Term> _args;
   private Type _outputType;
+  private int _hash;
+  private int _shapeHash;
 
   /**
    * This helper function handles the functionality of all constructors.
@@ -71,6 +73,20 @@ public class FunctionalTerm extends TermInherit implements Term {
     _f = f;
     _args = args;
     _outputType = type;
+    computeHashes();
+  }
+
+  /**
+   * Computes both the structural and the shape hash from the root symbol and the hashes of the
+   * arguments.  Note that f() has the same hashes as the constant f, since they are equal.
+   */
+  private void computeHashes() {
+    _hash = _f.hashCode();
+    _shapeHash = _f.hashCode();
+    for (Term arg : _args) {
+      _hash = 31 * _hash + arg.hashCode();
+      _shapeHash = 31 * _shapeHash + arg.queryShapeHash();
+    }
   }
 
   /**
@@ -111,10 +127,30 @@ public class FunctionalTerm extends TermInherit implements Term {
    * afterwards.
    * Only for features like substitution or simplifications. Be very careful using this!
    */
-  private FunctionalTerm(ArrayList<Term> args, FunctionSymbol f, Type outputType) {
+  FunctionalTerm(ArrayList<Term> args, FunctionSymbol f, Type outputType) {
     _f = f;
     _args = args;
     _outputType = outputType;
+    computeHashes();
+  }
+
+  /**
+   * This constructor does the same as the previous one, but additionally marks the term as
+   * shared by the given factory.  It should only be used by the factory itself.
+   */
+  FunctionalTerm(ArrayList<Term> args, FunctionSymbol f, Type outputType, TermFactory factory) {
+    this(args, f, outputType);
+    setFactory(factory);
+  }
+
+  /**
+   * Creates the term f(args) with the given output type, without any checks; if the current term
+   * is shared, then so is the result.
+   */
+  private Term rebuild(ArrayList<Term> args) {
+    TermFactory factory = queryFactory();
+    if (factory == null) return new FunctionalTerm(args, _f, _outputType);
+    return factory.createUnchecked(_f, args, _outputType);
   }
 
   /** @return FUNCTIONALTERM */
@@ -206,25 +242,32 @@ public class FunctionalTerm extends TermInherit implements Term {
     if (index < 1 || index > _args.size()) {
       throw new IndexingError("FunctionalTerm", "replaceSubterm", toString(), pos.toString());
     }
+    Term sub = _args.get(index-1);
+    Term newsub = sub.replaceSubterm(pos.queryTail(), replacement);
+    if (newsub == sub) return this;
     ArrayList<Term> args = new ArrayList<>(_args);
-    args.set(index-1, args.get(index-1).replaceSubterm(pos.queryTail(), replacement));
-    return new FunctionalTerm(args, _f, _outputType);
+    args.set(index-1, newsub);
+    return rebuild(args);
   }
 
   /** 
    * This method applies the substitution recursively to the arguments and returns the term that
    * results from replacing our old arguments by these substituted ones.
+   * If none of the arguments is changed by the substitution, the current term is returned.
    */
   public Term substitute(Substitution gamma) {
     ArrayList<Term> args = new ArrayList<>(_args);
+    boolean changed = false;
     for (int i = 0; i < args.size(); i++) {
       Term t = args.get(i).substitute(gamma);
       if (t == null) {
         throw new Error("Substituting " + args.get(i).toString() + " results in null!");
       }   
+      if (t != args.get(i)) changed = true;
       args.set(i, t); 
     }
-    return new FunctionalTerm(args, _f, _outputType);
+    if (!changed) return this;
+    return rebuild(args);
   }
 
   /** 
@@ -256,9 +299,22 @@ public class FunctionalTerm extends TermInherit implements Term {
     return ret.toString();
   }
 
+  /** Returns the structural hash code, which was computed when the term was created. */
+  public int hashCode() {
+    return _hash;
+  }
+
+  /** Returns the hash code modulo variable renaming, which was computed on creation. */
+  public int queryShapeHash() {
+    return _shapeHash;
+  }
+
   /** This method verifies equality to another Term. */
   public boolean equals(Term term) {
     if (term == null) return false;
+    if (term == this) return true;
+    if (sharedWith(term)) return false;
+    if (term.hashCode() != _hash) return false;
     if (term.queryTermKind() != TermKind.FUNCTIONALTERM) return false;
     if (!_f.equals(term.queryRoot())) return false;
     if (_args.size() != term.numberImmediateSubterms()) return false;
@@ -0,0 +1,214 @@
+package cora.terms;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import cora.exceptions.NullCallError;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Term;
+import cora.interfaces.types.Type;
+
+/**
+ * A TermFactory hash-conses terms: all structurally equal functional terms and constants that are
+ * built by (or interned into) the same factory are represented by a single object.  Such shared
+ * terms can be compared by reference, and substituting into them or replacing their subterms
+ * yields terms that are again shared through the same factory.
+ *
+ * Variables are already uniquely identified by their index, so they are shared as they are.
+ * Terms that contain subterms which are not functional terms, constants or variables (such as the
+ * rho terms of the semi-unification algorithm) cannot be interned.
+ *
+ * The factory only keeps weak references to the terms it created, so terms which are no longer
+ * used elsewhere can still be garbage collected.  All methods are thread-safe.
+ */
+public class TermFactory {
+  /** The key of a constant: its name and (the string representation of) its type. */
+  private static class SymbolKey {
+    private String _name;
+    private String _type;
+
+    SymbolKey(String name, Type type) {
+      _name = name;
+      _type = type.toString();
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * _name.hashCode() + _type.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof SymbolKey)) return false;
+      SymbolKey other = (SymbolKey)o;
+      return _name.equals(other._name) && _type.equals(other._type);
+    }
+  }
+
+  /**
+   * The key of a functional term f(s1,...,sn) with n > 0; since f and s1,...,sn are all shared
+   * already, they are compared by reference.
+   */
+  private static class ApplicationKey {
+    private FunctionSymbol _f;
+    private Term[] _args;
+    private int _hash;
+
+    ApplicationKey(FunctionSymbol f, Term[] args) {
+      _f = f;
+      _args = args;
+      _hash = System.identityHashCode(f);
+      for (Term arg : args) _hash = 31 * _hash + System.identityHashCode(arg);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof ApplicationKey)) return false;
+      ApplicationKey other = (ApplicationKey)o;
+      if (_f != other._f || _args.length != other._args.length) return false;
+      for (int i = 0; i < _args.length; i++) {
+        if (_args[i] != other._args[i]) return false;
+      }
+      return true;
+    }
+  }
+
+  /** A weak reference to a shared term, which remembers the key it is stored under. */
+  private static class Entry extends WeakReference<Term> {
+    private Object _key;
+
+    Entry(Object key, Term term, ReferenceQueue<Term> queue) {
+      super(term, queue);
+      _key = key;
+    }
+  }
+
+  private HashMap<Object,Entry> _table;
+  private ReferenceQueue<Term> _queue;
+
+  /** Creates a factory with an empty table. */
+  public TermFactory() {
+    _table = new HashMap<>();
+    _queue = new ReferenceQueue<>();
+  }
+
+  /** Returns the number of shared terms that are currently alive in the table. */
+  public synchronized int size() {
+    removeCollectedEntries();
+    return _table.size();
+  }
+
+  /** Returns the shared constant with the given name and type. */
+  public synchronized FunctionSymbol createSymbol(String name, Type type) {
+    removeCollectedEntries();
+    return internSymbol(name, type);
+  }
+
+  /**
+   * Returns the shared term f(args).  If the arguments do not match the type of f, an appropriate
+   * Error is thrown, as for the FunctionalTerm constructor.
+   */
+  public Term createFunctionalTerm(FunctionSymbol f, List<Term> args) {
+    if (args == null) throw new NullCallError("TermFactory", "createFunctionalTerm", "args");
+    return intern(new FunctionalTerm(f, new ArrayList<>(args)));
+  }
+
+  /** Creates a fresh variable; variables are always unique, so this is just a new Var. */
+  public Var createVar(String name, Type type) {
+    return new Var(name, type);
+  }
+
+  /**
+   * Returns the shared term that is structurally equal to t.  If t (or one of its subterms) cannot
+   * be interned, t itself is returned instead.
+   */
+  public synchronized Term intern(Term t) {
+    if (t == null) throw new NullCallError("TermFactory", "intern", "term");
+    removeCollectedEntries();
+    Term ret = internTerm(t);
+    return ret == null ? t : ret;
+  }
+
+  /** Returns whether t is a term that was created by this factory. */
+  public boolean owns(Term t) {
+    return t instanceof TermInherit && ((TermInherit)t).queryFactory() == this;
+  }
+
+  /**
+   * Returns the shared term f(args) with the given output type, without doing any type checks;
+   * the args may or may not be shared already.  This is used by the term implementations to keep
+   * the results of substitution and subterm replacement shared.
+   */
+  synchronized Term createUnchecked(FunctionSymbol f, ArrayList<Term> args, Type outputType) {
+    removeCollectedEntries();
+    Term ret = internApplication(f, args, outputType);
+    return ret == null ? new FunctionalTerm(args, f, outputType) : ret;
+  }
+
+  /** Helper for intern: returns null if t cannot be interned. */
+  private Term internTerm(Term t) {
+    if (owns(t)) return t;
+    if (t.queryTermKind() == Term.TermKind.VARTERM) return t;
+    if (t instanceof UserDefinedSymbol) return internSymbol(t.queryRoot().queryName(), t.queryType());
+    if (!(t instanceof FunctionalTerm)) return null;
+    ArrayList<Term> args = new ArrayList<>();
+    for (int i = 1; i <= t.numberImmediateSubterms(); i++) args.add(t.queryImmediateSubterm(i));
+    return internApplication(t.queryRoot(), args, t.queryType());
+  }
+
+  /** Helper for createSymbol and internTerm; assumes the queue has been processed. */
+  private FunctionSymbol internSymbol(String name, Type type) {
+    SymbolKey key = new SymbolKey(name, type);
+    Term existing = lookup(key);
+    if (existing != null) return existing.queryRoot();
+    UserDefinedSymbol symbol = new UserDefinedSymbol(name, type, this);
+    _table.put(key, new Entry(key, symbol, _queue));
+    return symbol;
+  }
+
+  /**
+   * Helper for internTerm and createUnchecked: returns the shared term f(args) with the given
+   * output type, or null if f or any of the args cannot be interned.  A term f() without
+   * arguments is represented by the shared constant f.
+   */
+  private Term internApplication(FunctionSymbol f, ArrayList<Term> args, Type outputType) {
+    if (!(f instanceof UserDefinedSymbol)) return null;
+    FunctionSymbol sharedf = internSymbol(f.queryName(), f.queryType());
+    if (args.isEmpty()) return sharedf;
+    Term[] sharedargs = new Term[args.size()];
+    for (int i = 0; i < sharedargs.length; i++) {
+      sharedargs[i] = internTerm(args.get(i));
+      if (sharedargs[i] == null) return null;
+    }
+    ApplicationKey key = new ApplicationKey(sharedf, sharedargs);
+    Term existing = lookup(key);
+    if (existing != null) return existing;
+    ArrayList<Term> lst = new ArrayList<>(sharedargs.length);
+    for (Term arg : sharedargs) lst.add(arg);
+    FunctionalTerm term = new FunctionalTerm(lst, sharedf, outputType, this);
+    _table.put(key, new Entry(key, term, _queue));
+    return term;
+  }
+
+  /** Returns the live term stored under the given key, or null if there is none. */
+  private Term lookup(Object key) {
+    Entry entry = _table.get(key);
+    return entry == null ? null : entry.get();
+  }
+
+  /** Removes the table entries of all terms that have been garbage collected. */
+  private void removeCollectedEntries() {
+    Entry entry;
+    while ((entry = (Entry)_queue.poll()) != null) {
+      if (_table.get(entry._key) == entry) _table.remove(entry._key);
+    }
+  }
+}
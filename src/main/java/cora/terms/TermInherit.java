@@ -16,6 +16,7 @@
 package cora.terms;
 
 import cora.interfaces.terms.*;
+import cora.terms.positions.PositionPath;
 
 /**
  * A TermInherit supplies default functionality for all instances of Term.
@@ -23,9 +24,32 @@ import cora.interfaces.terms.*;
  * substitution or environment.
  */
 public abstract class TermInherit {
+  /** The factory that this term is shared through, or null if it is not a shared term. */
+  private TermFactory _factory = null;
+
   public abstract String match(Term other, Substitution gamma);
   public abstract boolean equals(Term other);
   public abstract void updateVars(Environment env);
+  public abstract int hashCode();
+
+  /**
+   * Calls the visitor for every subterm with its position, in leftmost innermost order, until the
+   * visitor returns false; returns false if it did.
+   */
+  public boolean visitSubterms(SubtermVisitor visitor) {
+    return visitSubterms((Term)this, visitor, new PositionPath());
+  }
+
+  /** Helper function for visitSubterms: visits the subterms of t, which is at the given path. */
+  private static boolean visitSubterms(Term t, SubtermVisitor visitor, PositionPath path) {
+    for (int i = 1; i <= t.numberImmediateSubterms(); i++) {
+      path.push(i);
+      boolean proceed = visitSubterms(t.queryImmediateSubterm(i), visitor, path);
+      path.pop();
+      if (!proceed) return false;
+    }
+    return visitor.visit(t, path);
+  }
 
   /** Returns the set of all variables occurring in the current term. */
   public Environment vars() {
@@ -41,6 +65,25 @@ public abstract class TermInherit {
     return null;
   }
 
+  /** Marks the current term as shared by the given factory; only to be used in constructors! */
+  void setFactory(TermFactory factory) {
+    _factory = factory;
+  }
+
+  /** Returns the factory this term is shared through, or null if it is not a shared term. */
+  TermFactory queryFactory() {
+    return _factory;
+  }
+
+  /**
+   * Returns true if both the current term and other are shared by the same factory; in that case
+   * they are equal if and only if they are the same object.
+   */
+  boolean sharedWith(Term other) {
+    return _factory != null && other instanceof TermInherit &&
+           ((TermInherit)other)._factory == _factory;
+  }
+
   /** This method verifies equality to another Term. */
   public boolean equals(Object other) {
     if (other instanceof Term) return equals((Term)other);
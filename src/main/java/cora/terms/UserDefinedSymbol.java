@@ -28,6 +28,7 @@ import cora.interfaces.terms.*;
  */
 public class UserDefinedSymbol extends LeafTermInherit implements FunctionSymbol {
   private String _name;
+  private int _hash;
 
   /**
    * A user-defined symbol is always identified by the combination of its name and its type.
@@ -38,6 +39,13 @@ public class UserDefinedSymbol extends LeafTermInherit implements FunctionSymbol
     _name = name;
     if (name == null) throw new NullInitialisationError("UserDefinedSymbol", "name");
     if (name.equals("")) throw new Error("Function Symbol created with empty name.");
+    _hash = 31 * name.hashCode() + type.hashCode();
+  }
+
+  /** Creates a symbol that is shared by the given factory; only to be used by the factory. */
+  UserDefinedSymbol(String name, Type type, TermFactory factory) {
+    this(name, type);
+    setFactory(factory);
   }
 
   /** Returns the name of the current user-defined symbol. */
@@ -58,8 +66,19 @@ public class UserDefinedSymbol extends LeafTermInherit implements FunctionSymbol
     return _name + "{" + queryType().toString() + "}";
   }
 
+  /** Returns a hash code based on the name and type, which was computed on creation. */
+  public int hashCode() {
+    return _hash;
+  }
+
+  /** Returns the hash code, as a constant does not contain any variables to be renamed. */
+  public int queryShapeHash() {
+    return _hash;
+  }
+
   public boolean equals(FunctionSymbol symbol) {
     if (symbol == null) return false;
+    if (symbol == this) return true;
     if (!_name.equals(symbol.queryName())) return false;
     return queryType().equals(symbol.queryType());
   }
@@ -100,6 +119,8 @@ public class UserDefinedSymbol extends LeafTermInherit implements FunctionSymbol
 
   public boolean equals(Term term) {
     if (term == null) return false;
+    if (term == this) return true;
+    if (sharedWith(term)) return false;
     if (term.queryTermKind() != TermKind.FUNCTIONALTERM) return false;
     if (term.numberImmediateSubterms() != 0) return false;
     return equals(term.queryRoot());
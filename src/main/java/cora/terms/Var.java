@@ -16,6 +16,7 @@
 package cora.terms;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import cora.exceptions.InappropriatePatternDataError;
 import cora.exceptions.NullCallError;
 import cora.exceptions.NullInitialisationError;
@@ -31,17 +32,34 @@ import cora.interfaces.terms.*;
  * single term).  Rather, variables are uniquely identified by an internally kept index.
  */
 public class Var extends LeafTermInherit implements Variable {
-  private static int COUNTER = 0;
+  private static AtomicInteger COUNTER = new AtomicInteger(0);
   private String _name;
   private int _index;
+  private int _hash;
 
   /** Create a variable with the given name and type. */
   public Var(String name, Type type) {
+    this(name, type, COUNTER.getAndIncrement());
+  }
+
+  /**
+   * Create a variable with the given name, type and index; the index should have been obtained
+   * through reserveIndices.  This is used by VarSupply.
+   */
+  Var(String name, Type type, int index) {
     super(type);
     _name = name;
-    _index = COUNTER;
-    COUNTER++;
+    _index = index;
     if (name == null) throw new NullInitialisationError("Var", "name");
+    _hash = 31 * _index + type.hashCode();
+  }
+
+  /**
+   * Reserves count consecutive indexes, which will not be given to any other variable, and
+   * returns the first of them.
+   */
+  static int reserveIndices(int count) {
+    return COUNTER.getAndAdd(count);
   }
 
   /** @return VARTERM */
@@ -64,6 +82,16 @@ public class Var extends LeafTermInherit implements Variable {
     return _name;
   }
 
+  /** @return a hash code based on the index and type, which was computed on creation */
+  public int hashCode() {
+    return _hash;
+  }
+
+  /** @return the hash code of the type, as any variable may be renamed to any other */
+  public int queryShapeHash() {
+    return queryType().hashCode();
+  }
+
   /** @return this */
   public Variable queryVariable() {
     return this;
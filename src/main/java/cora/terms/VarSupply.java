@@ -0,0 +1,49 @@
+package cora.terms;
+
+import cora.exceptions.NullCallError;
+import cora.interfaces.terms.FreshVariableSupply;
+import cora.interfaces.terms.Variable;
+import cora.interfaces.types.Type;
+
+/**
+ * A VarSupply creates variables whose indexes are taken from the same global range as all other
+ * Vars, so they never collide with variables created elsewhere.  To avoid having all threads
+ * contend for the global counter, every thread reserves a block of indexes at a time and hands
+ * them out on its own.
+ */
+public class VarSupply implements FreshVariableSupply {
+  private static final int BLOCK_SIZE = 256;
+
+  /** A block of reserved indexes: next is the first unused index, end is just past the block. */
+  private static class IndexBlock {
+    private int _next;
+    private int _end;
+  }
+
+  private ThreadLocal<IndexBlock> _blocks = ThreadLocal.withInitial(IndexBlock::new);
+
+  /** Returns a new Var with exactly the given name and type. */
+  public Var createVariable(String name, Type type) {
+    if (name == null) throw new NullCallError("VarSupply", "createVariable", "name");
+    if (type == null) throw new NullCallError("VarSupply", "createVariable", "type");
+    return new Var(name, type, nextIndex());
+  }
+
+  /** Returns a new Var of the given type, named after the given name with a single prime. */
+  public Var createFreshVariable(String name, Type type) {
+    if (name == null) throw new NullCallError("VarSupply", "createFreshVariable", "name");
+    int end = name.length();
+    while (end > 0 && name.charAt(end - 1) == '\'') end--;
+    return createVariable(name.substring(0, end) + "'", type);
+  }
+
+  /** Returns an index that has not been used before, reserving a new block if necessary. */
+  private int nextIndex() {
+    IndexBlock block = _blocks.get();
+    if (block._next == block._end) {
+      block._next = Var.reserveIndices(BLOCK_SIZE);
+      block._end = block._next + BLOCK_SIZE;
+    }
+    return block._next++;
+  }
+}
@@ -0,0 +1,401 @@
+package cora.terms.flat;
+
+import cora.interfaces.terms.Position;
+import cora.interfaces.terms.Substitution;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.terms.FunctionalTerm;
+import cora.terms.Subst;
+import cora.terms.positions.ArgumentPosition;
+import cora.terms.positions.EmptyPosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A FlatTerm is a first-order term stored as three int arrays, indexed by the subterms of the term in pre-order:
+ * the symbol at each subterm (the id of a function symbol in a SymbolTable, or -1-id for a variable), its number of
+ * arguments, and its size (so the subterm at index i occupies the indexes i to i + size - 1).  Variable ids are
+ * local to the term: they number its distinct variables 0, 1, ... in the order of their first occurrence, so the
+ * work space of matching and unification depends only on the terms involved.
+ * Matching, unification, comparison and subterm search on flat terms walk these arrays, rather than a tree of
+ * objects, and do not create any Term objects unless a substitution is asked for.
+ */
+public class FlatTerm {
+  private SymbolTable _table;
+  private int[] _symbols;
+  private int[] _arities;
+  private int[] _sizes;
+  private Variable[] _variables;
+
+  /** Flattens the given term, interning its function symbols in table. */
+  public FlatTerm(Term t, SymbolTable table) {
+    _table = table;
+    int n = count(t);
+    _symbols = new int[n];
+    _arities = new int[n];
+    _sizes = new int[n];
+    Map<Variable, Integer> variables = new HashMap<>();
+    store(t, 0, variables);
+    _variables = new Variable[variables.size()];
+    for (Map.Entry<Variable, Integer> entry : variables.entrySet()) _variables[entry.getValue()] = entry.getKey();
+  }
+
+  /** Returns the number of subterms of t. */
+  private static int count(Term t) {
+    if (t.queryTermKind() == Term.TermKind.VARTERM) return 1;
+    int n = 1;
+    for (int i = 1; i <= t.numberImmediateSubterms(); i++) n += count(t.queryImmediateSubterm(i));
+    return n;
+  }
+
+  /** Stores t from the given index, and returns the index after it. */
+  private int store(Term t, int index, Map<Variable, Integer> variables) {
+    if (t.queryTermKind() == Term.TermKind.VARTERM) {
+      _symbols[index] = -1 - variables.computeIfAbsent(t.queryVariable(), x -> variables.size());
+      _sizes[index] = 1;
+      return index + 1;
+    }
+    _symbols[index] = _table.intern(t.queryRoot());
+    _arities[index] = t.numberImmediateSubterms();
+    int next = index + 1;
+    for (int i = 1; i <= t.numberImmediateSubterms(); i++) next = store(t.queryImmediateSubterm(i), next, variables);
+    _sizes[index] = next - index;
+    return next;
+  }
+
+  /** Returns the symbol table of this term. */
+  public SymbolTable queryTable() {
+    return _table;
+  }
+
+  /** Returns the number of distinct variables of this term. */
+  public int queryVariableCount() {
+    return _variables.length;
+  }
+
+  /** Returns the variable with the given (local) id. */
+  public Variable queryVariable(int id) {
+    return _variables[id];
+  }
+
+  /** Returns the number of subterms (that is, the number of symbols and variables) of this term. */
+  public int size() {
+    return _symbols.length;
+  }
+
+  /** Returns whether the subterm at the given index is a variable. */
+  public boolean isVariable(int index) {
+    return _symbols[index] < 0;
+  }
+
+  /** Returns the id of the root symbol of the subterm at the given index, which should not be a variable. */
+  public int querySymbolId(int index) {
+    return _symbols[index];
+  }
+
+  /** Returns the id of the variable at the given index, which should be a variable. */
+  public int queryVariableId(int index) {
+    return -1 - _symbols[index];
+  }
+
+  /** Returns the number of arguments of the subterm at the given index. */
+  public int queryArity(int index) {
+    return _arities[index];
+  }
+
+  /** Returns the number of subterms of the subterm at the given index. */
+  public int querySubtermSize(int index) {
+    return _sizes[index];
+  }
+
+  /** Returns the index of argument k (1 <= k <= arity) of the subterm at the given index. */
+  public int queryArgument(int index, int k) {
+    int arg = index + 1;
+    for (int i = 1; i < k; i++) arg += _sizes[arg];
+    return arg;
+  }
+
+  /** Returns the Term at the given index. */
+  public Term toTerm(int index) {
+    if (_symbols[index] < 0) return _variables[-1 - _symbols[index]];
+    if (_arities[index] == 0) return _table.querySymbol(_symbols[index]);
+    ArrayList<Term> args = new ArrayList<>(_arities[index]);
+    for (int i = 1, arg = index + 1; i <= _arities[index]; i++, arg += _sizes[arg]) args.add(toTerm(arg));
+    return new FunctionalTerm(_table.querySymbol(_symbols[index]), args);
+  }
+
+  /** Returns the Term this is a flattening of. */
+  public Term toTerm() {
+    return toTerm(0);
+  }
+
+  /** Returns the index of the subterm at position p. */
+  public int queryIndex(Position p) {
+    int index = 0;
+    for (; !p.isEmpty(); p = p.queryTail()) index = queryArgument(index, p.queryArgumentPosition());
+    return index;
+  }
+
+  /** Returns the position of the subterm at the given index. */
+  public Position queryPosition(int index) {
+    ArrayList<Integer> path = new ArrayList<>();
+    int current = 0;
+    while (current != index) {
+      int arg = current + 1;
+      int k = 1;
+      while (arg + _sizes[arg] <= index) {
+        arg += _sizes[arg];
+        k++;
+      }
+      path.add(k);
+      current = arg;
+    }
+    Position result = new EmptyPosition();
+    for (int i = path.size() - 1; i >= 0; i--) result = new ArgumentPosition(path.get(i), result);
+    return result;
+  }
+
+  /**
+   * Returns the indexes of all subterms in the order of Term.queryAllPositions: the arguments (from left to right)
+   * before the term itself.
+   */
+  public int[] queryPostOrder() {
+    int[] result = new int[_symbols.length];
+    postOrder(0, result, 0);
+    return result;
+  }
+
+  /** Stores the subterms of the subterm at index in post-order in result from position next; returns the next one. */
+  private int postOrder(int index, int[] result, int next) {
+    for (int i = 1, arg = index + 1; i <= _arities[index]; i++, arg += _sizes[arg]) next = postOrder(arg, result, next);
+    result[next] = index;
+    return next + 1;
+  }
+
+  /** Returns whether the subterm at index i of this term is equal to the subterm at index j of other. */
+  public boolean equalSubterms(int i, FlatTerm other, int j) {
+    int n = _sizes[i];
+    if (other._sizes[j] != n || !Arrays.equals(_arities, i, i + n, other._arities, j, j + n)) return false;
+    if (other == this) return Arrays.equals(_symbols, i, i + n, _symbols, j, j + n);
+    for (int k = 0; k < n; k++) {
+      int s = _symbols[i + k], t = other._symbols[j + k];
+      if (s < 0 && t < 0 ? !_variables[-1 - s].equals(other._variables[-1 - t]) : s != t) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether this term, as a pattern, matches the subterm of instance at the given index; if so, binding maps
+   * each variable id of the pattern to the index in instance it is bound to.  The binding array should have room for
+   * the variables of the pattern (see queryVariableCount) and be filled with -1 on entry.
+   */
+  public boolean matches(FlatTerm instance, int index, int[] binding) {
+    int j = index;
+    for (int i = 0; i < _symbols.length; ) {
+      if (_symbols[i] < 0) {
+        int x = -1 - _symbols[i];
+        if (binding[x] < 0) binding[x] = j;
+        else if (!instance.equalSubterms(binding[x], instance, j)) return false;
+        j += instance._sizes[j];
+        i++;
+      }
+      else {
+        if (instance._symbols[j] != _symbols[i] || instance._arities[j] != _arities[i]) return false;
+        i++;
+        j++;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the substitution γ such that this term γ is the subterm of instance at the given index, or null if there
+   * is none.
+   */
+  public Substitution match(FlatTerm instance, int index) {
+    int[] binding = new int[_variables.length];
+    Arrays.fill(binding, -1);
+    if (!matches(instance, index, binding)) return null;
+    Subst gamma = new Subst();
+    for (int x = 0; x < binding.length; x++) {
+      if (binding[x] >= 0) gamma.extend(_variables[x], instance.toTerm(binding[x]));
+    }
+    return gamma;
+  }
+
+  /**
+   * Returns the first index from start on where the given pattern matches this term, or -1 if there is none.
+   */
+  public int findInstance(FlatTerm pattern, int start) {
+    int[] binding = new int[pattern._variables.length];
+    for (int index = start; index < _symbols.length; index++) {
+      Arrays.fill(binding, -1);
+      if (pattern.matches(this, index, binding)) return index;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns whether the subterm of s at index i unifies with the subterm of t at index j, where the variables of s
+   * and t are considered to be different (as if t were renamed with fresh variables first).
+   */
+  public static boolean unifiableApart(FlatTerm s, int i, FlatTerm t, int j) {
+    return new Unifier(s, t, true).unify(0, i, 1, j);
+  }
+
+  /**
+   * Returns the most general unifier of this term and other (which share their variables), or null if they do not
+   * unify.
+   */
+  public Substitution unify(FlatTerm other) {
+    Unifier unifier = new Unifier(this, other, false);
+    if (!unifier.unify(0, 0, 1, 0)) return null;
+    return unifier.substitution();
+  }
+
+  /**
+   * Robinson unification on a pair of flat terms.  A term is identified by its side (0 or 1) and index; a variable
+   * is identified by its namespace (the side if the terms are renamed apart, otherwise 0) and its id in that
+   * namespace, and can be bound to a term.  If the terms share their variables, the variables of t are given the ids
+   * of the same variables in s, and ids after those of s for the variables that s does not have.
+   */
+  private static class Unifier {
+    private FlatTerm[] _terms;
+    private boolean _apart;
+    private int[][] _ids;
+    private Variable[][] _variables;
+    private int[][] _boundSide;
+    private int[][] _boundIndex;
+
+    Unifier(FlatTerm s, FlatTerm t, boolean apart) {
+      _terms = new FlatTerm[] { s, t };
+      _apart = apart;
+      _ids = new int[2][];
+      _ids[0] = identity(s._variables.length);
+      if (apart) {
+        _ids[1] = identity(t._variables.length);
+        _variables = new Variable[][] { s._variables, t._variables };
+      }
+      else {
+        Map<Variable, Integer> shared = new HashMap<>();
+        for (int x = 0; x < s._variables.length; x++) shared.put(s._variables[x], x);
+        _ids[1] = new int[t._variables.length];
+        for (int x = 0; x < t._variables.length; x++) {
+          _ids[1][x] = shared.computeIfAbsent(t._variables[x], y -> shared.size());
+        }
+        Variable[] all = new Variable[shared.size()];
+        for (Map.Entry<Variable, Integer> entry : shared.entrySet()) all[entry.getValue()] = entry.getKey();
+        _variables = new Variable[][] { all, new Variable[0] };
+      }
+      _boundSide = new int[2][];
+      _boundIndex = new int[2][];
+      for (int k = 0; k < 2; k++) {
+        _boundSide[k] = new int[_variables[k].length];
+        _boundIndex[k] = new int[_variables[k].length];
+        Arrays.fill(_boundSide[k], -1);
+      }
+    }
+
+    private static int[] identity(int n) {
+      int[] ids = new int[n];
+      for (int x = 0; x < n; x++) ids[x] = x;
+      return ids;
+    }
+
+    private int namespace(int side) {
+      return _apart ? side : 0;
+    }
+
+    /** Returns the id, in the namespace of its side, of the variable at the given side and index. */
+    private int variableId(int side, int index) {
+      return _ids[side][_terms[side].queryVariableId(index)];
+    }
+
+    /** Unifies the given subterms; returns false if they do not unify. */
+    boolean unify(int side1, int index1, int side2, int index2) {
+      ArrayList<int[]> todo = new ArrayList<>();
+      todo.add(new int[] { side1, index1, side2, index2 });
+      while (!todo.isEmpty()) {
+        int[] pair = todo.remove(todo.size() - 1);
+        int[] a = deref(pair[0], pair[1]);
+        int[] b = deref(pair[2], pair[3]);
+        FlatTerm s = _terms[a[0]], t = _terms[b[0]];
+        boolean sVar = s.isVariable(a[1]), tVar = t.isVariable(b[1]);
+        if (sVar && tVar && namespace(a[0]) == namespace(b[0]) &&
+            variableId(a[0], a[1]) == variableId(b[0], b[1])) continue;
+        if (sVar) {
+          if (!bind(a[0], variableId(a[0], a[1]), b[0], b[1])) return false;
+        }
+        else if (tVar) {
+          if (!bind(b[0], variableId(b[0], b[1]), a[0], a[1])) return false;
+        }
+        else {
+          if (s._symbols[a[1]] != t._symbols[b[1]] || s._arities[a[1]] != t._arities[b[1]]) return false;
+          int argA = a[1] + 1, argB = b[1] + 1;
+          for (int k = 0; k < s._arities[a[1]]; k++) {
+            todo.add(new int[] { a[0], argA, b[0], argB });
+            argA += s._sizes[argA];
+            argB += t._sizes[argB];
+          }
+        }
+      }
+      return true;
+    }
+
+    /** Follows the bindings of variables from the given term, and returns the side and index reached. */
+    private int[] deref(int side, int index) {
+      while (_terms[side].isVariable(index)) {
+        int ns = namespace(side), x = variableId(side, index);
+        if (_boundSide[ns][x] < 0) break;
+        int next = _boundSide[ns][x];
+        index = _boundIndex[ns][x];
+        side = next;
+      }
+      return new int[] { side, index };
+    }
+
+    /** Binds the given variable to the given term, unless it occurs in it. */
+    private boolean bind(int varSide, int x, int side, int index) {
+      if (occurs(namespace(varSide), x, side, index)) return false;
+      _boundSide[namespace(varSide)][x] = side;
+      _boundIndex[namespace(varSide)][x] = index;
+      return true;
+    }
+
+    /** Returns whether the given variable occurs in the given term (after applying the bindings). */
+    private boolean occurs(int ns, int x, int side, int index) {
+      int[] d = deref(side, index);
+      FlatTerm t = _terms[d[0]];
+      if (t.isVariable(d[1])) return namespace(d[0]) == ns && variableId(d[0], d[1]) == x;
+      for (int k = 0, arg = d[1] + 1; k < t._arities[d[1]]; k++, arg += t._sizes[arg]) {
+        if (occurs(ns, x, d[0], arg)) return true;
+      }
+      return false;
+    }
+
+    /** Returns the term at the given side and index with all bindings applied. */
+    private Term resolve(int side, int index) {
+      int[] d = deref(side, index);
+      FlatTerm t = _terms[d[0]];
+      if (t.isVariable(d[1])) return t.queryVariable(t.queryVariableId(d[1]));
+      if (t._arities[d[1]] == 0) return t._table.querySymbol(t._symbols[d[1]]);
+      ArrayList<Term> args = new ArrayList<>(t._arities[d[1]]);
+      for (int k = 0, arg = d[1] + 1; k < t._arities[d[1]]; k++, arg += t._sizes[arg]) args.add(resolve(d[0], arg));
+      return new FunctionalTerm(t._table.querySymbol(t._symbols[d[1]]), args);
+    }
+
+    /** Returns the bindings (for terms that share their variables) as a substitution. */
+    Substitution substitution() {
+      Subst gamma = new Subst();
+      for (int x = 0; x < _boundSide[0].length; x++) {
+        if (_boundSide[0][x] >= 0) {
+          gamma.extend(_variables[0][x], resolve(_boundSide[0][x], _boundIndex[0][x]));
+        }
+      }
+      return gamma;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package cora.terms.flat;
+
+import cora.interfaces.terms.FunctionSymbol;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A SymbolTable assigns consecutive integer ids to function symbols, so that they can be stored in the int arrays of
+ * a FlatTerm.  Flat terms can only be compared if they use the same table.  Variables are not in the table: each flat
+ * term numbers its own variables, so the table only grows with the signature.
+ * It may be used by several threads at the same time; looking up a symbol that already has an id takes no lock.
+ */
+public class SymbolTable {
+  private List<FunctionSymbol> _symbols;
+  private Map<FunctionSymbol, Integer> _symbolIds;
+
+  public SymbolTable() {
+    _symbols = new CopyOnWriteArrayList<>();
+    _symbolIds = new ConcurrentHashMap<>();
+  }
+
+  /** Returns the id of the given symbol, assigning it a new one if it has none yet. */
+  public int intern(FunctionSymbol f) {
+    Integer id = _symbolIds.get(f);
+    if (id != null) return id;
+    synchronized (this) {
+      id = _symbolIds.get(f);
+      if (id != null) return id;
+      _symbols.add(f);
+      _symbolIds.put(f, _symbols.size() - 1);
+      return _symbols.size() - 1;
+    }
+  }
+
+  /** Returns the symbol with the given id. */
+  public FunctionSymbol querySymbol(int id) {
+    return _symbols.get(id);
+  }
+
+  /** Returns the number of symbols that have an id. */
+  public int querySymbolCount() {
+    return _symbols.size();
+  }
+}
@@ -0,0 +1,60 @@
+package cora.terms.positions;
+
+import cora.interfaces.terms.Position;
+
+/**
+ * A PositionPath is the position of the current subterm during a traversal of a term, stored as a stack of argument
+ * indexes which the traversal updates in place.  Unlike a Position it is mutable, so it is only valid during a
+ * single visit; toPosition() creates the corresponding (immutable) Position when one is needed.
+ */
+public class PositionPath {
+  private int[] _indexes;
+  private int _depth;
+
+  /** Creates the path to the root of a term. */
+  public PositionPath() {
+    _indexes = new int[8];
+    _depth = 0;
+  }
+
+  /** Moves the path to argument i of the current subterm. */
+  public void push(int i) {
+    if (_depth == _indexes.length) {
+      int[] indexes = new int[2 * _depth];
+      System.arraycopy(_indexes, 0, indexes, 0, _depth);
+      _indexes = indexes;
+    }
+    _indexes[_depth++] = i;
+  }
+
+  /** Moves the path back to the parent of the current subterm. */
+  public void pop() {
+    _depth--;
+  }
+
+  /** Returns the number of argument indexes in the path (0 for the root). */
+  public int queryDepth() {
+    return _depth;
+  }
+
+  /** Returns whether the path is the empty position. */
+  public boolean isEmpty() {
+    return _depth == 0;
+  }
+
+  /** For 0 <= level < queryDepth(), returns the argument index taken at the given level (the root is level 0). */
+  public int queryArgument(int level) {
+    return _indexes[level];
+  }
+
+  /** Returns the Position this path currently represents. */
+  public Position toPosition() {
+    Position result = new EmptyPosition();
+    for (int i = _depth - 1; i >= 0; i--) result = new ArgumentPosition(_indexes[i], result);
+    return result;
+  }
+
+  public String toString() {
+    return toPosition().toString();
+  }
+}
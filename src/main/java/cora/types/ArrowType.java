@@ -23,6 +23,7 @@ import cora.interfaces.types.*;
 /** A type of the form σ ⇒ τ. */
 public class ArrowType implements Type {
   private Type _left, _right;
+  private int _hash;
 
   /** Creates the type left ⇒ right. */
   public ArrowType(Type left, Type right) {
@@ -30,6 +31,7 @@ public class ArrowType implements Type {
     if (right == null) throw new NullInitialisationError("ArrowType", "output type");
     _left = left;
     _right = right;
+    _hash = 31 * left.hashCode() + right.hashCode() + 7;
   }
 
   /** @return ARROWTYPE */
@@ -62,6 +64,17 @@ public class ArrowType implements Type {
            _right.equals(type.queryArrowOutputType());
   }
 
+  /** Checks equality with the given object, which is only possible if it is a Type. */
+  public boolean equals(Object other) {
+    if (other instanceof Type) return equals((Type)other);
+    return false;
+  }
+
+  /** Returns a structural hash code, which is computed when the type is created. */
+  public int hashCode() {
+    return _hash;
+  }
+
   public int queryArity() {
     return 1 + _right.queryArity();
   }
@@ -53,6 +53,17 @@ public class Sort implements BaseType {
     return _name.equals(sort.toString());
   }
 
+  /** Checks equality with the given object, which is only possible if it is a Type. */
+  public boolean equals(Object other) {
+    if (other instanceof Type) return equals((Type)other);
+    return false;
+  }
+
+  /** Returns a hash code that is consistent with equality: it only depends on the name. */
+  public int hashCode() {
+    return _name.hashCode();
+  }
+
   /** @return 0 */
   public int queryArity() {
     return 0;
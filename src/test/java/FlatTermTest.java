@@ -0,0 +1,110 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import cora.interfaces.types.Type;
+import cora.interfaces.terms.Position;
+import cora.interfaces.terms.Substitution;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.types.*;
+import cora.terms.*;
+import cora.terms.flat.FlatTerm;
+import cora.terms.flat.SymbolTable;
+
+public class FlatTermTest {
+  private Type o = new Sort("o");
+  private FunctionSymbol a = new UserDefinedSymbol("a", o);
+  private FunctionSymbol b = new UserDefinedSymbol("b", o);
+  private FunctionSymbol f = new UserDefinedSymbol("f", new ArrowType(o, new ArrowType(o, o)));
+  private FunctionSymbol g = new UserDefinedSymbol("g", new ArrowType(o, o));
+  private Var x = new Var("x", o);
+  private Var y = new Var("y", o);
+  private Var z = new Var("z", o);
+
+  private Term f(Term s, Term t) { return new FunctionalTerm(f, s, t); }
+  private Term g(Term s) { return new FunctionalTerm(g, s); }
+
+  @Test
+  public void testConversion() {
+    SymbolTable table = new SymbolTable();
+    Term t = f(g(x), f(a, g(g(y))));
+    FlatTerm flat = new FlatTerm(t, table);
+    assertEquals(8, flat.size());
+    assertEquals(t.toString(), flat.toTerm().toString());
+    assertTrue(flat.isVariable(2));
+    assertEquals(2, flat.queryArity(3));
+    assertEquals(5, flat.querySubtermSize(3));
+    assertEquals(3, flat.queryArgument(0, 2));
+    assertEquals("g(g(y))", flat.toTerm(5).toString());
+  }
+
+  @Test
+  public void testPositions() {
+    FlatTerm flat = new FlatTerm(f(g(x), f(a, g(g(y)))), new SymbolTable());
+    Term t = flat.toTerm();
+    ArrayList<Position> positions = t.queryAllPositions();
+    int[] order = flat.queryPostOrder();
+    assertEquals(positions.size(), order.length);
+    for (int k = 0; k < order.length; k++) {
+      assertTrue(positions.get(k).equals(flat.queryPosition(order[k])));
+      assertEquals(order[k], flat.queryIndex(positions.get(k)));
+      assertEquals(t.querySubterm(positions.get(k)).toString(), flat.toTerm(order[k]).toString());
+    }
+  }
+
+  @Test
+  public void testMatching() {
+    SymbolTable table = new SymbolTable();
+    FlatTerm pattern = new FlatTerm(f(x, g(x)), table);
+    FlatTerm instance = new FlatTerm(g(f(g(a), g(g(a)))), table);
+    assertNull(pattern.match(instance, 0));
+    Substitution gamma = pattern.match(instance, 1);
+    assertNotNull(gamma);
+    assertEquals("g(a)", gamma.get(x).toString());
+    assertNull(pattern.match(new FlatTerm(f(g(a), g(g(b))), table), 0));
+    assertEquals(1, instance.findInstance(pattern, 0));
+    assertEquals(-1, instance.findInstance(pattern, 2));
+    assertEquals(4, instance.findInstance(new FlatTerm(g(g(y)), table), 2));
+  }
+
+  @Test
+  public void testUnification() {
+    SymbolTable table = new SymbolTable();
+    Term s = f(x, g(y));
+    Term t = f(g(z), g(x));
+    Substitution theta = new FlatTerm(s, table).unify(new FlatTerm(t, table));
+    assertNotNull(theta);
+    assertEquals(s.substitute(theta).toString(), t.substitute(theta).toString());
+    assertEquals("f(g(z), g(g(z)))", s.substitute(theta).toString());
+    assertNull(new FlatTerm(f(x, x), table).unify(new FlatTerm(f(y, g(y)), table)));
+    assertNull(new FlatTerm(f(x, a), table).unify(new FlatTerm(f(b, y), table)).get(z));
+  }
+
+  @Test
+  public void testUnificationApart() {
+    SymbolTable table = new SymbolTable();
+    FlatTerm s = new FlatTerm(f(x, g(x)), table);
+    FlatTerm t = new FlatTerm(f(g(x), x), table);
+    assertNull(s.unify(t));
+    assertFalse(FlatTerm.unifiableApart(s, 0, t, 0));
+    assertNull(s.unify(new FlatTerm(f(g(x), y), table)));
+    assertTrue(FlatTerm.unifiableApart(s, 0, new FlatTerm(f(g(x), y), table), 0));
+    assertFalse(FlatTerm.unifiableApart(s, 0, new FlatTerm(f(y, g(a)), table), 2));
+    assertTrue(FlatTerm.unifiableApart(s, 2, new FlatTerm(f(y, g(a)), table), 2));
+    assertFalse(FlatTerm.unifiableApart(s, 0, new FlatTerm(f(y, y), table), 0));
+  }
+
+  @Test
+  public void testLocalVariables() {
+    SymbolTable table = new SymbolTable();
+    FlatTerm s = new FlatTerm(f(x, g(y)), table);
+    FlatTerm t = new FlatTerm(f(y, g(x)), table);
+    for (int i = 0; i < 100; i++) new FlatTerm(f(new Var("z" + i, o), g(a)), table);
+    assertEquals(3, table.querySymbolCount());
+    assertEquals(2, s.queryVariableCount());
+    assertSame(y, t.queryVariable(0));
+    assertTrue(s.equalSubterms(1, t, 3));
+    assertFalse(s.equalSubterms(0, t, 0));
+    assertTrue(s.equalSubterms(2, new FlatTerm(g(y), table), 0));
+  }
+}
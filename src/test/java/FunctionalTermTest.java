@@ -202,6 +202,37 @@ public class FunctionalTermTest {
     assertTrue(lst.get(3).toString().equals("ε"));
   }
 
+  @Test
+  public void testVisitSubterms() {
+    Type type = new ArrowType(baseType("a"), arrowType("b", "a"));
+    FunctionSymbol f = new UserDefinedSymbol("f", type);
+    Term arg1 = constantTerm("c", baseType("a"));
+    Term arg2 = unaryTerm("g", baseType("b"), new Var("x", baseType("b")));
+    Term term = new FunctionalTerm(f, arg1, arg2);    // f(c,g(x))
+    ArrayList<Position> positions = term.queryAllPositions();
+    ArrayList<String> visited = new ArrayList<String>();
+    assertTrue(term.visitSubterms((subterm, path) -> {
+      Position p = path.toPosition();
+      assertTrue(subterm.equals(term.querySubterm(p)));
+      visited.add(p.toString());
+      return true;
+    }));
+    assertTrue(visited.size() == positions.size());
+    for (int i = 0; i < positions.size(); i++) assertEquals(positions.get(i).toString(), visited.get(i));
+  }
+
+  @Test
+  public void testVisitSubtermsStopsEarly() {
+    Term term = twoArgTerm();    // f(c,g(d))
+    ArrayList<Term> visited = new ArrayList<Term>();
+    assertFalse(term.visitSubterms((subterm, path) -> {
+      visited.add(subterm);
+      return path.queryDepth() != 1 || path.queryArgument(0) != 2;
+    }));
+    assertTrue(visited.size() == 3);
+    assertEquals("g(d)", visited.get(2).toString());
+  }
+
   @Test
   public void testSubtermGood() {
     Position p;
@@ -299,4 +330,36 @@ public class FunctionalTermTest {
     assertTrue(subst2.get(x).equals(a));
     assertTrue(subst2.get(y).equals(y));
   }
+
+  @Test
+  public void testEqualTermsHaveEqualHashes() {
+    assertEquals(twoArgTerm().hashCode(), twoArgTerm().hashCode());
+    assertEquals(twoArgTerm().queryShapeHash(), twoArgTerm().queryShapeHash());
+    FunctionSymbol c = new UserDefinedSymbol("c", baseType("a"));
+    Term capp = new FunctionalTerm(c, new ArrayList<Term>());
+    assertTrue(capp.equals(c));
+    assertEquals(c.hashCode(), capp.hashCode());
+  }
+
+  @Test
+  public void testTermsUsableAsHashKeys() {
+    java.util.HashSet<Term> set = new java.util.HashSet<>();
+    set.add(twoArgTerm());
+    assertTrue(set.contains(twoArgTerm()));
+    assertFalse(set.contains(constantTerm("c", baseType("a"))));
+  }
+
+  @Test
+  public void testVariantsHaveEqualShapeHashes() {
+    Type type = new ArrowType(baseType("a"), arrowType("a", "a"));
+    FunctionSymbol f = new UserDefinedSymbol("f", type);
+    Variable x = new Var("x", baseType("a"));
+    Variable y = new Var("y", baseType("a"));
+    Term s = new FunctionalTerm(f, x, unaryTerm("g", baseType("a"), y));
+    Term t = new FunctionalTerm(f, y, unaryTerm("g", baseType("a"), x));
+    assertFalse(s.equals(t));
+    assertEquals(s.queryShapeHash(), t.queryShapeHash());
+    Term u = new FunctionalTerm(f, y, unaryTerm("h", baseType("a"), x));
+    assertNotEquals(s.queryShapeHash(), u.queryShapeHash());
+  }
 }
@@ -0,0 +1,81 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import cora.interfaces.types.Type;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.rewriting.Rule;
+import cora.types.*;
+import cora.terms.*;
+import cora.rewriting.FirstOrderRule;
+import cora.rewriting.MatchingAutomaton;
+
+public class MatchingAutomatonTest {
+  private Type o = new Sort("o");
+  private FunctionSymbol a = new UserDefinedSymbol("a", o);
+  private FunctionSymbol b = new UserDefinedSymbol("b", o);
+  private FunctionSymbol f = new UserDefinedSymbol("f", new ArrowType(o, new ArrowType(o, o)));
+  private FunctionSymbol g = new UserDefinedSymbol("g", new ArrowType(o, o));
+  private Var x = new Var("x", o);
+  private Var y = new Var("y", o);
+
+  /** f(x, a) -> x, f(x, x) -> g(x), f(g(x), y) -> f(y, x), g(a) -> b, a -> b */
+  private List<Rule> rules() {
+    ArrayList<Rule> rules = new ArrayList<>();
+    rules.add(new FirstOrderRule(new FunctionalTerm(f, x, a), x));
+    rules.add(new FirstOrderRule(new FunctionalTerm(f, x, x), new FunctionalTerm(g, x)));
+    rules.add(new FirstOrderRule(new FunctionalTerm(f, new FunctionalTerm(g, x), y), new FunctionalTerm(f, y, x)));
+    rules.add(new FirstOrderRule(new FunctionalTerm(g, a), b));
+    rules.add(new FirstOrderRule(a, b));
+    return rules;
+  }
+
+  /** Checks that the automaton finds exactly the rules that are applicable to t. */
+  private void assertMatches(MatchingAutomaton automaton, Term t, int ... expected) {
+    List<Rule> all = rules();
+    List<Rule> matching = automaton.queryMatchingRules(t);
+    assertEquals(expected.length, matching.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(all.get(expected[i]).toString(), matching.get(i).toString());
+    }
+    for (Rule rule : all) {
+      boolean found = false;
+      for (Rule m : matching) found = found || m.toString().equals(rule.toString());
+      assertEquals(rule.applicable(t), found);
+    }
+    assertEquals(expected.length > 0, automaton.matches(t));
+  }
+
+  @Test
+  public void testLinearMatching() {
+    MatchingAutomaton automaton = new MatchingAutomaton(rules());
+    assertMatches(automaton, new FunctionalTerm(f, b, a), 0);
+    assertMatches(automaton, new FunctionalTerm(f, new FunctionalTerm(g, b), a), 0, 2);
+    assertMatches(automaton, new FunctionalTerm(g, a), 3);
+    assertMatches(automaton, new FunctionalTerm(g, b));
+    assertMatches(automaton, a, 4);
+    assertMatches(automaton, x);
+  }
+
+  @Test
+  public void testNonLinearMatching() {
+    MatchingAutomaton automaton = new MatchingAutomaton(rules());
+    assertMatches(automaton, new FunctionalTerm(f, a, a), 0, 1);
+    assertMatches(automaton, new FunctionalTerm(f, new FunctionalTerm(g, y), new FunctionalTerm(g, y)), 1, 2);
+    assertMatches(automaton, new FunctionalTerm(f, new FunctionalTerm(g, y), new FunctionalTerm(g, x)), 2);
+    assertMatches(automaton, new FunctionalTerm(f, y, x));
+  }
+
+  @Test
+  public void testReduceAtRoot() {
+    MatchingAutomaton automaton = new MatchingAutomaton(rules());
+    Term t = new FunctionalTerm(f, new FunctionalTerm(g, b), a);
+    assertEquals("g(b)", automaton.reduceAtRoot(t).toString());
+    t = new FunctionalTerm(f, new FunctionalTerm(g, b), new FunctionalTerm(g, a));
+    assertEquals("f(g(a), b)", automaton.reduceAtRoot(t).toString());
+    t = new FunctionalTerm(f, b, b);
+    assertEquals("g(b)", automaton.reduceAtRoot(t).toString());
+    assertNull(automaton.reduceAtRoot(new FunctionalTerm(f, b, y)));
+  }
+}
@@ -0,0 +1,80 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import cora.interfaces.terms.Term;
+import cora.parsers.TrsInputReader;
+import cora.rewriting.MemoisingEvaluator;
+import cora.rewriting.TermRewritingSystem;
+
+public class MemoisingEvaluatorTest {
+  private static final String FIB = "(VAR x y)\n(RULES\n  +(x,0) -> x\n  +(x,s(y)) -> s(+(x,y))\n  fib(0) -> 0\n" +
+                                    "  fib(s(0)) -> s(0)\n  fib(s(s(x))) -> +(fib(s(x)), fib(x))\n)";
+
+  private TermRewritingSystem fib() throws Exception {
+    return (TermRewritingSystem)TrsInputReader.readTrsFromString(FIB);
+  }
+
+  private String numeral(int n) {
+    return "s(".repeat(n) + "0" + ")".repeat(n);
+  }
+
+  @Test
+  public void testSameNormalFormAsNormalize() throws Exception {
+    TermRewritingSystem trs = fib();
+    Term term = TrsInputReader.readTermFromString("fib(" + numeral(10) + ")", trs);
+    MemoisingEvaluator evaluator = new MemoisingEvaluator(trs, 1000);
+    assertEquals(trs.normalize(term).toString(), evaluator.normalize(term).toString());
+    assertEquals(numeral(55), evaluator.normalize(term).toString());
+  }
+
+  @Test
+  public void testCacheSavesSteps() throws Exception {
+    TermRewritingSystem trs = fib();
+    Term term = TrsInputReader.readTermFromString("fib(" + numeral(15) + ")", trs);
+    MemoisingEvaluator uncached = new MemoisingEvaluator(trs, 0);
+    MemoisingEvaluator cached = new MemoisingEvaluator(trs, 1000);
+    assertEquals(uncached.normalize(term).toString(), cached.normalize(term).toString());
+    assertEquals(0, uncached.queryHits());
+    assertEquals(0, uncached.querySize());
+    assertTrue(cached.queryHits() > 0);
+    assertTrue(cached.querySteps() * 5 < uncached.querySteps());
+    long steps = cached.querySteps();
+    cached.normalize(term);
+    assertEquals(steps, cached.querySteps());
+  }
+
+  @Test
+  public void testNormalFormsAreNotHits() throws Exception {
+    TermRewritingSystem trs = fib();
+    Term term = TrsInputReader.readTermFromString(numeral(20), trs);
+    MemoisingEvaluator evaluator = new MemoisingEvaluator(trs, 1000);
+    evaluator.normalize(term);
+    evaluator.normalize(term);
+    assertEquals(0, evaluator.queryHits());
+    evaluator.normalize(TrsInputReader.readTermFromString("fib(" + numeral(3) + ")", trs));
+    long hits = evaluator.queryHits();
+    evaluator.normalize(TrsInputReader.readTermFromString("fib(" + numeral(3) + ")", trs));
+    assertEquals(hits + 1, evaluator.queryHits());
+  }
+
+  @Test
+  public void testCapacity() throws Exception {
+    TermRewritingSystem trs = fib();
+    Term term = TrsInputReader.readTermFromString("fib(" + numeral(12) + ")", trs);
+    MemoisingEvaluator evaluator = new MemoisingEvaluator(trs, 5);
+    assertEquals(numeral(144), evaluator.normalize(term).toString());
+    assertEquals(5, evaluator.querySize());
+    evaluator.clear();
+    assertEquals(0, evaluator.querySize());
+  }
+
+  @Test
+  public void testStepBudgetAndVariables() throws Exception {
+    TermRewritingSystem trs = fib();
+    Term term = TrsInputReader.readTermFromString("fib(" + numeral(10) + ")", trs);
+    MemoisingEvaluator evaluator = new MemoisingEvaluator(trs, 1000);
+    assertNull(evaluator.normalize(term, 5));
+    assertEquals(numeral(55), evaluator.normalize(term, 1000).toString());
+    term = TrsInputReader.readTermFromString("+(fib(s(s(0))), s(y))", trs);
+    assertEquals("s(+(s(0), y))", evaluator.normalize(term).toString());
+  }
+}
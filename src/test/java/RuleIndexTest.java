@@ -0,0 +1,94 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import cora.interfaces.types.Type;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.rewriting.Rule;
+import cora.types.*;
+import cora.terms.*;
+import cora.rewriting.FirstOrderRule;
+import cora.rewriting.SimpleRule;
+import cora.rewriting.RuleIndex;
+
+public class RuleIndexTest {
+  private Type o = new Sort("o");
+  private FunctionSymbol a = new UserDefinedSymbol("a", o);
+  private FunctionSymbol b = new UserDefinedSymbol("b", o);
+  private FunctionSymbol f = new UserDefinedSymbol("f", new ArrowType(o, new ArrowType(o, o)));
+  private FunctionSymbol g = new UserDefinedSymbol("g", new ArrowType(o, o));
+  private Var x = new Var("x", o);
+  private Var y = new Var("y", o);
+
+  /** f(x, a) -> x, f(g(x), y) -> y, g(a) -> b, g(g(x)) -> x, a -> b */
+  private List<Rule> rules() {
+    ArrayList<Rule> rules = new ArrayList<>();
+    rules.add(new FirstOrderRule(new FunctionalTerm(f, x, a), x));
+    rules.add(new FirstOrderRule(new FunctionalTerm(f, new FunctionalTerm(g, x), y), y));
+    rules.add(new FirstOrderRule(new FunctionalTerm(g, a), b));
+    rules.add(new FirstOrderRule(new FunctionalTerm(g, new FunctionalTerm(g, x)), x));
+    rules.add(new FirstOrderRule(a, b));
+    return rules;
+  }
+
+  private void assertCandidates(RuleIndex index, Term t, int ... expected) {
+    List<Rule> all = rules();
+    List<Rule> candidates = index.queryCandidates(t);
+    assertEquals(expected.length, candidates.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(all.get(expected[i]).toString(), candidates.get(i).toString());
+    }
+  }
+
+  @Test
+  public void testFunctionalQuery() {
+    RuleIndex index = new RuleIndex(rules());
+    assertEquals(5, index.size());
+    assertCandidates(index, new FunctionalTerm(f, b, a), 0);
+    assertCandidates(index, new FunctionalTerm(f, new FunctionalTerm(g, b), a), 0, 1);
+    assertCandidates(index, new FunctionalTerm(f, new FunctionalTerm(g, b), b), 1);
+    assertCandidates(index, new FunctionalTerm(g, b));
+    assertCandidates(index, a, 4);
+  }
+
+  @Test
+  public void testVariablesInQuery() {
+    RuleIndex index = new RuleIndex(rules());
+    assertCandidates(index, new FunctionalTerm(f, y, y), 0, 1);
+    assertCandidates(index, new FunctionalTerm(g, y), 2, 3);
+    assertCandidates(index, new FunctionalTerm(g, new FunctionalTerm(g, new FunctionalTerm(g, y))), 3);
+    assertCandidates(index, new FunctionalTerm(f, y, new FunctionalTerm(g, y)), 1);
+  }
+
+  @Test
+  public void testCandidatesIncludeAllUnifiableRules() {
+    List<Rule> all = rules();
+    RuleIndex index = new RuleIndex(all);
+    Term[] queries = { new FunctionalTerm(f, new FunctionalTerm(g, x), a), new FunctionalTerm(g, new FunctionalTerm(g, a)),
+                       new FunctionalTerm(f, x, x), new FunctionalTerm(g, x), b };
+    for (Term q : queries) {
+      List<Rule> candidates = index.queryCandidates(q);
+      for (Rule rule : all) {
+        if (q.unify(rule.queryLeftSide()) != null) {
+          boolean found = false;
+          for (Rule c : candidates) found = found || c.toString().equals(rule.toString());
+          assertTrue(q + " should have candidate " + rule, found);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSymbolWithDifferentArities() {
+    FunctionSymbol h = new UserDefinedSymbol("h", new ArrowType(o, o));
+    List<Rule> rules = new ArrayList<>();
+    rules.add(new SimpleRule(new FunctionalTerm(f, x), h));         // f(x) -> h
+    rules.add(new SimpleRule(new FunctionalTerm(f, a, y), y));      // f(a, y) -> y
+    RuleIndex index = new RuleIndex(rules);
+    assertEquals(List.of(rules.get(1)), index.queryCandidates(new FunctionalTerm(f, a, b)));
+    assertEquals(List.of(rules.get(0)), index.queryCandidates(new FunctionalTerm(f, b)));
+    assertEquals(List.of(rules.get(1)), index.queryCandidates(new FunctionalTerm(f, y, y)));
+    assertEquals(List.of(rules.get(0)), index.queryCandidates(new FunctionalTerm(f, y)));
+  }
+}
@@ -0,0 +1,116 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import cora.exceptions.TypingError;
+import cora.interfaces.types.Type;
+import cora.interfaces.terms.*;
+import cora.types.*;
+import cora.terms.*;
+import cora.terms.positions.*;
+
+public class TermFactoryTest {
+  private Type baseType(String name) {
+    return new Sort(name);
+  }
+
+  private FunctionSymbol binarySymbol(String name) {
+    return new UserDefinedSymbol(name, new ArrowType(baseType("o"), new ArrowType(baseType("o"), baseType("o"))));
+  }
+
+  private Term unshared(Variable x) {
+    FunctionSymbol f = binarySymbol("f");
+    FunctionSymbol a = new UserDefinedSymbol("a", baseType("o"));
+    return new FunctionalTerm(f, new FunctionalTerm(f, x, a), a);
+  }
+
+  @Test
+  public void testInternEqualTermsGivesSameObject() {
+    TermFactory factory = new TermFactory();
+    Variable x = new Var("x", baseType("o"));
+    Term s = factory.intern(unshared(x));
+    Term t = factory.intern(unshared(x));
+    assertSame(s, t);
+    assertTrue(factory.owns(s));
+    assertSame(s.queryImmediateSubterm(2), s.queryImmediateSubterm(1).queryImmediateSubterm(2));
+  }
+
+  @Test
+  public void testInternIsIdempotent() {
+    TermFactory factory = new TermFactory();
+    Term s = factory.intern(unshared(new Var("x", baseType("o"))));
+    assertSame(s, factory.intern(s));
+  }
+
+  @Test
+  public void testSharedAndUnsharedTermsAreEqual() {
+    TermFactory factory = new TermFactory();
+    Variable x = new Var("x", baseType("o"));
+    Term s = factory.intern(unshared(x));
+    assertTrue(s.equals(unshared(x)));
+    assertTrue(unshared(x).equals(s));
+    assertFalse(s.equals(factory.intern(unshared(new Var("x", baseType("o"))))));
+  }
+
+  @Test
+  public void testConstantWithoutArgumentsIsSymbol() {
+    TermFactory factory = new TermFactory();
+    FunctionSymbol a = new UserDefinedSymbol("a", baseType("o"));
+    Term t = factory.createFunctionalTerm(a, new ArrayList<>());
+    assertSame(factory.createSymbol("a", baseType("o")), t);
+    assertNotSame(factory.createSymbol("a", baseType("b")), t);
+  }
+
+  @Test
+  public void testSubstituteKeepsSharing() {
+    TermFactory factory = new TermFactory();
+    Variable x = new Var("x", baseType("o"));
+    Term s = factory.intern(unshared(x));
+    Term a = factory.createSymbol("a", baseType("o"));
+    Term result = s.substitute(new Subst(x, a));
+    assertTrue(factory.owns(result));
+    Term direct = factory.createFunctionalTerm(binarySymbol("f"),
+      List.of(factory.createFunctionalTerm(binarySymbol("f"), List.of(a, a)), a));
+    assertSame(direct, result);
+  }
+
+  @Test
+  public void testSubstituteWithoutChangesReturnsSameTerm() {
+    Variable x = new Var("x", baseType("o"));
+    Term s = unshared(x);
+    assertSame(s, s.substitute(new Subst(new Var("y", baseType("o")), x)));
+  }
+
+  @Test
+  public void testReplaceSubtermKeepsSharing() {
+    TermFactory factory = new TermFactory();
+    Variable x = new Var("x", baseType("o"));
+    Term s = factory.intern(unshared(x));
+    Position pos = new ArgumentPosition(1, new ArgumentPosition(1, new EmptyPosition()));
+    Term result = s.replaceSubterm(pos, factory.createSymbol("a", baseType("o")));
+    Term expected = factory.intern(unshared(x).substitute(new Subst(x, new UserDefinedSymbol("a", baseType("o")))));
+    assertSame(expected, result);
+  }
+
+  @Test(expected = TypingError.class)
+  public void testCreateIllTypedTerm() {
+    TermFactory factory = new TermFactory();
+    FunctionSymbol f = binarySymbol("f");
+    factory.createFunctionalTerm(f, List.of(new Var("x", baseType("o")), new Var("y", baseType("b"))));
+  }
+
+  @Test
+  public void testUnusedTermsAreCollected() throws InterruptedException {
+    TermFactory factory = new TermFactory();
+    Variable x = new Var("x", baseType("o"));
+    Term kept = factory.intern(unshared(x));
+    int before = factory.size();
+    for (int i = 0; i < 100; i++) factory.intern(unshared(new Var("y", baseType("o"))));
+    for (int i = 0; i < 20 && factory.size() > before; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertEquals(before, factory.size());
+    assertSame(kept, factory.intern(unshared(x)));
+  }
+}
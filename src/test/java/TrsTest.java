@@ -24,10 +24,12 @@ import cora.interfaces.rewriting.Rule;
 import cora.interfaces.rewriting.TRS;
 import cora.types.*;
 import cora.terms.*;
+import cora.terms.positions.EmptyPosition;
 import cora.rewriting.UserDefinedAlphabet;
 import cora.rewriting.SimpleRule;
 import cora.rewriting.TermRewritingSystem;
 import cora.parsers.CoraInputReader;
+import cora.parsers.TrsInputReader;
 
 public class TrsTest {
   private Type baseType(String name) {
@@ -137,6 +139,65 @@ public class TrsTest {
     assertTrue(trs.leftmostInnermostReduce(term) == null);
   }
 
+  @Test
+  public void testApplicableRules() {
+    TermRewritingSystem trs = createTermRewritingSystem();
+    Term term = CoraInputReader.readTermFromString("g(f(a, a), f(g(b, b, b), a), b)", trs);
+    Position pos = trs.leftmostInnermostRedexPosition(term);
+    assertEquals("1.ε", pos.toString());
+    assertEquals(1, trs.queryApplicableRules(term, pos).size());
+    assertEquals("f(x, a) → x", trs.queryApplicableRules(term, pos).get(0).toString());
+    assertEquals(0, trs.queryApplicableRules(term, new EmptyPosition()).size());
+    term = CoraInputReader.readTermFromString("g(f(a, a), f(a, a), b)", trs);
+    assertEquals("g(x, x, b) → f(b, x)", trs.queryApplicableRules(term, new EmptyPosition()).get(0).toString());
+  }
+
+  @Test
+  public void testNormalize() {
+    TermRewritingSystem trs = createTermRewritingSystem();
+    String str = "g(f(a, b), f(g(a, b, a), g(b, b, b)), b)";
+    Term term = CoraInputReader.readTermFromString(str, trs);
+    assertEquals("g(f(a, b), f(g(a, b, a), f(b, b)), b)", trs.normalize(term).toString());
+    term = CoraInputReader.readTermFromString("g(f(b, a), f(b, a), f(b, a))", trs);
+    assertEquals("f(b, b)", trs.normalize(term).toString());
+  }
+
+  @Test
+  public void testNormalizeFibonacci() throws Exception {
+    String program = "(VAR x y)\n(RULES\n  +(x,0) -> x\n  +(x,s(y)) -> s(+(x,y))\n  fib(0) -> 0\n" +
+                     "  fib(s(0)) -> s(0)\n  fib(s(s(x))) -> +(fib(s(x)), fib(x))\n)";
+    TermRewritingSystem trs = (TermRewritingSystem)TrsInputReader.readTrsFromString(program);
+    Term term = TrsInputReader.readTermFromString("fib(s(s(s(s(s(s(0)))))))", trs);
+    assertEquals("s(s(s(s(s(s(s(s(0))))))))", trs.normalize(term).toString());
+    assertEquals("s(s(s(s(s(s(s(s(0))))))))", trs.normalize(term, 1000).toString());
+    assertNull(trs.normalize(term, 10));
+  }
+
+  @Test
+  public void testSymbolWithDifferentArities() {
+    ArrayList<FunctionSymbol> symbols = new ArrayList<FunctionSymbol>();
+    FunctionSymbol h = new UserDefinedSymbol("h", arrowType("o", "o"));
+    symbols.add(a());
+    symbols.add(b());
+    symbols.add(f());
+    symbols.add(h);
+    Var x = new Var("x", baseType("o"));
+    Var y = new Var("y", baseType("o"));
+    ArrayList<Rule> rules = new ArrayList<Rule>();
+    rules.add(new SimpleRule(new FunctionalTerm(f(), x), h));        // f(x) -> h
+    rules.add(new SimpleRule(new FunctionalTerm(f(), a(), y), y));   // f(a, y) -> y
+    TermRewritingSystem trs = new TermRewritingSystem(new UserDefinedAlphabet(symbols), rules);
+
+    Term term = new FunctionalTerm(f(), a(), b());
+    assertEquals(1, trs.queryApplicableRules(term, new EmptyPosition()).size());
+    assertTrue(trs.queryApplicableRules(term, new EmptyPosition()).get(0) == rules.get(1));
+    assertEquals("b", trs.leftmostInnermostReduce(term).toString());
+    assertEquals("b", trs.normalize(term).toString());
+    Term partial = new FunctionalTerm(f(), b());
+    assertEquals(1, trs.queryApplicableRules(partial, new EmptyPosition()).size());
+    assertEquals("h", trs.normalize(partial).toString());
+  }
+
   @Test
   public void testGetUniqueVariableName() {
     TermRewritingSystem trs = createTermRewritingSystem();
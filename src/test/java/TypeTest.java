@@ -152,4 +152,13 @@ public class TypeTest {
     assertTrue(intintbooltype.queryArrowOutputType().equals(intbooltype));
     assertTrue(intintbooltype.queryOutputSort().equals(booltype));
   }
+
+  @Test
+  public void testEqualTypesHaveEqualHashes() {
+    Type a = new ArrowType(intType(), new ArrowType(boolType(), intType()));
+    Type b = new ArrowType(new Sort("Int"), new ArrowType(new Sort("Bool"), new Sort("Int")));
+    assertTrue(a.equals((Object)b));
+    assertEquals(a.hashCode(), b.hashCode());
+    assertEquals(intType().hashCode(), new Sort("Int").hashCode());
+  }
 }
@@ -0,0 +1,68 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import cora.interfaces.types.Type;
+import cora.interfaces.terms.*;
+import cora.types.*;
+import cora.terms.*;
+
+public class VarSupplyTest {
+  private Type baseType(String name) {
+    return new Sort(name);
+  }
+
+  @Test
+  public void testCreateVariable() {
+    VarSupply supply = new VarSupply();
+    Variable x = supply.createVariable("x", baseType("a"));
+    assertEquals("x", x.queryName());
+    assertEquals(baseType("a"), x.queryType());
+    assertFalse(x.equals(supply.createVariable("x", baseType("a"))));
+  }
+
+  @Test
+  public void testFreshNamesDoNotGrow() {
+    VarSupply supply = new VarSupply();
+    Variable x = supply.createFreshVariable("x", baseType("o"));
+    assertEquals("x'", x.queryName());
+    assertEquals("x'", supply.createFreshVariable(x.queryName(), baseType("o")).queryName());
+    assertEquals("x'", supply.createFreshVariable("x'''", baseType("o")).queryName());
+    assertEquals("'", supply.createFreshVariable("", baseType("o")).queryName());
+  }
+
+  @Test
+  public void testIndexesDoNotCollideWithOtherVariables() {
+    VarSupply supply1 = new VarSupply();
+    VarSupply supply2 = new VarSupply();
+    Set<Integer> indexes = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(indexes.add(supply1.createVariable("x", baseType("o")).queryVariableIndex()));
+      assertTrue(indexes.add(supply2.createVariable("y", baseType("o")).queryVariableIndex()));
+      assertTrue(indexes.add(new Var("z", baseType("o")).queryVariableIndex()));
+    }
+  }
+
+  @Test
+  public void testConcurrentUse() throws Exception {
+    VarSupply supply = new VarSupply();
+    ExecutorService exec = Executors.newFixedThreadPool(8);
+    List<Future<List<Variable>>> futures = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      futures.add(exec.submit(() -> {
+        List<Variable> vars = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) vars.add(supply.createFreshVariable("x", baseType("o")));
+        return vars;
+      }));
+    }
+    Set<Integer> indexes = new HashSet<>();
+    for (Future<List<Variable>> future : futures) {
+      for (Variable x : future.get()) assertTrue(indexes.add(x.queryVariableIndex()));
+    }
+    exec.shutdown();
+    assertEquals(16000, indexes.size());
+  }
+}
@@ -223,4 +223,13 @@ public class VarTest {
     assertTrue(gamma.get(x).equals(q));
     assertTrue(gamma.domain().size() == 1);
   }
+
+  @Test
+  public void testHashes() {
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("x", baseType("o"));
+    assertEquals(x.hashCode(), x.hashCode());
+    assertNotEquals(x.hashCode(), y.hashCode());
+    assertEquals(x.queryShapeHash(), y.queryShapeHash());
+  }
 }
@@ -202,4 +202,35 @@ public class AbstractUnfoldingTest {
     List<AbstractUnfoldingAnalyser.AbstractRule> unfoldedRules1 = abstractUnfolder.unfoldTest(getRulesFromTRS(trs));
     assertEquals(0, unfoldedRules1.size());
   }
+
+  private String rulesToString(List<AbstractUnfoldingAnalyser.AbstractRule> rules) {
+    StringBuilder result = new StringBuilder();
+    for (AbstractUnfoldingAnalyser.AbstractRule r : rules) result.append(r.getRule()).append(r.semiUnified()).append("; ");
+    return result.toString();
+  }
+
+  @Test
+  public void testParallelUnfoldGivesSameRules() {
+    Term zero = new FunctionalTerm(constant("0", "o"), new ArrayList<>());
+    FunctionSymbol f = functionSymbol("f", "o", "o", "o", "o");
+    FunctionSymbol s = functionSymbol("s", "o", "o");
+    FunctionSymbol plus = functionSymbol("+", "o", "o", "o");
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    Term r1l = new FunctionalTerm(f, new ArrayList<>(List.of(zero, new FunctionalTerm(s, zero), x)));
+    Term r1r = new FunctionalTerm(f, new ArrayList<>(List.of(x, new FunctionalTerm(plus, x, x), x)));
+    Term r2l = new FunctionalTerm(plus, x, new FunctionalTerm(s, y));
+    Term r2r = new FunctionalTerm(s, new FunctionalTerm(plus, x, y));
+    Term r3l = new FunctionalTerm(plus, x, zero);
+    TRS trs = createTermRewritingSystem(nonTypedSymbols(), new ArrayList<>(List.of(new FirstOrderRule(r1l, r1r), new FirstOrderRule(r2l, r2r), new FirstOrderRule(r3l, x))));
+    var sequential = new AbstractUnfoldingAnalyser(trs);
+    var parallel = new AbstractUnfoldingAnalyser(trs);
+    parallel.setThreads(4);
+    var expected = sequential.abstractionTest(getRulesFromTRS(trs));
+    var abstracted = parallel.abstractionTest(getRulesFromTRS(trs));
+    assertEquals(rulesToString(expected), rulesToString(abstracted));
+    List<Rule> rules = new ArrayList<>();
+    for (AbstractUnfoldingAnalyser.AbstractRule r : abstracted) rules.add(r.getRule());
+    assertEquals(rulesToString(sequential.unfoldTest(rules)), rulesToString(parallel.unfoldTest(rules)));
+  }
 }
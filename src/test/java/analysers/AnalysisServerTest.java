@@ -0,0 +1,56 @@
+package analysers;
+
+import cora.analysers.AnalysisServer;
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.parsers.TrsInputReader;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class AnalysisServerTest {
+  private static final String LOOP = "(VAR x)\\n(RULES\\n  f(x) -> f(x)\\n)\\n";
+  private static final String TERMINATING = "(VAR x)\\n(RULES\\n  f(s(x)) -> f(x)\\n)\\n";
+
+  /** Creates a server whose requests consist of a single argument: the escaped text of a TRS. */
+  private AnalysisServer createServer(int workers) {
+    return new AnalysisServer(arguments -> {
+      if (arguments.size() != 1) throw new Exception("Expected a single program.");
+      return new ConcreteUnfoldingAnalyser(TrsInputReader.readTrsFromString(arguments.get(0)), 5,
+                                           new SemiUnification(), false).analyzeMillis(10000);
+    }, workers);
+  }
+
+  private String[] serve(AnalysisServer server, String input) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    server.serve(new BufferedReader(new StringReader(input)), new PrintStream(bytes));
+    server.shutdown();
+    String output = bytes.toString();
+    return output.isEmpty() ? new String[0] : output.split("\n");
+  }
+
+  @Test
+  public void testServe() throws Exception {
+    String input = "loop\t" + LOOP + "\n\nterminating\t" + TERMINATING + "\nbroken\t(RULES\\n f(x ->\nempty\n";
+    String[] lines = serve(createServer(2), input);
+    assertEquals(4, lines.length);
+    Arrays.sort(lines);
+    assertTrue(lines[0].startsWith("broken\tERROR\t0\t"));
+    assertTrue(lines[1].startsWith("empty\tERROR\t0\tExpected a single program."));
+    assertTrue(lines[2].startsWith("loop\tNONTERMINATES\t"));
+    assertTrue(lines[3].startsWith("terminating\tMAYBE\t"));
+  }
+
+  @Test
+  public void testQuit() throws Exception {
+    String[] lines = serve(createServer(1), "loop\t" + LOOP + "\nquit\nterminating\t" + TERMINATING + "\n");
+    assertEquals(1, lines.length);
+    assertTrue(lines[0].startsWith("loop\tNONTERMINATES\t"));
+  }
+}
@@ -0,0 +1,80 @@
+package analysers;
+
+import cora.analysers.general.semiunification.GraphSemiUnification;
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.nontermination.unfolding.AbstractUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.AnalysisSession;
+import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.UnfoldingAnalyser;
+import cora.interfaces.rewriting.TRS;
+import cora.parsers.TrsInputReader;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static analysers.UnfoldingProblems.*;
+import static org.junit.Assert.*;
+
+public class AnalysisSessionTest {
+  /** Creates the analysers to compare: both techniques with several settings. */
+  private List<UnfoldingAnalyser> createAnalysers(TRS trs, AnalysisSession session) {
+    List<UnfoldingAnalyser> analysers = new ArrayList<>();
+    for (int unfoldings = 1; unfoldings <= 3; unfoldings++) {
+      for (boolean augment : List.of(true, false)) {
+        if (session == null) {
+          analysers.add(new AbstractUnfoldingAnalyser(trs, unfoldings, new SemiUnification(), augment));
+          analysers.add(new ConcreteUnfoldingAnalyser(trs, unfoldings, new GraphSemiUnification(), augment));
+        }
+        else {
+          analysers.add(session.createAbstractUnfolder(unfoldings, new SemiUnification(), augment));
+          analysers.add(session.createConcreteUnfolder(unfoldings, new GraphSemiUnification(), augment));
+        }
+      }
+    }
+    return analysers;
+  }
+
+  @Test
+  public void testSameResultsAsSeparateAnalysers() throws Exception {
+    TRS trs = TrsInputReader.readTrsFromString(PLUS);
+    List<UnfoldingAnalyser> separate = createAnalysers(trs, null);
+    List<UnfoldingAnalyser> shared = createAnalysers(trs, new AnalysisSession(trs));
+    for (int i = 0; i < separate.size(); i++) assertEquals(describe(separate.get(i)), describe(shared.get(i)));
+  }
+
+  @Test
+  public void testConcurrentAnalysers() throws Exception {
+    TRS trs = TrsInputReader.readTrsFromString(PLUS);
+    List<String> expected = new ArrayList<>();
+    for (UnfoldingAnalyser analyser : createAnalysers(trs, null)) expected.add(describe(analyser));
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (UnfoldingAnalyser analyser : createAnalysers(trs, new AnalysisSession(trs))) {
+        futures.add(pool.submit(() -> describe(analyser)));
+      }
+      for (int i = 0; i < futures.size(); i++) assertEquals(expected.get(i), futures.get(i).get());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testSharedGraphAndAugmentationLimits() throws Exception {
+    TRS trs = TrsInputReader.readTrsFromString(PLUS);
+    AnalysisSession session = new AnalysisSession(trs);
+    assertSame(session.queryTRS(), trs);
+    assertSame(session.queryGraph(), session.queryGraph());
+    for (int limit : List.of(2, 8, -1)) {
+      AbstractUnfoldingAnalyser separate = new AbstractUnfoldingAnalyser(trs, 2, new SemiUnification(), true);
+      separate.setAugmentationLimits(1, limit);
+      AbstractUnfoldingAnalyser shared = session.createAbstractUnfolder(2, new SemiUnification(), true);
+      shared.setAugmentationLimits(1, limit);
+      assertEquals(describe(separate), describe(shared));
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class AugmentedTRSTest {
@@ -77,7 +78,7 @@ public class AugmentedTRSTest {
   private UnfoldingAnalyser concreteUnfolder() {
     return new UnfoldingAnalyser(null, 0, null) {
       @Override
-      protected Result analyze() {
+      protected Result analyzeUnfolding() {
         return null;
       }
     };
@@ -175,4 +176,31 @@ public class AugmentedTRSTest {
     assertTrue(trsContainsStringRule(augmentedTRS, "g(x, g(x', y'))", "g(x', y')"));
     assertTrue(trsContainsStringRule(augmentedTRS, "g(g(x', y'), g(x', y'))", "g(x', y')"));
   }
+
+  @Test
+  public void testAugmentationLimits() {
+    Variable x = new Var("x", baseType("o"));
+    Term r1l = new FunctionalTerm(functionSymbol("f", "o", "o", "o", "o"), new ArrayList<>(List.of(constant("0", "o"), constant("1", "o"), x)));
+    Term r1r = new FunctionalTerm(functionSymbol("f", "o", "o", "o", "o"), new ArrayList<>(List.of(x, x, x)));
+
+    x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    Term r2l = new FunctionalTerm(functionSymbol("g", "o", "o", "o"), new ArrayList<>(List.of(x, y)));
+    TRS trs = createTermRewritingSystem(nonTypedSymbols(), new ArrayList<>(List.of(new FirstOrderRule(r1l, r1r), new FirstOrderRule(r2l, x), new FirstOrderRule(r2l, y))));
+
+    UnfoldingAnalyser unfolder = concreteUnfolder();
+    unfolder.setAugmentationLimits(0, -1);
+    assertEquals(3, unfolder.createAugmentedTRSTest(trs).queryRuleCount());
+    unfolder.setAugmentationLimits(1, -1);
+    TRS augmentedTRS = unfolder.createAugmentedTRSTest(trs);
+    assertEquals(13, augmentedTRS.queryRuleCount());
+    assertTrue(trsContainsStringRule(augmentedTRS, "g(x, g(x', y'))", "x"));
+    assertFalse(trsContainsStringRule(augmentedTRS, "g(g(x', y'), g(x', y'))", "g(x', y')"));
+    unfolder.setAugmentationLimits(-1, 5);
+    augmentedTRS = unfolder.createAugmentedTRSTest(trs);
+    assertEquals(5, augmentedTRS.queryRuleCount());
+    assertTrue(trsContainsStringRule(augmentedTRS, "f(0, 1, x)", "f(x, x, x)"));
+    assertTrue(trsContainsStringRule(augmentedTRS, "g(x, y)", "x"));
+    assertTrue(trsContainsStringRule(augmentedTRS, "g(x, y)", "y"));
+  }
 }
@@ -0,0 +1,71 @@
+package analysers;
+
+import cora.analysers.BatchAnalyser;
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.parsers.TrsInputReader;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchAnalyserTest {
+  private BatchAnalyser createBatchAnalyser(int workers) {
+    return new BatchAnalyser(
+      file -> new ConcreteUnfoldingAnalyser(TrsInputReader.readTrsFromFile(file), 5, new SemiUnification(), false),
+      10000, workers);
+  }
+
+  private Path createProblems() throws Exception {
+    Path dir = Files.createTempDirectory("batch");
+    Files.writeString(dir.resolve("loop.trs"), "(VAR x)\n(RULES\n  f(x) -> f(x)\n)\n");
+    Files.writeString(dir.resolve("terminating.trs"), "(VAR x)\n(RULES\n  f(s(x)) -> f(x)\n)\n");
+    Files.writeString(dir.resolve("broken.trs"), "(VAR x)\n(RULES\n  f(x -> \n");
+    Files.writeString(dir.resolve("notes.txt"), "not a problem");
+    return dir;
+  }
+
+  @Test
+  public void testCollectDirectory() throws Exception {
+    Path dir = createProblems();
+    List<String> problems = BatchAnalyser.collectProblems(dir.toString());
+    assertEquals(3, problems.size());
+    assertTrue(problems.get(0).endsWith("broken.trs"));
+    assertTrue(problems.get(2).endsWith("terminating.trs"));
+  }
+
+  @Test
+  public void testCollectList() throws Exception {
+    Path dir = createProblems();
+    Path list = dir.resolve("problems.txt");
+    Files.writeString(list, "# the looping problem\n" + dir.resolve("loop.trs") + "\n\n" + dir.resolve("notes.txt") + "\n");
+    assertEquals(List.of(dir.resolve("loop.trs").toString(), dir.resolve("notes.txt").toString()),
+                 BatchAnalyser.collectProblems(list.toString()));
+  }
+
+  @Test
+  public void testRun() throws Exception {
+    Path dir = createProblems();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int errors = createBatchAnalyser(2).run(BatchAnalyser.collectProblems(dir.toString()), new PrintStream(bytes));
+    assertEquals(1, errors);
+    String[] lines = bytes.toString().split("\n");
+    assertEquals(3, lines.length);
+    Arrays.sort(lines);
+    String[] broken = lines[0].split("\t");
+    String[] loop = lines[1].split("\t");
+    String[] terminating = lines[2].split("\t");
+    assertEquals(4, broken.length);
+    assertEquals("ERROR", broken[1]);
+    assertEquals(4, loop.length);
+    assertEquals("NONTERMINATES", loop[1]);
+    assertFalse(loop[3].contains("\n"));
+    assertEquals("MAYBE", terminating[1]);
+  }
+}
@@ -0,0 +1,55 @@
+package analysers;
+
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.nontermination.unfolding.AbstractUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.UnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.UnfoldingHeuristic;
+import cora.interfaces.analyzers.Result;
+import cora.interfaces.rewriting.TRS;
+import cora.parsers.TrsInputReader;
+import org.junit.Test;
+
+import java.util.List;
+
+import static analysers.UnfoldingProblems.CYCLE;
+import static org.junit.Assert.*;
+
+public class BestFirstSearchTest {
+  private static final String ADDITION = "(VAR x y)\n(RULES\n  +(x, s(y)) -> s(+(x, y))\n  +(x, 0) -> x\n)\n";
+  private static final List<String> HEURISTICS = List.of("termSize", "sizeDifference", "sharedRoots", "depth");
+
+  private List<UnfoldingAnalyser> createAnalysers(TRS trs, UnfoldingHeuristic heuristic, long budget) {
+    List<UnfoldingAnalyser> analysers = List.of(new AbstractUnfoldingAnalyser(trs, 0, new SemiUnification(), true),
+                                                new ConcreteUnfoldingAnalyser(trs, 0, new SemiUnification(), false));
+    for (UnfoldingAnalyser analyser : analysers) analyser.setSearch(heuristic, budget);
+    return analysers;
+  }
+
+  @Test
+  public void testHeuristicsFindLoop() throws Exception {
+    TRS trs = TrsInputReader.readTrsFromString(CYCLE);
+    for (String name : HEURISTICS) {
+      for (UnfoldingAnalyser analyser : createAnalysers(trs, UnfoldingHeuristic.fromName(name), 1000)) {
+        assertEquals(name, Result.ResultType.NONTERMINATES, analyser.analyzeMillis(20000).getResultType());
+      }
+    }
+  }
+
+  @Test
+  public void testBudgetGivesMaybe() throws Exception {
+    TRS trs = TrsInputReader.readTrsFromString(ADDITION);
+    for (String name : HEURISTICS) {
+      for (UnfoldingAnalyser analyser : createAnalysers(trs, UnfoldingHeuristic.fromName(name), 50)) {
+        assertEquals(name, Result.ResultType.MAYBE, analyser.analyzeMillis(20000).getResultType());
+      }
+    }
+  }
+
+  @Test
+  public void testHeuristicNames() throws Exception {
+    for (String name : HEURISTICS) assertNotNull(UnfoldingHeuristic.fromName(name));
+    assertNull(UnfoldingHeuristic.fromName("breadthFirst"));
+    assertEquals(4, UnfoldingHeuristic.size(TrsInputReader.readTrsFromString(CYCLE).queryRule(0).queryRightSide()));
+  }
+}
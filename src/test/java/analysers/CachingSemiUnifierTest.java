@@ -0,0 +1,103 @@
+package analysers;
+
+import cora.analysers.general.semiunification.CachingSemiUnifier;
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.general.semiunification.SemiUnificationResult;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.interfaces.types.Type;
+import cora.terms.FunctionalTerm;
+import cora.terms.UserDefinedSymbol;
+import cora.terms.Var;
+import cora.types.ArrowType;
+import cora.types.Sort;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CachingSemiUnifierTest {
+  private Type baseType(String name) {
+    return new Sort(name);
+  }
+
+  private FunctionSymbol a() {
+    return new UserDefinedSymbol("a", baseType("o"));
+  }
+
+  private Term f(Term x, Term y) {
+    return new FunctionalTerm(new UserDefinedSymbol("f", new ArrowType(baseType("o"), new ArrowType(baseType("o"), baseType("o")))), x, y);
+  }
+
+  private Term g(Term x) {
+    return new FunctionalTerm(new UserDefinedSymbol("g", new ArrowType(baseType("o"), baseType("o"))), x);
+  }
+
+  private void assertSolution(Term s, Term t, SemiUnificationResult result) {
+    assertTrue(result.isSuccess());
+    assertEquals(t.substitute(result.getSigma()), s.substitute(result.getSigma()).substitute(result.getRho()));
+  }
+
+  @Test
+  public void testVariantIsAnsweredFromCache() {
+    CachingSemiUnifier cache = new CachingSemiUnifier(new SemiUnification(), 10);
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    Term s = f(x, a());
+    Term t = f(g(y), y);
+    assertSolution(s, t, cache.semiUnify(s, t));
+    assertEquals(0, cache.queryHits());
+    assertEquals(1, cache.queryMisses());
+
+    Variable u = new Var("u", baseType("o"));
+    Variable v = new Var("v", baseType("o"));
+    Term s2 = f(u, a());
+    Term t2 = f(g(v), v);
+    SemiUnificationResult result = cache.semiUnify(s2, t2);
+    assertEquals(1, cache.queryHits());
+    assertEquals(1, cache.queryMisses());
+    assertSolution(s2, t2, result);
+    assertFalse(result.getSigma().domain().contains(x));
+    assertFalse(result.getSigma().domain().contains(y));
+  }
+
+  @Test
+  public void testDifferentVariablePatternIsNotAVariant() {
+    CachingSemiUnifier cache = new CachingSemiUnifier(new SemiUnification(), 10);
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    assertSolution(f(x, y), f(a(), x), cache.semiUnify(f(x, y), f(a(), x)));
+    assertSolution(f(x, x), f(a(), x), cache.semiUnify(f(x, x), f(a(), x)));
+    assertEquals(0, cache.queryHits());
+    assertEquals(2, cache.querySize());
+  }
+
+  @Test
+  public void testFailuresAreCached() {
+    CachingSemiUnifier cache = new CachingSemiUnifier(new SemiUnification(), 10);
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    assertFalse(cache.semiUnify(g(x), x).isSuccess());
+    assertFalse(cache.semiUnify(g(y), y).isSuccess());
+    assertEquals(1, cache.queryHits());
+    assertEquals(1, cache.queryMisses());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() {
+    CachingSemiUnifier cache = new CachingSemiUnifier(new SemiUnification(), 2);
+    Variable x = new Var("x", baseType("o"));
+    Term t1 = g(x), t2 = g(g(x)), t3 = g(g(g(x)));
+    cache.semiUnify(x, t1);
+    cache.semiUnify(x, t2);
+    cache.semiUnify(x, t1);
+    cache.semiUnify(x, t3);
+    assertEquals(2, cache.querySize());
+    assertEquals(1, cache.queryHits());
+    cache.semiUnify(x, t1);
+    assertEquals(2, cache.queryHits());
+    cache.semiUnify(x, t2);
+    assertEquals(2, cache.queryHits());
+    assertEquals(4, cache.queryMisses());
+  }
+}
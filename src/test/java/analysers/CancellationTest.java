@@ -0,0 +1,75 @@
+package analysers;
+
+import cora.analysers.CancellationToken;
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.nontermination.unfolding.AbstractUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.exceptions.AnalysisCancelledError;
+import cora.exceptions.AnalyzerInterruptedException;
+import cora.exceptions.ParserException;
+import cora.interfaces.analyzers.Result;
+import cora.interfaces.rewriting.TRS;
+import cora.parsers.TrsInputReader;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CancellationTest {
+  /** A system without a semi-unifying unfolding, which grows quickly when unfolded. */
+  private TRS growingTRS() throws ParserException {
+    return TrsInputReader.readTrsFromString(
+      "(VAR x y)\n(RULES\n  +(x,0) -> x\n  +(x,s(y)) -> s(+(x,y))\n  fib(0) -> 0\n  fib(s(0)) -> s(0)\n" +
+      "  fib(s(s(x))) -> +(fib(s(x)),fib(x))\n)\n");
+  }
+
+  @Test
+  public void testTokenCancellation() {
+    CancellationToken token = new CancellationToken();
+    token.check();
+    token.cancel("testing");
+    assertTrue(token.isCancelled());
+    assertFalse(token.isLimitReached());
+    token.reset();
+    token.check();
+  }
+
+  @Test(expected = AnalysisCancelledError.class)
+  public void testCheckCancelledToken() {
+    CancellationToken token = new CancellationToken();
+    token.cancel("testing");
+    token.check();
+  }
+
+  @Test
+  public void testTokenRuleLimit() {
+    CancellationToken token = new CancellationToken();
+    token.setRuleLimit(10);
+    token.countRules(10);
+    try {
+      token.countRules(1);
+      fail("The rule limit was not enforced.");
+    } catch (AnalysisCancelledError e) { }
+    assertTrue(token.isLimitReached());
+    assertEquals(11, token.queryRuleCount());
+  }
+
+  @Test
+  public void testMillisecondTimeout() throws AnalyzerInterruptedException, ParserException {
+    ConcreteUnfoldingAnalyser analyser = new ConcreteUnfoldingAnalyser(growingTRS(), 1000, new SemiUnification(), true);
+    long start = System.currentTimeMillis();
+    Result result = analyser.analyzeMillis(200);
+    assertEquals(Result.ResultType.TIMEOUT, result.getResultType());
+    assertEquals(200, result.getAnalyzerTime());
+    assertTrue(System.currentTimeMillis() - start < 5000);
+    assertTrue(analyser.queryCancellationToken().isCancelled());
+  }
+
+  @Test
+  public void testRuleLimit() throws AnalyzerInterruptedException, ParserException {
+    AbstractUnfoldingAnalyser analyser = new AbstractUnfoldingAnalyser(growingTRS(), 1000, new SemiUnification(), true);
+    analyser.setRuleLimit(500);
+    Result result = analyser.analyze(60);
+    assertEquals(Result.ResultType.LIMIT, result.getResultType());
+    assertTrue(result.getDeduction().contains("500 generated rules"));
+  }
+}
@@ -1,6 +1,9 @@
 package analysers;
 
+import cora.analysers.general.semiunification.SemiUnification;
 import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.exceptions.AnalyzerInterruptedException;
+import cora.interfaces.analyzers.Result;
 import cora.interfaces.rewriting.Rule;
 import cora.interfaces.rewriting.TRS;
 import cora.interfaces.terms.FunctionSymbol;
@@ -171,4 +174,50 @@ public class ConcreteUnfoldingTest {
     assertTrue(rulesContainStringRule(unfoldedRules2, "f(0, s(0), s(0))", "f(s(0), s(s(0)), s(0))"));
     assertTrue(rulesContainStringRule(unfoldedRules2, "f(0, s(0), s(s(y')))", "f(s(s(y')), s(s(+(s(s(y')), y'))), s(s(y')))"));
   }
+
+  @Test
+  public void testParallelUnfoldGivesSameRules() {
+    Term zero = new FunctionalTerm(constant("0", "o"), new ArrayList<>());
+    FunctionSymbol f = functionSymbol("f", "o", "o", "o", "o");
+    FunctionSymbol s = functionSymbol("s", "o", "o");
+    FunctionSymbol plus = functionSymbol("+", "o", "o", "o");
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    Term r1l = new FunctionalTerm(f, new ArrayList<>(List.of(zero, new FunctionalTerm(s, zero), x)));
+    Term r1r = new FunctionalTerm(f, new ArrayList<>(List.of(x, new FunctionalTerm(plus, x, x), x)));
+    Term r2l = new FunctionalTerm(plus, x, new FunctionalTerm(s, y));
+    Term r2r = new FunctionalTerm(s, new FunctionalTerm(plus, x, y));
+    Term r3l = new FunctionalTerm(plus, x, zero);
+    TRS trs = createTermRewritingSystem(nonTypedSymbols(), new ArrayList<>(List.of(new FirstOrderRule(r1l, r1r), new FirstOrderRule(r2l, r2r), new FirstOrderRule(r3l, x))));
+    var sequential = new ConcreteUnfoldingAnalyser(trs);
+    var parallel = new ConcreteUnfoldingAnalyser(trs);
+    parallel.setThreads(4);
+    List<Rule> rules = getRulesFromTRS(trs);
+    for (int i = 0; i < 3; i++) {
+      List<Rule> expected = sequential.unfoldTest(rules);
+      rules = parallel.unfoldTest(rules);
+      assertEquals(expected.toString(), rules.toString());
+    }
+  }
+
+  /**
+   * f(x) -> g(x)
+   * g(x) -> f(x)
+   */
+  @Test
+  public void testParallelAnalysisGivesSameResult() throws AnalyzerInterruptedException {
+    FunctionSymbol f = functionSymbol("f", "o", "o");
+    FunctionSymbol g = functionSymbol("g", "o", "o");
+    Variable x = new Var("x", baseType("o"));
+    TRS trs = createTermRewritingSystem(List.of(f, g), new ArrayList<>(List.of(
+      new FirstOrderRule(new FunctionalTerm(f, x), new FunctionalTerm(g, x)),
+      new FirstOrderRule(new FunctionalTerm(g, x), new FunctionalTerm(f, x)))));
+    var sequential = new ConcreteUnfoldingAnalyser(trs, 5, new SemiUnification(), false);
+    var parallel = new ConcreteUnfoldingAnalyser(trs, 5, new SemiUnification(), false);
+    parallel.setThreads(4);
+    Result expected = sequential.analyze(10);
+    Result result = parallel.analyze(10);
+    assertEquals(Result.ResultType.NONTERMINATES, result.getResultType());
+    assertEquals(expected.getDeduction(), result.getDeduction());
+  }
 }
@@ -259,4 +259,72 @@ public class FunctionalDependencyGraphTest {
     assertTrue(graph.transitions(r3l, s));
     assertTrue(graph.transitions(new FunctionalTerm(plus, xa, new FunctionalTerm(s, zero)), s));
   }
+
+  @Test
+  public void testVariablesOfTheSameSortShareANode() {
+    FunctionSymbol h = functionSymbol("h", "o", "o");
+    FunctionSymbol k = functionSymbol("k", "o", "o");
+    FunctionSymbol c = functionSymbol("c", "o", "o");
+    FunctionSymbol d = functionSymbol("d", "o", "o");
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    Variable z = new Var("z", baseType("o"));
+    TRS trs = createTermRewritingSystem(new ArrayList<>(List.of(h, k, c, d)), new ArrayList<>(List.of(
+      new FirstOrderRule(new FunctionalTerm(h, x), x),
+      new FirstOrderRule(new FunctionalTerm(k, y), y),
+      new FirstOrderRule(new FunctionalTerm(c, z), new FunctionalTerm(d, z)))));
+
+    var graph = new FunctionalDependencyGraph(getRulesFromTRS(trs));
+
+    // k(y) -> o -> c(z) -> d, even though the edge o -> c(z) was created for the variable x of the first rule
+    Term a = new FunctionalTerm(constant("a", "o"), new ArrayList<>());
+    assertTrue(graph.transitions(new FunctionalTerm(k, a), d));
+    assertTrue(graph.transitions(new FunctionalTerm(h, a), d));
+    assertFalse(graph.transitions(new FunctionalTerm(d, a), d));
+  }
+
+  @Test
+  public void testTransitionsRememberedModuloRenaming() {
+    Term zero = new FunctionalTerm(constant("0", "a"), new ArrayList<>());
+    FunctionSymbol s = functionSymbol("s", "a", "a");
+    FunctionSymbol plus = functionSymbol("+", "a", "a", "a");
+    Variable x = new Var("x", baseType("a"));
+    Variable y = new Var("y", baseType("a"));
+    TRS trs = createTermRewritingSystem(typedSymbols(), new ArrayList<>(List.of(
+      new FirstOrderRule(new FunctionalTerm(plus, x, new FunctionalTerm(s, y)), new FunctionalTerm(s, new FunctionalTerm(plus, x, y))),
+      new FirstOrderRule(new FunctionalTerm(plus, x, zero), x))));
+
+    var graph = new FunctionalDependencyGraph(getRulesFromTRS(trs));
+
+    assertTrue(graph.transitions(new FunctionalTerm(plus, x, y), s));
+    int remembered = graph.queryRememberedTransitions();
+    for (int i = 0; i < 10; i++) {
+      Variable u = new Var("u", baseType("a"));
+      Variable v = new Var("v", baseType("a"));
+      assertTrue(graph.transitions(new FunctionalTerm(plus, u, v), s));
+    }
+    assertEquals(remembered, graph.queryRememberedTransitions());
+    // a non-linear term is not a variant of +(x, y), so it gets its own result
+    assertTrue(graph.transitions(new FunctionalTerm(plus, x, x), s));
+    assertEquals(remembered + 1, graph.queryRememberedTransitions());
+  }
+
+  @Test
+  public void testTransitionsMemoIsBounded() {
+    Term zero = new FunctionalTerm(constant("0", "a"), new ArrayList<>());
+    FunctionSymbol s = functionSymbol("s", "a", "a");
+    FunctionSymbol plus = functionSymbol("+", "a", "a", "a");
+    Variable x = new Var("x", baseType("a"));
+    TRS trs = createTermRewritingSystem(typedSymbols(), new ArrayList<>(List.of(
+      new FirstOrderRule(new FunctionalTerm(plus, x, zero), x))));
+
+    var graph = new FunctionalDependencyGraph(getRulesFromTRS(trs));
+
+    Term t = x;
+    for (int i = 0; i <= FunctionalDependencyGraph.TRANSITION_MEMO_CAPACITY; i++) {
+      t = new FunctionalTerm(s, t);
+      assertFalse(graph.transitions(t, plus));
+    }
+    assertEquals(FunctionalDependencyGraph.TRANSITION_MEMO_CAPACITY, graph.queryRememberedTransitions());
+  }
 }
@@ -0,0 +1,144 @@
+package analysers;
+
+import cora.analysers.general.semiunification.CachingSemiUnifier;
+import cora.analysers.general.semiunification.DifferentialSemiUnifier;
+import cora.analysers.general.semiunification.GraphSemiUnification;
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.general.semiunification.SemiUnificationResult;
+import cora.interfaces.analyzers.SemiUnifier;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.interfaces.types.Type;
+import cora.terms.FunctionalTerm;
+import cora.terms.UserDefinedSymbol;
+import cora.terms.Var;
+import cora.terms.VarSupply;
+import cora.types.ArrowType;
+import cora.types.Sort;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GraphSemiUnificationTest {
+  private Type baseType(String name) {
+    return new Sort(name);
+  }
+
+  private FunctionSymbol a() {
+    return new UserDefinedSymbol("a", baseType("o"));
+  }
+
+  private Term f(Term x, Term y) {
+    return new FunctionalTerm(new UserDefinedSymbol("f", new ArrowType(baseType("o"), new ArrowType(baseType("o"), baseType("o")))), x, y);
+  }
+
+  private Term g(Term x) {
+    return new FunctionalTerm(new UserDefinedSymbol("g", new ArrowType(baseType("o"), baseType("o"))), x);
+  }
+
+  private void assertSolution(Term s, Term t, SemiUnificationResult result) {
+    assertTrue(result.isSuccess());
+    assertEquals(t.substitute(result.getSigma()), s.substitute(result.getSigma()).substitute(result.getRho()));
+  }
+
+  @Test
+  public void testVariableAgainstTermContainingIt() {
+    Variable x = new Var("x", baseType("o"));
+    Term t = g(x);
+    assertSolution(x, t, new GraphSemiUnification().semiUnify(x, t));
+  }
+
+  @Test
+  public void testTermAgainstVariableInside() {
+    Variable x = new Var("x", baseType("o"));
+    assertFalse(new GraphSemiUnification().semiUnify(g(x), x).isSuccess());
+  }
+
+  @Test
+  public void testNeedsSigma() {
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    Term s = f(x, a());
+    Term t = f(g(y), y);
+    assertSolution(s, t, new GraphSemiUnification().semiUnify(s, t));
+  }
+
+  @Test
+  public void testOccursThroughRho() {
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    Term s = f(x, g(x));
+    Term t = f(g(y), y);
+    assertFalse(new GraphSemiUnification().semiUnify(s, t).isSuccess());
+  }
+
+  @Test
+  public void testClash() {
+    Variable x = new Var("x", baseType("o"));
+    assertFalse(new GraphSemiUnification().semiUnify(g(x), f(x, x)).isSuccess());
+    assertFalse(new GraphSemiUnification().semiUnify(f(a(), x), f(g(x), x)).isSuccess());
+  }
+
+  @Test
+  public void testTypes() {
+    Variable x = new Var("x", baseType("a"));
+    Variable y = new Var("y", baseType("b"));
+    assertFalse(new GraphSemiUnification().semiUnify(x, y).isSuccess());
+    Variable z = new Var("z", baseType("a"));
+    assertSolution(x, z, new GraphSemiUnification().semiUnify(x, z));
+  }
+
+  private Term randomTerm(Random rnd, List<Variable> vars, int depth) {
+    int choice = rnd.nextInt(depth <= 0 ? 2 : 5);
+    if (choice == 0) return vars.get(rnd.nextInt(vars.size()));
+    if (choice == 1) return rnd.nextInt(3) == 0 ? a() : vars.get(rnd.nextInt(vars.size()));
+    if (choice == 2) return g(randomTerm(rnd, vars, depth - 1));
+    return f(randomTerm(rnd, vars, depth - 1), randomTerm(rnd, vars, depth - 1));
+  }
+
+  @Test
+  public void testDifferentialAgainstSemiUnification() {
+    DifferentialSemiUnifier differential =
+      new DifferentialSemiUnifier(new SemiUnification(), new GraphSemiUnification(new VarSupply(), null));
+    GraphSemiUnification graph = new GraphSemiUnification();
+    Random rnd = new Random(2020);
+    for (int i = 0; i < 500; i++) {
+      List<Variable> vars = List.of(new Var("x", baseType("o")), new Var("y", baseType("o")), new Var("z", baseType("o")));
+      Term s = randomTerm(rnd, vars, 4);
+      Term t = randomTerm(rnd, vars, 4);
+      differential.semiUnify(s, t);
+      SemiUnificationResult result = graph.semiUnify(s, t);
+      if (result.isSuccess()) assertSolution(s, t, result);
+    }
+    assertEquals(500, differential.queryQueryCount());
+    assertEquals(0, differential.queryUnknownCount());
+    assertEquals(List.of(), differential.queryDisagreements());
+  }
+
+  @Test
+  public void testUnknownIsNotFailure() {
+    Variable x = new Var("x", baseType("o"));
+    int[] calls = { 0 };
+    SemiUnifier givesUp = (s, t) -> {
+      calls[0]++;
+      return SemiUnificationResult.unknown();
+    };
+    DifferentialSemiUnifier differential = new DifferentialSemiUnifier(new SemiUnification(), givesUp);
+    assertTrue(differential.semiUnify(x, g(x)).isSuccess());
+    assertFalse(differential.semiUnify(g(x), x).isSuccess());
+    assertEquals(2, differential.queryUnknownCount());
+    assertEquals(List.of(), differential.queryDisagreements());
+
+    CachingSemiUnifier cached = new CachingSemiUnifier(givesUp, 10);
+    assertTrue(cached.semiUnify(x, g(x)).isUnknown());
+    assertTrue(cached.semiUnify(x, g(x)).isUnknown());
+    assertEquals(4, calls[0]);
+    assertEquals(0, cached.querySize());
+    assertFalse(SemiUnificationResult.unknown().isSuccess());
+    assertFalse(new SemiUnificationResult().isUnknown());
+  }
+}
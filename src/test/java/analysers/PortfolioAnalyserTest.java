@@ -0,0 +1,63 @@
+package analysers;
+
+import cora.analysers.InterruptableAnalyzer;
+import cora.analysers.PortfolioAnalyser;
+import cora.analysers.nontermination.DirectLoopAnalyser;
+import cora.analysers.results.MaybeResult;
+import cora.analysers.results.PortfolioResult;
+import cora.exceptions.AnalyzerInterruptedException;
+import cora.exceptions.ParserException;
+import cora.interfaces.analyzers.Result;
+import cora.parsers.TrsInputReader;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PortfolioAnalyserTest {
+  /** An analyser which waits until it is interrupted, and then returns MAYBE. */
+  private InterruptableAnalyzer slowAnalyser() {
+    return new InterruptableAnalyzer() {
+      @Override
+      protected Result analyze() {
+        try {
+          Thread.sleep(60000);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        return new MaybeResult();
+      }
+    };
+  }
+
+  @Test
+  public void testFirstNonTerminationWins() throws AnalyzerInterruptedException, ParserException {
+    PortfolioAnalyser portfolio = new PortfolioAnalyser();
+    portfolio.addStrategy("slow", slowAnalyser());
+    portfolio.addStrategy("directLoop", new DirectLoopAnalyser(TrsInputReader.readTrsFromString("(VAR x)\n(RULES\n  f(x) -> g(f(x))\n)\n")));
+    Result result = portfolio.analyze(10);
+    assertEquals(Result.ResultType.NONTERMINATES, result.getResultType());
+    assertTrue(result.getAnalyzerTime() < 10000);
+    PortfolioResult portfolioResult = (PortfolioResult)result;
+    assertEquals("directLoop", portfolioResult.queryWinner());
+    assertTrue(portfolioResult.queryStrategyTime("slow") >= 0);
+    assertTrue(result.getDeduction().contains("slow: cancelled"));
+    assertTrue(result.getDeduction().contains("directLoop: NONTERMINATES"));
+  }
+
+  @Test
+  public void testNoStrategyWins() throws AnalyzerInterruptedException, ParserException {
+    PortfolioAnalyser portfolio = new PortfolioAnalyser();
+    portfolio.addStrategy("directLoop", new DirectLoopAnalyser(TrsInputReader.readTrsFromString("(VAR x)\n(RULES\n  f(s(x)) -> f(x)\n)\n")));
+    portfolio.addStrategy("error", new InterruptableAnalyzer() {
+      @Override
+      protected Result analyze() {
+        throw new IllegalStateException("failed");
+      }
+    });
+    Result result = portfolio.analyze(10);
+    assertEquals(Result.ResultType.MAYBE, result.getResultType());
+    assertNull(((PortfolioResult)result).queryWinner());
+    assertTrue(result.getDeduction().contains("directLoop: MAYBE"));
+    assertTrue(result.getDeduction().contains("error: ERROR"));
+  }
+}
@@ -0,0 +1,78 @@
+package analysers;
+
+import cora.analysers.CachingAnalyzer;
+import cora.analysers.ResultCache;
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.analysers.results.CachedResult;
+import cora.analysers.results.TimeoutResult;
+import cora.interfaces.analyzers.Result;
+import cora.interfaces.rewriting.TRS;
+import cora.parsers.TrsInputReader;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+  private static final String LOOP = "(VAR x y)\n(RULES\n  g(y) -> y\n  f(x) -> f(g(x))\n)\n";
+
+  @Test
+  public void testKeyModuloRenaming() throws Exception {
+    TRS trs = TrsInputReader.readTrsFromString(LOOP);
+    TRS renamed = TrsInputReader.readTrsFromString("(VAR a b)\n(RULES\n  f(b)   ->  f(g(b))\n  g(a) -> a\n)");
+    TRS different = TrsInputReader.readTrsFromString("(VAR x y)\n(RULES\n  g(y) -> y\n  f(x) -> f(g(g(x)))\n)");
+    assertEquals(ResultCache.computeKey(trs, "u=5"), ResultCache.computeKey(renamed, "u=5"));
+    assertNotEquals(ResultCache.computeKey(trs, "u=5"), ResultCache.computeKey(trs, "u=6"));
+    assertNotEquals(ResultCache.computeKey(trs, "u=5"), ResultCache.computeKey(different, "u=5"));
+  }
+
+  @Test
+  public void testCachingAnalyzer() throws Exception {
+    TRS trs = TrsInputReader.readTrsFromString(LOOP);
+    ResultCache cache = new ResultCache(Files.createTempDirectory("results"), 10);
+    String key = ResultCache.computeKey(trs, "");
+    CachingAnalyzer first =
+      new CachingAnalyzer(new ConcreteUnfoldingAnalyser(trs, 5, new SemiUnification(), false), cache, key);
+    Result result = first.analyzeMillis(10000);
+    assertFalse(first.queryHit());
+    assertEquals(Result.ResultType.NONTERMINATES, result.getResultType());
+    CachingAnalyzer second =
+      new CachingAnalyzer(new ConcreteUnfoldingAnalyser(trs, 5, new SemiUnification(), false), cache, key);
+    Result cached = second.analyzeMillis(10000);
+    assertTrue(second.queryHit());
+    assertTrue(cached instanceof CachedResult);
+    assertEquals(result.getResultType(), cached.getResultType());
+    assertEquals(result.getDeduction(), cached.getDeduction());
+    assertEquals(1, cache.queryHits());
+    assertEquals(1, cache.queryMisses());
+  }
+
+  @Test
+  public void testEvictionAndTimeouts() throws Exception {
+    Path directory = Files.createTempDirectory("results");
+    ResultCache cache = new ResultCache(directory, 2);
+    Result result = new CachedResult(Result.ResultType.MAYBE, "maybe", 5);
+    cache.store("a", result);
+    Thread.sleep(20);
+    cache.store("b", result);
+    Thread.sleep(20);
+    assertNotNull(cache.lookup("a"));
+    Thread.sleep(20);
+    cache.store("c", result);
+    assertEquals(2, cache.querySize());
+    assertNotNull(cache.lookup("a"));
+    assertNull(cache.lookup("b"));
+    assertEquals("maybe", cache.lookup("c").getDeduction());
+    cache.store("d", TimeoutResult.fromMillis(100));
+    assertNull(cache.lookup("d"));
+    ResultCache reopened = new ResultCache(directory, 2);
+    assertEquals(2, reopened.querySize());
+    reopened.store("e", result);
+    reopened.store("e", result);
+    assertEquals(2, reopened.querySize());
+    assertNotNull(reopened.lookup("e"));
+  }
+}
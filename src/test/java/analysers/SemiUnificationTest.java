@@ -1,6 +1,8 @@
 package analysers;
 
+import cora.analysers.CancellationToken;
 import cora.analysers.general.semiunification.SemiUnification;
+import cora.exceptions.AnalysisCancelledError;
 import cora.interfaces.rewriting.TRS;
 import cora.interfaces.terms.FunctionSymbol;
 import cora.interfaces.terms.Term;
@@ -42,6 +44,22 @@ public class SemiUnificationTest {
     return new UserDefinedSymbol(name, type);
   }
 
+  /** A token which cancels itself once it has been checked more than the given number of times. */
+  private static class CountingToken extends CancellationToken {
+    private int _limit;
+    private int _checks;
+
+    CountingToken(int limit) {
+      _limit = limit;
+    }
+
+    @Override
+    public void check() {
+      if (++_checks > _limit) cancel("testing");
+      super.check();
+    }
+  }
+
   private TermRewritingSystem createTermRewritingSystem(List<FunctionSymbol> functionSymbols) {
     UserDefinedAlphabet alf = new UserDefinedAlphabet(functionSymbols);
     return new TermRewritingSystem(alf, new ArrayList<>());
@@ -268,4 +286,27 @@ public class SemiUnificationTest {
     var semiUnifier = new SemiUnification();
     assertFalse(semiUnifier.semiUnify(term1, term2).isSuccess());
   }
+
+  @Test
+  public void testSemiUnificationChecksToken() {
+    TRS trs = createTermRewritingSystem(nonTypedSymbols());
+    Term term1 = CoraInputReader.readTermFromString("g(x, y, z)", trs);
+    Term term2 = CoraInputReader.readTermFromString("g(y, z, f(x, x))", trs);
+    CountingToken token = new CountingToken(Integer.MAX_VALUE);
+    var semiUnifier = new SemiUnification();
+    assertTrue(semiUnifier.semiUnify(term1, term2, token).isSuccess());
+    assertTrue(token._checks > 1);
+  }
+
+  @Test
+  public void testSemiUnificationCancelledHalfway() {
+    TRS trs = createTermRewritingSystem(nonTypedSymbols());
+    Term term1 = CoraInputReader.readTermFromString("g(x, y, z)", trs);
+    Term term2 = CoraInputReader.readTermFromString("g(y, z, f(x, x))", trs);
+    var semiUnifier = new SemiUnification();
+    try {
+      semiUnifier.semiUnify(term1, term2, new CountingToken(1));
+      fail("The semi-unification was not cancelled.");
+    } catch (AnalysisCancelledError e) { }
+  }
 }
@@ -0,0 +1,89 @@
+package analysers;
+
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.nontermination.unfolding.AbstractUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.UnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.UnfoldingFrontier;
+import cora.interfaces.analyzers.Result;
+import cora.interfaces.rewriting.TRS;
+import cora.parsers.TrsInputReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static analysers.UnfoldingProblems.*;
+import static org.junit.Assert.*;
+
+public class UnfoldingFrontierTest {
+  private UnfoldingAnalyser create(String technique, TRS trs, int unfoldings) {
+    if (technique.equals("abstract")) return new AbstractUnfoldingAnalyser(trs, unfoldings, new SemiUnification(), true);
+    return new ConcreteUnfoldingAnalyser(trs, unfoldings, new SemiUnification(), false);
+  }
+
+  @Test
+  public void testResumeGivesSameResult() throws Exception {
+    for (String problem : List.of(PLUS, CYCLE)) {
+      TRS trs = TrsInputReader.readTrsFromString(problem);
+      for (String technique : List.of("abstract", "concrete")) {
+        for (int first = 1; first <= 2; first++) {
+          UnfoldingAnalyser fresh = create(technique, trs, 4);
+          String expected = describe(fresh);
+          UnfoldingAnalyser shallow = create(technique, trs, first);
+          describe(shallow);
+          UnfoldingFrontier frontier = shallow.queryFrontier();
+          if (frontier == null) continue; // found before unfolding, so there is nothing to resume
+          assertEquals(first, frontier.queryIterations());
+          UnfoldingAnalyser deeper = create(technique, trs, 4);
+          deeper.resumeFrom(frontier);
+          assertEquals(expected, describe(deeper));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testCheckpointFile() throws Exception {
+    TRS trs = TrsInputReader.readTrsFromString(CYCLE);
+    for (String technique : List.of("abstract", "concrete")) {
+      String expected = describe(create(technique, trs, 5));
+      UnfoldingAnalyser shallow = create(technique, trs, 1);
+      assertEquals(Result.ResultType.MAYBE, shallow.analyzeMillis(20000).getResultType());
+      Path file = Files.createTempFile("frontier", ".checkpoint");
+      shallow.queryFrontier().write(file, trs);
+      UnfoldingFrontier frontier = UnfoldingFrontier.read(file, TrsInputReader.readTrsFromString(CYCLE));
+      assertEquals(1, frontier.queryIterations());
+      assertEquals(shallow.queryFrontier().queryRules().toString(), frontier.queryRules().toString());
+      assertEquals(shallow.queryFrontier().queryExploredCount(), frontier.queryExploredCount());
+      UnfoldingAnalyser deeper = create(technique, trs, 5);
+      deeper.resumeFrom(frontier);
+      assertEquals(expected, describe(deeper));
+    }
+  }
+
+  @Test
+  public void testIncompatibleFrontier() throws Exception {
+    TRS trs = TrsInputReader.readTrsFromString(PLUS);
+    UnfoldingAnalyser abstractUnfolder = create("abstract", trs, 1);
+    describe(abstractUnfolder);
+    try {
+      create("concrete", trs, 3).resumeFrom(abstractUnfolder.queryFrontier());
+      fail("A concrete unfolder should not resume from an abstract frontier.");
+    } catch (IllegalArgumentException ex) { }
+    UnfoldingAnalyser pruning = create("abstract", trs, 3);
+    pruning.setPruneSubsumed(true);
+    try {
+      pruning.resumeFrom(abstractUnfolder.queryFrontier());
+      fail("Analysers with different pruning settings should not share frontiers.");
+    } catch (IllegalArgumentException ex) { }
+    Path file = Files.createTempFile("frontier", ".checkpoint");
+    abstractUnfolder.queryFrontier().write(file, trs);
+    try {
+      UnfoldingFrontier.read(file, TrsInputReader.readTrsFromString(CYCLE));
+      fail("A checkpoint should only be read for the problem it was made for.");
+    } catch (IOException ex) { }
+  }
+}
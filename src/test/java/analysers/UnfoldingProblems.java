@@ -0,0 +1,23 @@
+package analysers;
+
+import cora.analysers.nontermination.unfolding.UnfoldingAnalyser;
+import cora.interfaces.analyzers.Result;
+
+/** Small problems, and a helper to run them, shared by the tests of the unfolding analysers. */
+class UnfoldingProblems {
+  /** A system in the style of Toyama's example: f loops on g(0, s(0)), which rewrites to both 0 and s(0). */
+  static final String PLUS = "(VAR x y)\n(RULES\n  f(0, s(0), x) -> f(x, +(x, x), x)\n" +
+                             "  +(x, s(y)) -> s(+(x, y))\n  +(x, 0) -> x\n  g(x, y) -> x\n  g(x, y) -> y\n)\n";
+
+  /** A system where f, g and h call each other in a cycle, which only loops after a few unfoldings. */
+  static final String CYCLE = "(VAR x y)\n(RULES\n  f(s(x), y) -> g(x, s(y))\n  g(x, y) -> h(s(x), y)\n" +
+                              "  h(s(x), y) -> f(s(x), y)\n)\n";
+
+  private UnfoldingProblems() { }
+
+  /** Runs the analyser, and returns the type of its result followed by the number of rules it pruned per iteration. */
+  static String describe(UnfoldingAnalyser analyser) throws Exception {
+    Result result = analyser.analyzeMillis(20000);
+    return result.getResultType() + " " + analyser.queryPrunedCounts();
+  }
+}
@@ -0,0 +1,120 @@
+package analysers;
+
+import cora.analysers.general.unification.UnionFindUnification;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Substitution;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.interfaces.types.Type;
+import cora.terms.FunctionalTerm;
+import cora.terms.UserDefinedSymbol;
+import cora.terms.Var;
+import cora.types.ArrowType;
+import cora.types.Sort;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UnionFindUnificationTest {
+  private Type baseType(String name) {
+    return new Sort(name);
+  }
+
+  private FunctionSymbol constant(String name, String typeName) {
+    return new UserDefinedSymbol(name, baseType(typeName));
+  }
+
+  private FunctionSymbol functionSymbol(String name, String type1, String type2, String type3) {
+    Type type = new ArrowType(baseType(type1), new ArrowType(baseType(type2), baseType(type3)));
+    return new UserDefinedSymbol(name, type);
+  }
+
+  private Term f(Term a, Term b) {
+    return new FunctionalTerm(functionSymbol("f", "o", "o", "o"), a, b);
+  }
+
+  private Term g(Term a, Term b) {
+    return new FunctionalTerm(functionSymbol("g", "o", "o", "o"), a, b);
+  }
+
+  private void assertUnifies(Term s, Term t, Substitution gamma) {
+    assertNotNull(gamma);
+    assertEquals(s.substitute(gamma), t.substitute(gamma));
+  }
+
+  @Test
+  public void testUnifyAgreesWithTermUnify() {
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    Variable z = new Var("z", baseType("o"));
+    Term a = constant("a", "o");
+    Term s = f(g(x, y), f(y, a));
+    Term t = f(z, f(g(a, a), x));
+    Substitution gamma = UnionFindUnification.unify(s, t);
+    assertUnifies(s, t, gamma);
+    assertEquals(s.substitute(s.unify(t)), s.substitute(gamma));
+    assertEquals(a, gamma.get(x));
+    assertEquals(g(a, a), gamma.get(y));
+    assertEquals(g(a, g(a, a)), gamma.get(z));
+  }
+
+  @Test
+  public void testUnifyVariables() {
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    assertTrue(UnionFindUnification.unify(x, x).domain().isEmpty());
+    Substitution gamma = UnionFindUnification.unify(x, y);
+    assertEquals(1, gamma.domain().size());
+    assertUnifies(x, y, gamma);
+  }
+
+  @Test
+  public void testClash() {
+    Variable x = new Var("x", baseType("o"));
+    assertNull(UnionFindUnification.unify(f(x, x), g(x, x)));
+    assertNull(UnionFindUnification.unify(f(x, constant("a", "o")), f(constant("b", "o"), constant("b", "o"))));
+  }
+
+  @Test
+  public void testTypeClash() {
+    Variable x = new Var("x", baseType("a"));
+    assertNull(UnionFindUnification.unify(x, constant("b", "b")));
+    assertNull(UnionFindUnification.unify(x, new Var("y", baseType("b"))));
+  }
+
+  @Test
+  public void testOccursCheck() {
+    Variable x = new Var("x", baseType("o"));
+    Variable y = new Var("y", baseType("o"));
+    assertNull(UnionFindUnification.unify(x, f(x, constant("a", "o"))));
+    assertNull(UnionFindUnification.unify(f(x, y), f(y, g(x, x))));
+  }
+
+  /**
+   * Unifies g(x1, g(x2, ..., g(xn, a))) with g(f(x0, x0), g(f(x1, x1), ..., g(f(x{n-1}, x{n-1}), a))), so xi is
+   * mapped to a term of size 2^i; since the result is shared, this is still fast for large n.
+   */
+  @Test
+  public void testExponentialUnifier() {
+    int n = 60;
+    List<Variable> x = new ArrayList<>();
+    for (int i = 0; i <= n; i++) x.add(new Var("x" + i, baseType("o")));
+    Term s = constant("a", "o");
+    Term t = constant("a", "o");
+    for (int i = n; i >= 1; i--) {
+      s = g(x.get(i), s);
+      t = g(f(x.get(i - 1), x.get(i - 1)), t);
+    }
+    Substitution gamma = UnionFindUnification.unify(s, t);
+    assertUnifies(s, t, gamma);
+    Term value = gamma.get(x.get(n));
+    for (int i = 0; i < n; i++) {
+      assertSame(value.queryImmediateSubterm(1), value.queryImmediateSubterm(2));
+      value = value.queryImmediateSubterm(1);
+    }
+    assertEquals(x.get(0), value);
+  }
+}
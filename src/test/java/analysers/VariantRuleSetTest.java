@@ -0,0 +1,111 @@
+package analysers;
+
+import cora.analysers.general.semiunification.SemiUnification;
+import cora.analysers.nontermination.unfolding.ConcreteUnfoldingAnalyser;
+import cora.analysers.nontermination.unfolding.VariantRuleSet;
+import cora.exceptions.AnalyzerInterruptedException;
+import cora.interfaces.rewriting.Rule;
+import cora.interfaces.terms.FunctionSymbol;
+import cora.interfaces.terms.Term;
+import cora.interfaces.terms.Variable;
+import cora.interfaces.types.Type;
+import cora.rewriting.FirstOrderRule;
+import cora.rewriting.TermRewritingSystem;
+import cora.rewriting.UserDefinedAlphabet;
+import cora.terms.FunctionalTerm;
+import cora.terms.UserDefinedSymbol;
+import cora.terms.Var;
+import cora.types.ArrowType;
+import cora.types.Sort;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VariantRuleSetTest {
+  private Type baseType(String name) {
+    return new Sort(name);
+  }
+
+  private FunctionSymbol constant(String name) {
+    return new UserDefinedSymbol(name, baseType("o"));
+  }
+
+  private FunctionSymbol unarySymbol(String name) {
+    return new UserDefinedSymbol(name, new ArrowType(baseType("o"), baseType("o")));
+  }
+
+  private FunctionSymbol binarySymbol(String name) {
+    return new UserDefinedSymbol(name, new ArrowType(baseType("o"), new ArrowType(baseType("o"), baseType("o"))));
+  }
+
+  private Term f(Term a, Term b) {
+    return new FunctionalTerm(binarySymbol("f"), a, b);
+  }
+
+  private Variable var(String name) {
+    return new Var(name, baseType("o"));
+  }
+
+  @Test
+  public void testVariantIsRejected() {
+    VariantRuleSet set = new VariantRuleSet(false);
+    Variable x = var("x"), y = var("y"), z = var("z"), u = var("u");
+    assertTrue(set.add(new FirstOrderRule(f(x, y), f(y, x))));
+    assertFalse(set.add(new FirstOrderRule(f(z, u), f(u, z))));
+    assertTrue(set.add(new FirstOrderRule(f(z, u), f(z, u))));
+    assertEquals(2, set.size());
+  }
+
+  @Test
+  public void testVariableIdentificationIsNotAVariant() {
+    VariantRuleSet set = new VariantRuleSet(false);
+    Variable x = var("x"), y = var("y");
+    assertTrue(set.add(new FirstOrderRule(f(x, y), x)));
+    assertTrue(set.add(new FirstOrderRule(f(x, x), x)));
+    assertFalse(set.add(new FirstOrderRule(f(y, y), y)));
+  }
+
+  @Test
+  public void testInstanceOnlyRejectedWhenPruningSubsumed() {
+    Variable x = var("x"), y = var("y");
+    Rule general = new FirstOrderRule(f(x, y), x);
+    Rule instance = new FirstOrderRule(f(x, constant("a")), x);
+    VariantRuleSet variants = new VariantRuleSet(false);
+    assertTrue(variants.add(general));
+    assertTrue(variants.add(instance));
+    VariantRuleSet subsumed = new VariantRuleSet(true);
+    assertTrue(subsumed.add(general));
+    assertFalse(subsumed.add(instance));
+  }
+
+  @Test
+  public void testMoreGeneralRuleIsAddedAfterInstance() {
+    Variable x = var("x"), y = var("y");
+    VariantRuleSet set = new VariantRuleSet(true);
+    assertTrue(set.add(new FirstOrderRule(f(x, constant("a")), x)));
+    assertTrue(set.add(new FirstOrderRule(f(x, y), x)));
+  }
+
+  /**
+   * g(x) -> h(x)
+   * h(x) -> a
+   * h(y) -> a
+   * The third rule is a variant of the second, and unfolding the first rule with either gives g(x) -> a twice.
+   */
+  @Test
+  public void testPrunedCountsOfAnalysis() throws AnalyzerInterruptedException {
+    FunctionSymbol g = unarySymbol("g"), h = unarySymbol("h"), a = constant("a");
+    Variable x = var("x"), y = var("y");
+    ArrayList<Rule> rules = new ArrayList<>();
+    rules.add(new FirstOrderRule(new FunctionalTerm(g, x), new FunctionalTerm(h, x)));
+    rules.add(new FirstOrderRule(new FunctionalTerm(h, x), a));
+    rules.add(new FirstOrderRule(new FunctionalTerm(h, y), a));
+    TermRewritingSystem trs = new TermRewritingSystem(new UserDefinedAlphabet(List.of(g, h, a)), rules);
+    ConcreteUnfoldingAnalyser analyser = new ConcreteUnfoldingAnalyser(trs, 5, new SemiUnification(), false);
+    analyser.analyze(10);
+    assertEquals(List.of(1, 1), analyser.queryPrunedCounts());
+  }
+}
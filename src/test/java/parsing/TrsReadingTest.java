@@ -20,6 +20,7 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 import org.antlr.v4.runtime.tree.ParseTree;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeMap;
 
 import cora.exceptions.ParserException;
@@ -205,6 +206,8 @@ public class TrsReadingTest {
 
     public int queryRuleCount() { return 0; }
     public Rule queryRule(int index) { return null; }
+    public List<Rule> queryCandidateRules(Term t) { return new ArrayList<Rule>(); }
+    public List<Rule> queryApplicableRules(Term s, Position pos) { return new ArrayList<Rule>(); }
     public Position leftmostInnermostRedexPosition(Term s) { return null; }
     public Term leftmostInnermostReduce(Term s) { return null; }
     public FunctionSymbol lookupSymbol(String name) { return _symbols.get(name); }